@@ -0,0 +1,154 @@
+package com.project.drawguess.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.project.drawguess.websocket.BinaryCanvasCodec;
+import com.project.drawguess.websocket.BinaryCanvasCodecV2;
+import com.project.drawguess.websocket.CanvasStroke;
+import com.project.drawguess.websocket.CanvasStrokeLog;
+import com.project.drawguess.websocket.DirectBufferPool;
+
+/**
+ * Per-stroke decode / encode / relay costs of both wire formats, and the
+ * cost of building STATE frames: cold (whole canvas) and warm (one stroke
+ * appended since the previous request, the common case). Each invocation
+ * takes the next stroke of a fixed, seeded set, so the numbers are averages
+ * over the realistic size mix in {@link StrokeFixtures}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class CanvasCodecBenchmark {
+
+    private static final int STROKES = 1024;
+
+    @Param({"200", "2000"})
+    int canvasStrokes;
+
+    private DirectBufferPool pool;
+    private CanvasStroke[] strokes;
+    private byte[][] framesV1;
+    private byte[][] framesV2;
+    private byte[][] bodies;
+    private byte[] usernameSuffix;
+    private int next;
+
+    private CanvasStrokeLog warmLog;
+
+    @Setup
+    public void setUp() {
+        pool = new DirectBufferPool(65536, 1024);
+        strokes = StrokeFixtures.strokes(STROKES, 42);
+        framesV1 = new byte[STROKES][];
+        framesV2 = new byte[STROKES][];
+        bodies = new byte[STROKES][];
+        for (int i = 0; i < STROKES; i++) {
+            framesV1[i] = StrokeFixtures.clientFrameV1(strokes[i]);
+            framesV2[i] = StrokeFixtures.clientFrameV2(strokes[i]);
+            bodies[i] = StrokeFixtures.storedBody(strokes[i]);
+        }
+        usernameSuffix = BinaryCanvasCodec.encodeUsernameSuffix("player@example.com");
+
+        warmLog = newLog(canvasStrokes);
+        warmLog.stateSnapshot();
+        warmLog.stateSnapshotV2();
+    }
+
+    private int advance() {
+        int i = next;
+        next = (i + 1) & (STROKES - 1);
+        return i;
+    }
+
+    private CanvasStrokeLog newLog(int count) {
+        CanvasStrokeLog log = new CanvasStrokeLog(pool);
+        for (int i = 0; i < count; i++) {
+            byte[] body = bodies[i & (STROKES - 1)];
+            log.append(body, 0, body.length);
+        }
+        return log;
+    }
+
+    @Benchmark
+    public int checkClientStrokeV1() {
+        byte[] frame = framesV1[advance()];
+        return BinaryCanvasCodec.checkClientStroke(frame, frame.length);
+    }
+
+    @Benchmark
+    public CanvasStroke decodeV1() {
+        return BinaryCanvasCodec.decodeClientStroke(framesV1[advance()]);
+    }
+
+    @Benchmark
+    public CanvasStroke decodeV2() {
+        byte[] frame = framesV2[advance()];
+        return BinaryCanvasCodecV2.decodeClientStroke(frame, frame.length);
+    }
+
+    @Benchmark
+    public byte[] encodeV1() {
+        return BinaryCanvasCodec.encodeStroke(strokes[advance()], usernameSuffix);
+    }
+
+    @Benchmark
+    public byte[] encodeV2() {
+        return BinaryCanvasCodecV2.encodeStroke(strokes[advance()], usernameSuffix);
+    }
+
+    @Benchmark
+    public byte[] relayV1() {
+        byte[] frame = framesV1[advance()];
+        return BinaryCanvasCodec.relayStroke(frame, frame.length, usernameSuffix);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public byte[] coldStateV1() {
+        CanvasStrokeLog log = newLog(canvasStrokes);
+        try {
+            return log.stateSnapshot();
+        } finally {
+            log.release();
+        }
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public byte[] coldStateV2() {
+        CanvasStrokeLog log = newLog(canvasStrokes);
+        try {
+            return log.stateSnapshotV2();
+        } finally {
+            log.release();
+        }
+    }
+
+    /** One stroke appended, then both STATE frames built; the log is rebuilt when it doubles. */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public int warmStateAfterAppend() {
+        if (warmLog.getStrokeCount() >= 2 * canvasStrokes) {
+            warmLog.release();
+            warmLog = newLog(canvasStrokes);
+        }
+        byte[] body = bodies[advance()];
+        warmLog.append(body, 0, body.length);
+        return warmLog.stateSnapshot().length + warmLog.stateSnapshotV2().length;
+    }
+}
@@ -0,0 +1,174 @@
+package com.project.drawguess.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketSession;
+
+import com.project.drawguess.game.DrawerIndex;
+import com.project.drawguess.game.SpectatorRegistry;
+import com.project.drawguess.model.Room;
+import com.project.drawguess.service.RoomCacheService;
+import com.project.drawguess.service.impl.CanvasStrokeServiceImpl;
+import com.project.drawguess.websocket.BinaryCanvasHandler;
+import com.project.drawguess.websocket.CanvasBatcher;
+import com.project.drawguess.websocket.CanvasEngine;
+import com.project.drawguess.websocket.CanvasIngestLimiter;
+import com.project.drawguess.websocket.CanvasRasterizer;
+import com.project.drawguess.websocket.CanvasReplicator;
+import com.project.drawguess.websocket.CanvasSendQueue;
+import com.project.drawguess.websocket.CanvasSendQueues;
+import com.project.drawguess.websocket.CanvasStateTransfers;
+import com.project.drawguess.websocket.DirectBufferPool;
+import com.project.drawguess.websocket.InProcessCanvasReplicationBus;
+import com.project.drawguess.websocket.SpectatorFanOut;
+import com.project.drawguess.websocket.StrokeSimplifier;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Binary canvas fan-out: one drawer's STROKE frame through
+ * BinaryCanvasHandler and the CanvasEngine to every other connection of the room, players and
+ * spectators, on fake sessions. Each invocation waits until every receiver's
+ * send queue has written the frame, so the score is the drawer-to-last-client
+ * latency including the send executor, and no backlog builds up between
+ * invocations. Half of the players (and spectators) use wire v2 when mixed
+ * is set, so both encodings are built.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class CanvasFanOutBenchmark {
+
+    private static final String ROOM = "BENCH";
+    private static final int STROKES = 1024;
+    private static final int CLEAR_EVERY = 4096;
+
+    @Param({"8", "64"})
+    int players;
+
+    @Param({"0", "1000"})
+    int spectators;
+
+    @Param({"false", "true"})
+    boolean mixed;
+
+    private final AtomicLong delivered = new AtomicLong();
+    private CanvasStrokeServiceImpl store;
+    private BinaryCanvasHandler handler;
+    private SpectatorFanOut spectatorFanOut;
+    private CanvasSendQueues sendQueues;
+    private WebSocketSession[] sessions;
+    private WebSocketSession drawer;
+    private BinaryMessage[] frames;
+    private int receivers;
+    private int next;
+    private int sent;
+
+    @Setup
+    public void setUp() throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        VirtualThreadTaskExecutor executor = new VirtualThreadTaskExecutor("bench-fanout-");
+        store = new CanvasStrokeServiceImpl(new DirectBufferPool(65536, 1024),
+                new CanvasRasterizer(registry, StrokeFixtures.CANVAS_WIDTH, StrokeFixtures.CANVAS_HEIGHT), registry);
+        CanvasReplicator replicator = new CanvasReplicator(
+                new InProcessCanvasReplicationBus("bench", new InProcessCanvasReplicationBus.Network()), store, event -> { });
+        DrawerIndex drawerIndex = new DrawerIndex(null, null, replicator, 0);
+        drawerIndex.sessionStarted(ROOM, null); // lobby: anyone may draw
+        Room room = new Room();
+        room.setRoomId(1L);
+        room.setRoomCode(ROOM);
+        RoomCacheService roomCacheService = new RoomCacheService(null) {
+            @Override
+            public Room findByRoomCode(String roomCode) {
+                return ROOM.equals(roomCode) ? room : null;
+            }
+        };
+        SpectatorRegistry spectatorRegistry = new SpectatorRegistry(100_000);
+        sendQueues = new CanvasSendQueues(registry, executor, 1 << 16, 1L << 30, CanvasSendQueue.OverflowPolicy.DROP_OLDEST);
+        spectatorFanOut = new SpectatorFanOut(registry, executor, 256);
+        CanvasIngestLimiter ingestLimiter = new CanvasIngestLimiter(registry, 1 << 20, 4096, 1e9, 1e12, 1e9, 1e12, 2, 60);
+        CanvasEngine engine = new CanvasEngine(store, drawerIndex, spectatorRegistry,
+                new StrokeSimplifier(registry, true, 8, 0.25, 0.5), ingestLimiter, replicator);
+        handler = new BinaryCanvasHandler(
+                store,
+                engine,
+                drawerIndex,
+                new CanvasBatcher(registry, 0, 16384),
+                sendQueues,
+                new CanvasStateTransfers(store, 32768, 4, 120),
+                ingestLimiter,
+                spectatorFanOut,
+                spectatorRegistry,
+                roomCacheService,
+                replicator);
+        engine.register(handler);
+
+        sessions = new WebSocketSession[players];
+        for (int i = 0; i < players; i++) {
+            int version = mixed && i % 2 == 1 ? 2 : 1;
+            sessions[i] = new FakeWebSocketSession("p" + i, "player" + i + "@example.com", ROOM, version, delivered);
+            handler.afterConnectionEstablished(sessions[i]);
+        }
+        for (int i = 0; i < spectators; i++) {
+            int version = mixed && i % 2 == 1 ? 2 : 1;
+            FakeWebSocketSession session = new FakeWebSocketSession("s" + i, "viewer" + i + "@example.com", ROOM, version, delivered);
+            CanvasSendQueue queue = sendQueues.open(ROOM, room.getRoomId(), session,
+                    () -> store.getCanvasState(ROOM, version));
+            spectatorFanOut.add(ROOM, new SpectatorFanOut.Spectator(session.getId(), version, queue));
+        }
+        drawer = sessions[0];
+        receivers = players - 1 + spectators;
+
+        frames = new BinaryMessage[STROKES];
+        var strokes = StrokeFixtures.strokes(STROKES, 11);
+        for (int i = 0; i < STROKES; i++) {
+            frames[i] = new BinaryMessage(StrokeFixtures.clientFrameV1(strokes[i]));
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        for (WebSocketSession session : sessions) {
+            handler.afterConnectionClosed(session, CloseStatus.NORMAL);
+        }
+        for (int i = 0; i < spectators; i++) {
+            spectatorFanOut.remove(ROOM, "s" + i);
+            sendQueues.close(ROOM, "s" + i);
+        }
+        store.clearStrokes(ROOM);
+    }
+
+    @Benchmark
+    public long strokeToAllReceivers() throws Exception {
+        long target = delivered.get() + receivers;
+        handler.handleMessage(drawer, frames[next]);
+        next = (next + 1) & (STROKES - 1);
+        if (++sent % CLEAR_EVERY == 0) {
+            store.clearStrokes(ROOM);
+        }
+        long now;
+        while ((now = delivered.get()) < target) {
+            Thread.onSpinWait();
+        }
+        return now;
+    }
+}
@@ -0,0 +1,138 @@
+package com.project.drawguess.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.project.drawguess.service.impl.CanvasStrokeServiceImpl;
+import com.project.drawguess.websocket.CanvasRasterizer;
+import com.project.drawguess.websocket.CanvasStroke;
+import com.project.drawguess.websocket.DirectBufferPool;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * CanvasStrokeServiceImpl under contention: in each group one drawer adds
+ * strokes while joiners read the STATE of the same room, the pattern of a
+ * busy room where players keep (re)joining. The "rooms" group spreads
+ * drawers over separate rooms to show the cost of the store itself without
+ * a shared log. Rooms are cleared every few thousand strokes so the log
+ * stays at a realistic size; budgets and checkpoints are off (the
+ * service's @Value fields keep their zero defaults outside Spring).
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Group)
+public class CanvasStrokeStoreBenchmark {
+
+    private static final int STROKES = 1024;
+    private static final int CLEAR_EVERY = 4096;
+
+    private CanvasStrokeServiceImpl store;
+    private CanvasStroke[] strokes;
+    private byte[][] bodies;
+    private final AtomicInteger roomIds = new AtomicInteger();
+
+    @State(Scope.Thread)
+    public static class Drawer {
+        int next;
+        int added;
+        String room;
+    }
+
+    @Setup
+    public void setUp() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        store = new CanvasStrokeServiceImpl(new DirectBufferPool(65536, 1024),
+                new CanvasRasterizer(registry, StrokeFixtures.CANVAS_WIDTH, StrokeFixtures.CANVAS_HEIGHT), registry);
+        strokes = StrokeFixtures.strokes(STROKES, 7);
+        bodies = new byte[STROKES][];
+        for (int i = 0; i < STROKES; i++) {
+            bodies[i] = StrokeFixtures.storedBody(strokes[i]);
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void clearRooms() {
+        for (String room : store.getRoomCodes()) {
+            store.clearStrokes(room);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        clearRooms();
+    }
+
+    private String roomOf(Drawer drawer, boolean shared) {
+        if (drawer.room == null) {
+            drawer.room = shared ? "SHARED" : "ROOM" + roomIds.incrementAndGet();
+        }
+        return drawer.room;
+    }
+
+    private void add(Drawer drawer, String room, boolean encoded) {
+        int i = drawer.next;
+        drawer.next = (i + 1) & (STROKES - 1);
+        if (encoded) {
+            store.appendEncodedStroke(room, bodies[i], 0, bodies[i].length);
+        } else {
+            store.addStroke(room, strokes[i]);
+        }
+        if (++drawer.added % CLEAR_EVERY == 0) {
+            store.clearStrokes(room);
+        }
+    }
+
+    @Benchmark
+    @Group("shared")
+    @GroupThreads(1)
+    public void sharedAddEncoded(Drawer drawer) {
+        add(drawer, roomOf(drawer, true), true);
+    }
+
+    @Benchmark
+    @Group("shared")
+    @GroupThreads(3)
+    public byte[] sharedStateV1() {
+        return store.getCanvasState("SHARED", 1);
+    }
+
+    @Benchmark
+    @Group("sharedV2")
+    @GroupThreads(1)
+    public void sharedV2AddDecoded(Drawer drawer) {
+        add(drawer, roomOf(drawer, true), false);
+    }
+
+    @Benchmark
+    @Group("sharedV2")
+    @GroupThreads(3)
+    public byte[] sharedV2State() {
+        return store.getCanvasState("SHARED", 2);
+    }
+
+    @Benchmark
+    @Group("rooms")
+    @GroupThreads(4)
+    public void roomsAddEncoded(Drawer drawer) {
+        add(drawer, roomOf(drawer, false), true);
+    }
+}
@@ -0,0 +1,56 @@
+package com.project.drawguess.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.project.drawguess.game.GuessMatcher;
+
+/**
+ * Cost of matching one chat line against the round's word, cycling through
+ * a mix of exact, containing, close and unrelated guesses. Run with
+ * -prof gc to confirm the matcher allocates nothing per message.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class GuessMatcherBenchmark {
+
+    private static final String[] MESSAGES = {
+        "Basketball",
+        "  basketball ",
+        "is it a basketball?",
+        "baksetball",
+        "basketbal",
+        "football",
+        "lol what is that",
+        "a round orange thing with black lines on it, some kind of sport maybe",
+    };
+
+    private GuessMatcher matcher;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        matcher = new GuessMatcher("basketball");
+    }
+
+    @Benchmark
+    public GuessMatcher.Match match() {
+        String message = MESSAGES[next];
+        next = (next + 1) % MESSAGES.length;
+        return matcher.match(message);
+    }
+}
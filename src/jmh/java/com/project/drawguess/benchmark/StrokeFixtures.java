@@ -0,0 +1,96 @@
+package com.project.drawguess.benchmark;
+
+import java.nio.ByteBuffer;
+import java.util.SplittableRandom;
+
+import com.project.drawguess.websocket.BinaryCanvasCodec;
+import com.project.drawguess.websocket.BinaryCanvasCodecV2;
+import com.project.drawguess.websocket.CanvasStroke;
+
+/**
+ * Seeded strokes shaped like real drawing traffic on an 800x600 canvas.
+ *
+ * Point counts follow a mix of taps and short dashes (1-8 points, 30%),
+ * ordinary strokes (log-normal around 40 points, 55%) and long scribbles or
+ * fills (150-1500 points, 15%). Points are a random walk with small steps,
+ * which is what the v2 delta encoding sees from a pointer at 60 Hz. Most
+ * strokes are pen; one in ten is the eraser, drawn wider.
+ */
+final class StrokeFixtures {
+
+    static final int CANVAS_WIDTH = 800;
+    static final int CANVAS_HEIGHT = 600;
+
+    private static final int[] PEN_WIDTHS = {2, 3, 4, 6, 10};
+    private static final int[] ERASER_WIDTHS = {10, 20, 40};
+    private static final int[] PALETTE = {0x000000, 0xE53935, 0x1E88E5, 0x43A047, 0xFDD835, 0x8E24AA, 0xFB8C00};
+
+    private StrokeFixtures() {
+    }
+
+    static CanvasStroke[] strokes(int count, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        CanvasStroke[] strokes = new CanvasStroke[count];
+        for (int i = 0; i < count; i++) {
+            strokes[i] = stroke(random);
+        }
+        return strokes;
+    }
+
+    static int pointCount(SplittableRandom random) {
+        double r = random.nextDouble();
+        if (r < 0.30) {
+            return 1 + random.nextInt(8);
+        }
+        if (r < 0.85) {
+            double normal = Math.sqrt(-2 * Math.log(1 - random.nextDouble())) * Math.cos(2 * Math.PI * random.nextDouble());
+            return (int) Math.max(9, Math.min(400, Math.round(Math.exp(Math.log(40) + 0.6 * normal))));
+        }
+        return 150 + random.nextInt(1351);
+    }
+
+    static CanvasStroke stroke(SplittableRandom random) {
+        int n = pointCount(random);
+        short[] xy = new short[2 * n];
+        int x = random.nextInt(CANVAS_WIDTH);
+        int y = random.nextInt(CANVAS_HEIGHT);
+        double heading = random.nextDouble() * 2 * Math.PI;
+        for (int i = 0; i < n; i++) {
+            xy[2 * i] = (short) x;
+            xy[2 * i + 1] = (short) y;
+            heading += (random.nextDouble() - 0.5) * 0.6;
+            int step = 1 + random.nextInt(6);
+            x = Math.max(0, Math.min(CANVAS_WIDTH - 1, x + (int) Math.round(step * Math.cos(heading))));
+            y = Math.max(0, Math.min(CANVAS_HEIGHT - 1, y + (int) Math.round(step * Math.sin(heading))));
+        }
+        boolean eraser = random.nextInt(10) == 0;
+        return new CanvasStroke(
+                eraser ? CanvasStroke.TOOL_ERASER : CanvasStroke.TOOL_PEN,
+                PALETTE[random.nextInt(PALETTE.length)],
+                eraser ? ERASER_WIDTHS[random.nextInt(ERASER_WIDTHS.length)] : PEN_WIDTHS[random.nextInt(PEN_WIDTHS.length)],
+                xy);
+    }
+
+    /** The v1 client STROKE frame a browser sends for this stroke. */
+    static byte[] clientFrameV1(CanvasStroke stroke) {
+        byte[] frame = new byte[1 + BinaryCanvasCodec.strokeSize(stroke)];
+        frame[0] = BinaryCanvasCodec.MSG_STROKE;
+        BinaryCanvasCodec.writeStroke(ByteBuffer.wrap(frame, 1, frame.length - 1), stroke);
+        return frame;
+    }
+
+    /** The v2 client STROKE frame. */
+    static byte[] clientFrameV2(CanvasStroke stroke) {
+        byte[] frame = new byte[1 + BinaryCanvasCodecV2.strokeSize(stroke)];
+        frame[0] = BinaryCanvasCodec.MSG_STROKE;
+        BinaryCanvasCodecV2.writeStroke(ByteBuffer.wrap(frame, 1, frame.length - 1), stroke);
+        return frame;
+    }
+
+    /** A stroke body as stored in the log (v1 frame without its type byte). */
+    static byte[] storedBody(CanvasStroke stroke) {
+        byte[] body = new byte[BinaryCanvasCodec.strokeSize(stroke)];
+        BinaryCanvasCodec.writeStroke(ByteBuffer.wrap(body), stroke);
+        return body;
+    }
+}
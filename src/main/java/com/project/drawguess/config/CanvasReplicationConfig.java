@@ -0,0 +1,57 @@
+package com.project.drawguess.config;
+
+import java.time.Duration;
+import java.util.UUID;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import com.project.drawguess.websocket.CanvasReplicationBus;
+import com.project.drawguess.websocket.InProcessCanvasReplicationBus;
+import com.project.drawguess.websocket.RedisCanvasReplicationBus;
+
+@Configuration
+public class CanvasReplicationConfig {
+
+    private static final String STREAM_KEY_PREFIX = "canvas:stream:";
+
+    @Value("${app.canvas.replication.node-id:}")
+    private String configuredNodeId;
+
+    /**
+     * Redis streams, for running several instances behind one load balancer.
+     * Uses the same connection as the cache.
+     */
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(name = "app.canvas.replication.mode", havingValue = "redis")
+    public CanvasReplicationBus redisCanvasReplicationBus(
+            RedisConnectionFactory connectionFactory,
+            @Value("${app.canvas.replication.max-len:10000}") long maxLen,
+            @Value("${app.canvas.replication.block-ms:1000}") long blockMs,
+            @Value("${app.canvas.replication.ttl-seconds:3600}") long ttlSeconds) {
+        RedisTemplate<String, byte[]> template = new RedisTemplate<>();
+        template.setConnectionFactory(connectionFactory);
+        template.setKeySerializer(RedisSerializer.string());
+        template.setHashKeySerializer(RedisSerializer.string());
+        template.setHashValueSerializer(RedisSerializer.byteArray());
+        template.afterPropertiesSet();
+        return new RedisCanvasReplicationBus(template, nodeId(), STREAM_KEY_PREFIX, maxLen, Duration.ofMillis(blockMs),
+                Duration.ofSeconds(Math.max(0, ttlSeconds)));
+    }
+
+    /** Single node: nothing is replicated. */
+    @Bean
+    @ConditionalOnProperty(name = "app.canvas.replication.mode", havingValue = "in-process", matchIfMissing = true)
+    public CanvasReplicationBus inProcessCanvasReplicationBus() {
+        return new InProcessCanvasReplicationBus(nodeId(), new InProcessCanvasReplicationBus.Network());
+    }
+
+    private String nodeId() {
+        return configuredNodeId.isBlank() ? UUID.randomUUID().toString().substring(0, 8) : configuredNodeId;
+    }
+}
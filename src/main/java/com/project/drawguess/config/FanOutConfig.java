@@ -0,0 +1,23 @@
+package com.project.drawguess.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+
+@Configuration
+public class FanOutConfig {
+
+    /**
+     * Executor for outbound WebSocket writes (STOMP client outbound channel and
+     * the binary canvas send queues). Each write runs on its own virtual
+     * thread, so a socket blocked in a write parks a virtual thread instead of
+     * holding a pooled platform thread, and there is no pool size to tune.
+     * Per-connection ordering is kept by the callers: the STOMP outbound
+     * channel preserves publish order per session, and each binary send queue
+     * has at most one drain task running. Round replay streams run on it too.
+     */
+    @Bean
+    public VirtualThreadTaskExecutor fanOutExecutor() {
+        return new VirtualThreadTaskExecutor("fanout-");
+    }
+}
@@ -4,6 +4,7 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.Ordered;
@@ -12,6 +13,7 @@ import org.springframework.http.server.ServerHttpRequest;
 import org.springframework.http.server.ServerHttpResponse;
 import org.springframework.web.socket.WebSocketHandler;
 import org.springframework.web.socket.server.HandshakeInterceptor;
+import org.springframework.web.socket.server.standard.ServletServerContainerFactoryBean;
 import org.springframework.web.socket.server.support.WebSocketHttpRequestHandler;
 import org.springframework.web.socket.server.support.DefaultHandshakeHandler;
 import org.springframework.web.servlet.HandlerMapping;
@@ -41,6 +43,20 @@ public class RawCanvasWebSocketConfig {
         return mapping;
     }
 
+    /**
+     * Tomcat buffers at most 8KB of a binary message by default and closes the
+     * connection (1009) on anything larger, before the handler ever sees it.
+     * Size the buffer to the canvas frame limit so that limit is the one that
+     * applies and oversized frames get the usual rejection.
+     */
+    @Bean
+    public ServletServerContainerFactoryBean webSocketContainer(
+            @Value("${app.canvas.limits.max-frame-bytes:32768}") int maxFrameBytes) {
+        ServletServerContainerFactoryBean container = new ServletServerContainerFactoryBean();
+        container.setMaxBinaryMessageBufferSize(maxFrameBytes);
+        return container;
+    }
+
     static class JwtHandshakeInterceptor implements HandshakeInterceptor {
 
         private final JwtUtil jwtUtil;
@@ -75,6 +91,10 @@ public class RawCanvasWebSocketConfig {
                 }
                 attributes.put("username", username);
                 attributes.put("roomCode", roomCode);
+                // Canvas wire format: v=2 opts into delta/varint strokes, anything else stays on v1
+                attributes.put("canvasVersion", "2".equals(params.get("v")) ? 2 : 1);
+                // spectate=true: read-only viewer of a public room, may only request state
+                attributes.put("spectator", "true".equals(params.get("spectate")));
                 return true;
             } catch (Exception e) {
                 response.setStatusCode(HttpStatus.UNAUTHORIZED);
@@ -3,6 +3,7 @@ package com.project.drawguess.config;
 import java.util.Map;
 
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
 import org.springframework.http.server.ServerHttpRequest;
 import org.springframework.http.server.ServerHttpResponse;
 import org.springframework.messaging.simp.config.ChannelRegistration;
@@ -24,6 +25,7 @@ import lombok.RequiredArgsConstructor;
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
 	private final WebSocketAuthInterceptor webSocketAuthInterceptor;
+	private final VirtualThreadTaskExecutor fanOutExecutor;
 
 	@Override
 	public void configureMessageBroker(MessageBrokerRegistry config)
@@ -31,6 +33,7 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 		config.enableSimpleBroker("/topic", "/queue", "/canvas-topic", "/canvas-queue"); // server -> client (broadcast)
 		config.setApplicationDestinationPrefixes("/app"); // client -> server
 		config.setUserDestinationPrefix("/user");
+		config.setPreservePublishOrder(true); // per-session order on the virtual-thread outbound channel
 	}
 
 	@Override
@@ -53,6 +56,12 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 		registration.interceptors(webSocketAuthInterceptor);
 	}
 
+	@Override
+	public void configureClientOutboundChannel(ChannelRegistration registration)
+	{
+		registration.executor(fanOutExecutor);
+	}
+
 	static class JwtCookieHandshakeInterceptor implements HandshakeInterceptor {
 		@Override
 		public boolean beforeHandshake(ServerHttpRequest request, ServerHttpResponse response,
@@ -1,77 +1,85 @@
 package com.project.drawguess.controller;
 
 import java.security.Principal;
-import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 
 import org.springframework.messaging.handler.annotation.DestinationVariable;
+import org.springframework.messaging.handler.annotation.Header;
 import org.springframework.messaging.handler.annotation.MessageExceptionHandler;
 import org.springframework.messaging.handler.annotation.MessageMapping;
 import org.springframework.messaging.handler.annotation.Payload;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Controller;
 
-import com.project.drawguess.game.GameRoundManager;
-import com.project.drawguess.model.Session;
 import com.project.drawguess.service.impl.CanvasStrokeServiceImpl;
-import com.project.drawguess.service.impl.SessionServiceImpl;
 import com.project.drawguess.websocket.BinaryCanvasCodec;
+import com.project.drawguess.websocket.CanvasEngine;
+import com.project.drawguess.websocket.CanvasFrame;
+import com.project.drawguess.websocket.CanvasReplicationEvent;
+import com.project.drawguess.websocket.CanvasTransport;
 
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
 @Controller
 @Slf4j
 @RequiredArgsConstructor
-public class CanvasWebSocketController {
+public class CanvasWebSocketController implements CanvasTransport {
 
-	private final SessionServiceImpl sessionServiceImpl;
 	private final SimpMessagingTemplate messagingTemplate;
-	private final GameRoundManager gameRoundManager;
 	private final CanvasStrokeServiceImpl canvasStrokeService;
+	private final CanvasEngine canvasEngine;
+
+	@PostConstruct
+	void registerTransport() {
+		canvasEngine.register(this);
+	}
+
+	@Override
+	public CanvasReplicationEvent.Transport kind() {
+		return CanvasReplicationEvent.Transport.STOMP;
+	}
+
+	/**
+	 * STOMP canvas clients speak wire v1 and share one topic per room, so
+	 * every frame is published once with its v1 bytes, sender included.
+	 */
+	@Override
+	public void deliver(String roomCode, CanvasFrame frame, String excludeKey) {
+		messagingTemplate.convertAndSend("/canvas-topic/room/" + roomCode + "/draw", frame.bytesFor(1));
+	}
 
 	@MessageMapping("/canvas/room/{roomCode}/draw")
 	public void handleDraw(@DestinationVariable String roomCode,
 			Principal principal,
+			@Header("simpSessionId") String simpSessionId,
 			@Payload byte[] rawData) {
 		if (principal == null) return;
 
-		Session session = sessionServiceImpl.getActiveSession(roomCode);
-		if (session != null) {
-			if (!gameRoundManager.isDrawerForRoom(roomCode, principal.getName())) {
-				log.warn("Draw rejected for {} in room {} - not the drawer", principal.getName(), roomCode);
-				return;
-			}
+		CanvasEngine.Result result = canvasEngine.submitStroke(roomCode, principal.getName(), simpSessionId, rawData, 1,
+				BinaryCanvasCodec.encodeUsernameSuffix(principal.getName()), CanvasReplicationEvent.Transport.STOMP);
+		if (result.error() != null) {
+			throw new IllegalArgumentException(result.error());
 		}
-
-		Map<String, Object> strokeData = BinaryCanvasCodec.decodeClientStroke(rawData);
-		canvasStrokeService.addStroke(roomCode, strokeData);
-
-		byte[] broadcast = BinaryCanvasCodec.encodeStroke(strokeData, principal.getName());
-		messagingTemplate.convertAndSend("/canvas-topic/room/" + roomCode + "/draw", broadcast);
 	}
 
 	@MessageMapping("/canvas/room/{roomCode}/clear")
 	public void handleCanvasClear(@DestinationVariable String roomCode,
-			Principal principal) {
+			Principal principal,
+			@Header("simpSessionId") String simpSessionId) {
 		if (principal == null) return;
-		if (!gameRoundManager.isDrawerForRoom(roomCode, principal.getName())) return;
-
-		canvasStrokeService.clearStrokes(roomCode);
-
-		messagingTemplate.convertAndSend("/canvas-topic/room/" + roomCode + "/draw", BinaryCanvasCodec.encodeClear());
+		canvasEngine.submitClear(roomCode, principal.getName(), simpSessionId, CanvasReplicationEvent.Transport.STOMP);
 	}
 
 	@MessageMapping("/canvas/room/{roomCode}/request-state")
 	public void requestCanvas(@DestinationVariable String roomCode, Principal principal) {
 		if (principal == null) return;
-		List<Map<String, Object>> strokes = canvasStrokeService.getStrokes(roomCode);
-		if (strokes != null && !strokes.isEmpty()) {
-			byte[] stateBytes = BinaryCanvasCodec.encodeCanvasState(new ArrayList<>(strokes));
+		byte[] stateBytes = canvasStrokeService.getCanvasState(roomCode);
+		if (stateBytes != null) {
 			messagingTemplate.convertAndSendToUser(principal.getName(), "/canvas-queue/canvas-state", stateBytes);
-			log.info("Sent {} canvas strokes (binary) to {} for room {}", strokes.size(), principal.getName(), roomCode);
+			log.info("Sent canvas state ({} bytes, binary) to {} for room {}", stateBytes.length, principal.getName(), roomCode);
 		}
 	}
 
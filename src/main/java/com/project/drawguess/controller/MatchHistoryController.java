@@ -1,27 +1,40 @@
 package com.project.drawguess.controller;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.security.Principal;
 import java.util.ArrayList;
+import java.util.Base64;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
 
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.project.drawguess.dto.RoundSummaryDto;
 import com.project.drawguess.model.RoundRecord;
 import com.project.drawguess.model.UserSession;
+import com.project.drawguess.repository.RoundJournalRepository;
 import com.project.drawguess.repository.RoundRecordRepository;
 import com.project.drawguess.repository.UserSessionRepository;
+import com.project.drawguess.websocket.BinaryCanvasCodec;
+import com.project.drawguess.websocket.CanvasJournal;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -34,8 +47,16 @@ public class MatchHistoryController {
 
     private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
 
+    private static final Set<Integer> REPLAY_SPEEDS = Set.of(1, 2, 4);
+
     private final UserSessionRepository userSessionRepository;
     private final RoundRecordRepository roundRecordRepository;
+    private final RoundJournalRepository roundJournalRepository;
+    // Replays mostly sleep between strokes; a virtual thread each keeps them off the MVC pools
+    private final VirtualThreadTaskExecutor fanOutExecutor;
+
+    @Value("${app.history.replay.timeout-ms:600000}")
+    private long replayTimeoutMs;
 
     /**
      * Returns all past matches for the authenticated user, ordered newest first.
@@ -126,7 +147,8 @@ public class MatchHistoryController {
 
     /**
      * Returns the canvas strokes for a specific round so the frontend can
-     * render and download the drawing.
+     * render and download the drawing. If the round's canvas was checkpointed,
+     * "checkpoint" is a PNG data URL to draw before the strokes.
      */
     @GetMapping("/round/{roundRecordId}/canvas")
     public ResponseEntity<?> getRoundCanvas(@PathVariable Long roundRecordId, Principal principal) {
@@ -136,12 +158,91 @@ public class MatchHistoryController {
         if (record == null) return ResponseEntity.notFound().build();
 
         List<?> strokes = parseJsonList(record.getCanvasStrokesJson());
-        return ResponseEntity.ok(Map.of(
-                "roundRecordId", roundRecordId,
-                "word", record.getWord(),
-                "drawerUsername", record.getDrawerUsername(),
-                "strokes", strokes
-        ));
+        Map<String, Object> canvas = new LinkedHashMap<>();
+        canvas.put("roundRecordId", roundRecordId);
+        canvas.put("word", record.getWord());
+        canvas.put("drawerUsername", record.getDrawerUsername());
+        canvas.put("strokes", strokes);
+        if (record.getCanvasCheckpointPng() != null) {
+            canvas.put("checkpoint", "data:image/png;base64,"
+                    + Base64.getEncoder().encodeToString(record.getCanvasCheckpointPng()));
+        }
+        return ResponseEntity.ok(canvas);
+    }
+
+    /**
+     * Plays a round's drawing back in real time (speed 1, 2 or 4) as NDJSON,
+     * one line per event: first {"type":"ROUND",...}, then
+     * {"t":ms,"type":"STROKE","stroke":{...}} or {"t":ms,"type":"CLEAR"}
+     * as each event comes due. t is the time since the round started at 1x.
+     * The journal is streamed from the database, so memory use does not
+     * depend on the length of the round. Rounds saved before journaling
+     * existed return 404.
+     */
+    @GetMapping("/round/{roundRecordId}/replay")
+    public ResponseEntity<?> replayRound(@PathVariable Long roundRecordId,
+            @RequestParam(defaultValue = "1") int speed, Principal principal) {
+        if (principal == null) return ResponseEntity.status(401).build();
+        if (!REPLAY_SPEEDS.contains(speed)) {
+            return ResponseEntity.badRequest().body(Map.of("message", "speed must be 1, 2 or 4"));
+        }
+
+        RoundSummaryDto round = roundRecordRepository.findSummaryById(roundRecordId).orElse(null);
+        if (round == null) return ResponseEntity.notFound().build();
+        Long journalLength = roundJournalRepository.findJournalLength(roundRecordId);
+        if (journalLength == null) return ResponseEntity.notFound().build();
+
+        ResponseBodyEmitter emitter = new ResponseBodyEmitter(replayTimeoutMs);
+        fanOutExecutor.execute(() -> streamReplay(emitter, round, journalLength, speed));
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(emitter);
+    }
+
+    private void streamReplay(ResponseBodyEmitter emitter, RoundSummaryDto round, long journalLength, int speed) {
+        Long roundRecordId = round.getRoundRecordId();
+        try (InputStream in = roundJournalRepository.openJournal(roundRecordId, journalLength)) {
+            Map<String, Object> header = new LinkedHashMap<>();
+            header.put("type", "ROUND");
+            header.put("roundRecordId", roundRecordId);
+            header.put("word", round.getWord());
+            header.put("drawerUsername", round.getDrawerUsername());
+            header.put("speed", speed);
+            sendLine(emitter, header);
+
+            CanvasJournal.Reader reader = new CanvasJournal.Reader(in);
+            long startNanos = System.nanoTime();
+            CanvasJournal.Event event;
+            while ((event = reader.next()) != null) {
+                long dueNanos = startNanos + TimeUnit.MILLISECONDS.toNanos(event.timeMillis()) / speed;
+                long waitNanos = dueNanos - System.nanoTime();
+                if (waitNanos > 0) {
+                    TimeUnit.NANOSECONDS.sleep(waitNanos);
+                }
+                Map<String, Object> line = new LinkedHashMap<>();
+                line.put("t", event.timeMillis());
+                if (event.type() == BinaryCanvasCodec.MSG_CLEAR) {
+                    line.put("type", "CLEAR");
+                } else {
+                    line.put("type", "STROKE");
+                    line.put("stroke", event.stroke());
+                }
+                sendLine(emitter, line);
+            }
+            emitter.complete();
+        } catch (IOException e) {
+            // Usually the client went away; the emitter is already unusable
+            log.debug("Replay of round {} stopped: {}", roundRecordId, e.getMessage());
+            emitter.completeWithError(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            emitter.completeWithError(e);
+        } catch (RuntimeException e) {
+            log.error("Replay of round {} failed: {}", roundRecordId, e.getMessage());
+            emitter.completeWithError(e);
+        }
+    }
+
+    private static void sendLine(ResponseBodyEmitter emitter, Map<String, Object> line) throws IOException {
+        emitter.send(OBJECT_MAPPER.writeValueAsString(line) + "\n", MediaType.APPLICATION_NDJSON);
     }
 
     @SuppressWarnings("unchecked")
@@ -12,9 +12,9 @@ import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Controller;
 
-import java.time.LocalDateTime;
-
+import com.project.drawguess.game.ChatBroadcaster;
 import com.project.drawguess.game.GameRoundManager;
+import com.project.drawguess.game.SpectatorRegistry;
 import com.project.drawguess.model.Session;
 import com.project.drawguess.model.User;
 import com.project.drawguess.repository.UserRepository;
@@ -34,6 +34,8 @@ public class WebSocketController {
 	private final SimpMessagingTemplate messagingTemplate;
 	private final UserRepository userRepository;
 	private final GameRoundManager gameRoundManager;
+	private final SpectatorRegistry spectatorRegistry;
+	private final ChatBroadcaster chatBroadcaster;
 
 	@MessageMapping("/room/{roomCode}/join")
 	public void joinRoom(@DestinationVariable String roomCode, SimpMessageHeaderAccessor headerAccessor,
@@ -46,6 +48,16 @@ public class WebSocketController {
 
 	}
 
+	@MessageMapping("/room/{roomCode}/spectate")
+	public void spectateRoom(@DestinationVariable String roomCode, SimpMessageHeaderAccessor headerAccessor,
+			Principal principal) {
+		String wsSessionId = headerAccessor.getSessionId();
+		String username = principal.getName();
+		log.info("Spectate room - Room - {}, User - {}, wsSessionId - {} ", roomCode, username, wsSessionId);
+
+		roomServiceImpl.spectateRoom(roomCode, username, wsSessionId);
+	}
+
 	@MessageMapping("/room/{roomCode}/start")
 	public void startGame(@DestinationVariable String roomCode, Principal principle) {
 		if (principle == null) {
@@ -69,6 +81,9 @@ public class WebSocketController {
 			return;
 		}
 		String email = principal.getName();
+		if (spectatorRegistry.isSpectator(headerAccessor.getSessionId())) {
+			throw new IllegalStateException("Spectators cannot guess");
+		}
 		if (payload == null) {
 			log.warn("Null payload for guess from {}", email);
 			return;
@@ -79,6 +94,10 @@ public class WebSocketController {
 			return;
 		}
 
+		if (!chatBroadcaster.tryAcquire(email)) {
+			return;
+		}
+
 		if (message.length() > 250) {
 			message = message.substring(0, 250);
 		}
@@ -91,12 +110,7 @@ public class WebSocketController {
 
 		Session session = sessionServiceImpl.getActiveSession(roomCode);
 		if (session == null) {
-			Map<String, Object> chatMsg = new HashMap<>();
-			chatMsg.put("type", "CHAT_MESSAGE");
-			chatMsg.put("username", user.getUsername());
-			chatMsg.put("message", message.trim());
-			chatMsg.put("timestamp", LocalDateTime.now().toString());
-			messagingTemplate.convertAndSend("/topic/room/" + roomCode, (Object) chatMsg);
+			chatBroadcaster.publish(roomCode, user.getUsername(), message.trim());
 			return;
 		}
 
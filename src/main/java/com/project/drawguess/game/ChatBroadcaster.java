@@ -0,0 +1,138 @@
+package com.project.drawguess.game;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Component;
+
+import com.project.drawguess.scheduler.GameTimerService;
+import com.project.drawguess.websocket.TokenBucket;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Room chat, coalesced and rate limited.
+ *
+ * Chat lines for a room are held for up to window-ms (or until max-messages
+ * are waiting) and then go out as one broadcast: a lone line as the usual
+ * CHAT_MESSAGE, several as one CHAT_BATCH whose "messages" are CHAT_MESSAGEs
+ * in arrival order. Game events that must not overtake the chat before them
+ * call {@link #flush} first.
+ *
+ * Each user (keyed by email) gets a token bucket of messages-per-second with
+ * room for a burst; lines over the limit are refused with a private
+ * CHAT_RATE_LIMITED notice.
+ */
+@Component
+public class ChatBroadcaster {
+
+	public record ChatMessage(String type, String username, String message, String timestamp) {
+	}
+
+	private static final long SWEEP_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(60);
+	private static final long IDLE_BUCKET_NANOS = TimeUnit.MINUTES.toNanos(5);
+
+	private final SimpMessagingTemplate messagingTemplate;
+	private final GameTimerService gameTimers;
+	private final long windowMs;
+	private final int maxMessages;
+	private final double messagesPerSecond;
+	private final double burst;
+
+	// roomCode → lines waiting for the next flush; a room is only present while it has some
+	private final Map<String, List<ChatMessage>> pending = new ConcurrentHashMap<>();
+	private final Map<String, TokenBucket> userBuckets = new ConcurrentHashMap<>();
+	private final AtomicLong lastSweepNanos = new AtomicLong(System.nanoTime());
+
+	private final DistributionSummary batchSize;
+	private final Counter rateLimited;
+
+	public ChatBroadcaster(
+			SimpMessagingTemplate messagingTemplate,
+			GameTimerService gameTimers,
+			MeterRegistry meterRegistry,
+			@Value("${app.chat.batch.window-ms:100}") long windowMs,
+			@Value("${app.chat.batch.max-messages:32}") int maxMessages,
+			@Value("${app.chat.rate.messages-per-second:2}") double messagesPerSecond,
+			@Value("${app.chat.rate.burst:5}") double burst) {
+		this.messagingTemplate = messagingTemplate;
+		this.gameTimers = gameTimers;
+		this.windowMs = windowMs;
+		this.maxMessages = Math.max(1, maxMessages);
+		this.messagesPerSecond = messagesPerSecond;
+		this.burst = burst;
+		this.batchSize = DistributionSummary.builder("chat.batch.size")
+				.description("Chat lines carried by one room broadcast")
+				.register(meterRegistry);
+		this.rateLimited = Counter.builder("chat.rate.limited")
+				.description("Chat lines refused by the per-user rate limit")
+				.register(meterRegistry);
+	}
+
+	/** Take one message from the user's bucket; false (and a notice to the user) if it is empty. */
+	public boolean tryAcquire(String email) {
+		sweepIdle();
+		TokenBucket bucket = userBuckets.computeIfAbsent(email, k -> new TokenBucket(messagesPerSecond, burst));
+		if (bucket.tryConsume(1)) return true;
+		rateLimited.increment();
+		Map<String, Object> msg = Map.of(
+				"type", "CHAT_RATE_LIMITED",
+				"message", "You are sending messages too fast");
+		messagingTemplate.convertAndSendToUser(email, "/queue/errors", msg);
+		return false;
+	}
+
+	/** Queue a chat line for the room's next broadcast. */
+	public void publish(String roomCode, String username, String message) {
+		ChatMessage line = new ChatMessage("CHAT_MESSAGE", username, message, LocalDateTime.now().toString());
+		boolean[] first = new boolean[1];
+		List<ChatMessage> full = new ArrayList<>(0);
+		pending.compute(roomCode, (k, lines) -> {
+			if (lines == null) {
+				lines = new ArrayList<>();
+				first[0] = true;
+			}
+			lines.add(line);
+			if (lines.size() < maxMessages) return lines;
+			full.addAll(lines);
+			return null;
+		});
+		if (!full.isEmpty()) {
+			send(roomCode, full);
+		} else if (first[0]) {
+			gameTimers.schedule("chat-flush", () -> flush(roomCode), windowMs, TimeUnit.MILLISECONDS);
+		}
+	}
+
+	/** Broadcast whatever the room has waiting now. */
+	public void flush(String roomCode) {
+		List<ChatMessage> lines = pending.remove(roomCode);
+		if (lines != null) {
+			send(roomCode, lines);
+		}
+	}
+
+	private void send(String roomCode, List<ChatMessage> lines) {
+		batchSize.record(lines.size());
+		Object payload = lines.size() == 1
+				? lines.get(0)
+				: Map.of("type", "CHAT_BATCH", "messages", lines);
+		messagingTemplate.convertAndSend("/topic/room/" + roomCode, payload);
+	}
+
+	private void sweepIdle() {
+		long now = System.nanoTime();
+		long previous = lastSweepNanos.get();
+		if (now - previous < SWEEP_INTERVAL_NANOS || !lastSweepNanos.compareAndSet(previous, now)) return;
+		userBuckets.values().removeIf(b -> b.idleNanos(now) > IDLE_BUCKET_NANOS);
+	}
+}
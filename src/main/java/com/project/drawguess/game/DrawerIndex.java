@@ -0,0 +1,177 @@
+package com.project.drawguess.game;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import com.project.drawguess.enums.SessionStatus;
+import com.project.drawguess.model.Room;
+import com.project.drawguess.repository.SessionRepository;
+import com.project.drawguess.service.RoomCacheService;
+import com.project.drawguess.websocket.CanvasReplicationEvent;
+import com.project.drawguess.websocket.CanvasReplicator;
+
+/**
+ * In-memory index of roomCode → (active game session, current drawer) used to
+ * authorize strokes without any I/O.
+ *
+ * SessionServiceImpl reports session start/end and GameRoundManager reports
+ * round start/end and cleanup. A room the index has not heard of (e.g. after
+ * a restart) is looked up in the database once and cached; open rooms without
+ * an active session are cached as such. Nobody may draw in rooms that don't
+ * exist (or are closed); their codes are remembered as misses for
+ * miss-ttl-ms, so frames sent to a bogus code don't reach Redis or the
+ * database each time. An entry is dropped when its session ends or its room
+ * closes, so the map only holds open rooms. A room created here clears its
+ * code's miss at once; one created on another node is seen once the miss
+ * expires.
+ *
+ * The game runs on one node, but a room's players may be connected to
+ * others, so every change is also published as a DRAWER replication event and
+ * applied to the index of each node following the room. A node that starts
+ * following a room gets the room's latest entry with the canvas backlog.
+ */
+@Component
+public class DrawerIndex {
+
+	public record RoomDrawer(Long sessionId, String drawerEmail) {
+
+		public boolean allows(String email) {
+			return sessionId == null || email.equals(drawerEmail);
+		}
+	}
+
+	private static final long SWEEP_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(60);
+
+	private final SessionRepository sessionRepository;
+	private final RoomCacheService roomCacheService;
+	private final CanvasReplicator canvasReplicator;
+
+	private final long missTtlNanos;
+
+	private final Map<String, RoomDrawer> rooms = new ConcurrentHashMap<>();
+	// roomCode → System.nanoTime() at which the miss expires
+	private final Map<String, Long> misses = new ConcurrentHashMap<>();
+	private final AtomicLong lastSweepNanos = new AtomicLong(System.nanoTime());
+
+	public DrawerIndex(
+			SessionRepository sessionRepository,
+			RoomCacheService roomCacheService,
+			CanvasReplicator canvasReplicator,
+			@Value("${app.canvas.drawer-index.miss-ttl-ms:5000}") long missTtlMs) {
+		this.sessionRepository = sessionRepository;
+		this.roomCacheService = roomCacheService;
+		this.canvasReplicator = canvasReplicator;
+		this.missTtlNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, missTtlMs));
+	}
+
+	/**
+	 * Whether this user may draw in the room: anyone in a lobby (no active
+	 * session), only the current drawer while a round is running, nobody
+	 * between rounds.
+	 */
+	public boolean canDraw(String roomCode, String email) {
+		RoomDrawer entry = entry(roomCode);
+		return entry != null && entry.allows(email);
+	}
+
+	/** Whether this user is the drawer of the room's running round (never true in a lobby). */
+	public boolean isDrawer(String roomCode, String email) {
+		RoomDrawer entry = entry(roomCode);
+		return entry != null && entry.sessionId() != null && email.equals(entry.drawerEmail());
+	}
+
+	/**
+	 * The room's current entry, or null if there is no open room with that
+	 * code. Every session or round start/end replaces the entry with a new
+	 * instance, so holding on to one tells whether the drawer has changed since.
+	 */
+	public RoomDrawer entry(String roomCode) {
+		RoomDrawer entry = rooms.get(roomCode);
+		if (entry != null) return entry;
+		if (isMiss(roomCode)) return null;
+		RoomDrawer loaded = load(roomCode);
+		if (loaded == null) {
+			recordMiss(roomCode);
+			return null;
+		}
+		entry = rooms.putIfAbsent(roomCode, loaded);
+		return entry != null ? entry : loaded;
+	}
+
+	/** A room was created with this code (codes of closed rooms are reused). */
+	public void roomOpened(String roomCode) {
+		misses.remove(roomCode);
+	}
+
+	public void sessionStarted(String roomCode, Long sessionId) {
+		rooms.put(roomCode, new RoomDrawer(sessionId, null));
+		canvasReplicator.publishDrawer(roomCode, sessionId, null);
+	}
+
+	public void roundStarted(String roomCode, Long sessionId, String drawerEmail) {
+		rooms.put(roomCode, new RoomDrawer(sessionId, drawerEmail));
+		canvasReplicator.publishDrawer(roomCode, sessionId, drawerEmail);
+	}
+
+	public void roundEnded(String roomCode, Long sessionId) {
+		rooms.computeIfPresent(roomCode,
+				(k, entry) -> sessionId.equals(entry.sessionId()) ? new RoomDrawer(sessionId, null) : entry);
+		canvasReplicator.publishDrawer(roomCode, sessionId, null);
+	}
+
+	public void sessionEnded(String roomCode) {
+		rooms.remove(roomCode);
+		canvasReplicator.publishDrawer(roomCode, null, null);
+	}
+
+	public void roomClosed(String roomCode) {
+		rooms.remove(roomCode);
+		recordMiss(roomCode);
+		canvasReplicator.publishDrawer(roomCode, null, null);
+		canvasReplicator.roomClosed(roomCode);
+	}
+
+	/** Apply a change made on the node running the room's game. */
+	@EventListener
+	public void onReplicatedEvent(CanvasReplicationEvent event) {
+		if (event.type() != CanvasReplicationEvent.Type.DRAWER) return;
+		if (event.sessionId() == null) {
+			rooms.remove(event.roomCode());
+		} else {
+			rooms.put(event.roomCode(), new RoomDrawer(event.sessionId(), event.drawerEmail()));
+		}
+	}
+
+	private boolean isMiss(String roomCode) {
+		Long expiresAt = misses.get(roomCode);
+		if (expiresAt == null) return false;
+		if (System.nanoTime() - expiresAt < 0) return true;
+		misses.remove(roomCode, expiresAt);
+		return false;
+	}
+
+	private void recordMiss(String roomCode) {
+		if (missTtlNanos == 0) return;
+		long now = System.nanoTime();
+		misses.put(roomCode, now + missTtlNanos);
+		long previous = lastSweepNanos.get();
+		if (now - previous >= SWEEP_INTERVAL_NANOS && lastSweepNanos.compareAndSet(previous, now)) {
+			misses.values().removeIf(expiresAt -> now - expiresAt >= 0);
+		}
+	}
+
+	/** The room's entry from the database, or null if there is no open room with that code. */
+	private RoomDrawer load(String roomCode) {
+		Room room = roomCacheService.findByRoomCode(roomCode);
+		if (room == null) return null;
+		return sessionRepository.findByRoomAndStatus(room, SessionStatus.ACTIVE)
+				.map(session -> new RoomDrawer(session.getSessionId(), null))
+				.orElseGet(() -> new RoomDrawer(null, null));
+	}
+}
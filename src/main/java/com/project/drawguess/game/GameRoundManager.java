@@ -6,15 +6,18 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.project.drawguess.enums.RoomStatus;
@@ -27,9 +30,15 @@ import com.project.drawguess.repository.RoomRepository;
 import com.project.drawguess.repository.RoundRecordRepository;
 import com.project.drawguess.repository.SessionRepository;
 import com.project.drawguess.repository.UserSessionRepository;
+import com.project.drawguess.scheduler.GameTimerService;
 import com.project.drawguess.service.RoomCacheService;
 import com.project.drawguess.service.impl.CanvasStrokeServiceImpl;
+import com.project.drawguess.websocket.CanvasReplicationEvent;
+import com.project.drawguess.websocket.CanvasReplicator;
+import com.project.drawguess.websocket.CanvasStroke;
+import com.project.drawguess.websocket.CanvasStrokeLog;
 
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
@@ -47,18 +56,33 @@ public class GameRoundManager {
 	private final CanvasStrokeServiceImpl canvasStrokeService;
 	private final RoomCacheService roomCacheService;
 	private final RoundRecordRepository roundRecordRepository;
+	private final DrawerIndex drawerIndex;
+	private final CanvasReplicator canvasReplicator;
+	private final GameTimerService gameTimers;
+	private final PlatformTransactionManager transactionManager;
+	private final ChatBroadcaster chatBroadcaster;
 
 	private final Map<Long, RoundState> activeRounds = new ConcurrentHashMap<>();
 	private final Map<Long, List<Long>> drawerOrders = new ConcurrentHashMap<>();
 	private final Map<Long, Integer> drawerRotationCounters = new ConcurrentHashMap<>();
 	private final Map<String, Long> roomCodeToSessionId = new ConcurrentHashMap<>();
-	private final Map<Long, ScheduledFuture<?>> pendingNextRoundTasks = new ConcurrentHashMap<>();
+	private final Map<Long, GameTimerService.Handle> pendingNextRoundTasks = new ConcurrentHashMap<>();
 	private final Map<Long, Set<String>> usedWordsPerSession = new ConcurrentHashMap<>();
+	private final Map<Long, ScoreLedger> scoreLedgers = new ConcurrentHashMap<>();
 
-	private final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(10);
+	// Score flushes commit on their own, whatever transaction the caller is in
+	private TransactionTemplate scoreFlushTransaction;
+
+
+	// Round transitions are serialized per session, not across the node.
+	// ReentrantLock rather than synchronized so the virtual timer threads
+	// running them unmount instead of pinning a carrier while they wait on JPA.
+	private static final int LOCK_STRIPES = 256;
+	private final ReentrantLock[] sessionLocks = newLockStripes();
 
 	private static final int MAX_START_RETRIES = 6;
 	private static final int RETRY_INTERVAL_SECONDS = 5;
+	private static final int MAX_SCORE_FLUSH_RETRIES = 6;
 
 	
 	@Value("${app.gameroundmanager.round-duration-seconds:40}")
@@ -73,6 +97,12 @@ public class GameRoundManager {
 	@Value("${app.gameroundmanager.delay-between-round-seconds:5}")
 	private int DELAY_BETWEEN_ROUNDS_SECONDS;
 
+	@PostConstruct
+	void initScoreFlushTransaction() {
+		scoreFlushTransaction = new TransactionTemplate(transactionManager);
+		scoreFlushTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+	}
+
 	public void initializeGame(Session session, String roomCode) {
 		Long sessionId = session.getSessionId();
 		List<UserSession> activePlayers = userSessionRepository.findActiveUsersBySessionId(sessionId);
@@ -83,10 +113,11 @@ public class GameRoundManager {
 		}
 		drawerOrders.put(sessionId, drawerOrder);
 		roomCodeToSessionId.put(roomCode, sessionId);
+		scoreLedgers.put(sessionId, new ScoreLedger());
 
 		log.info("Game initialized for session {}. Drawer order: {}", sessionId, drawerOrder);
 
-		scheduler.schedule(() -> {
+		gameTimers.schedule("first-round", () -> {
 			try {
 				startNextRound(sessionId, roomCode);
 			} catch (Exception e) {
@@ -95,11 +126,21 @@ public class GameRoundManager {
 		}, 2, TimeUnit.SECONDS);
 	}
 
-	public synchronized void startNextRound(Long sessionId, String roomCode) {
+	public void startNextRound(Long sessionId, String roomCode) {
 		startNextRound(sessionId, roomCode, 0);
 	}
 
-	private synchronized void startNextRound(Long sessionId, String roomCode, int retryCount) {
+	private void startNextRound(Long sessionId, String roomCode, int retryCount) {
+		ReentrantLock lock = sessionLock(sessionId);
+		lock.lock();
+		try {
+			beginRound(sessionId, roomCode, retryCount);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private void beginRound(Long sessionId, String roomCode, int retryCount) {
 		pendingNextRoundTasks.remove(sessionId);
 
 		Session session = sessionRepository.findById(sessionId).orElse(null);
@@ -113,8 +154,9 @@ public class GameRoundManager {
 
 		if (nextRound > session.getTotalRounds()) {
 			log.info("All {} rounds complete for session {}", session.getTotalRounds(), sessionId);
+			ScoreLedger ledger = scoreLedgers.get(sessionId);
 			cleanup(sessionId);
-			broadcastAllRoundsComplete(roomCode, session);
+			broadcastAllRoundsComplete(roomCode, session, ledger);
 			finalizeSession(session, roomCode);
 			return;
 		}
@@ -175,6 +217,8 @@ public class GameRoundManager {
 		usedWords.add(word);
 
 		canvasStrokeService.clearStrokes(roomCode);
+		canvasReplicator.publishClear(roomCode, CanvasReplicationEvent.Transport.NONE);
+		canvasStrokeService.startJournal(roomCode);
 
 		Map<String, Object> clearMsg = new HashMap<>();
 		clearMsg.put("type", "CANVAS_CLEAR");
@@ -184,14 +228,16 @@ public class GameRoundManager {
 		sessionRepository.save(session);
 
 		int guesserCount = activePlayers.size() - 1;
+		ScoreLedger ledger = scoreLedgers.computeIfAbsent(sessionId, k -> new ScoreLedger());
 		RoundState roundState = new RoundState(
 				sessionId, nextRound, drawerId,
 				drawerSession.getUser().getUsername(),
 				drawerSession.getUser().getEmail(),
-				word, guesserCount);
+				word, guesserCount, ledger);
 		activeRounds.put(sessionId, roundState);
+		drawerIndex.roundStarted(roomCode, sessionId, roundState.getDrawerEmail());
 
-		ScheduledFuture<?> timerTask = scheduler.schedule(() -> {
+		GameTimerService.Handle timerTask = gameTimers.schedule("round-end", () -> {
 			try {
 				endRound(sessionId, roomCode, "TIME_UP");
 			} catch (Exception e) {
@@ -227,14 +273,17 @@ public class GameRoundManager {
 			return;
 		}
 
-		if (isCorrectGuess(message, round.getWord())) {
-			handleCorrectGuess(sessionId, roomCode, round, userId, username);
-			return;
-		}
-
-		if (containsWord(message, round.getWord())) {
-			sendPrivateError(email, "Almost guessed");
-			return;
+		switch (round.getGuessMatcher().match(message)) {
+			case EXACT -> {
+				handleCorrectGuess(sessionId, roomCode, round, userId, username);
+				return;
+			}
+			case CONTAINS -> {
+				sendPrivateError(email, "Almost guessed");
+				return;
+			}
+			case CLOSE -> sendCloseGuessHint(email, message);
+			case NONE -> { }
 		}
 
 		broadcastChatMessage(roomCode, username, message);
@@ -295,7 +344,7 @@ public class GameRoundManager {
 			Map<String, Object> playerData = new HashMap<>();
 			playerData.put("userId", us.getUser().getUserId());
 			playerData.put("username", us.getUser().getUsername());
-			playerData.put("score", us.getScore());
+			playerData.put("score", scoreOf(us, round.getScores()));
 			players.add(playerData);
 			if (!us.getUser().getUserId().equals(round.getDrawerId())) {
 				guesserCount++;
@@ -321,13 +370,14 @@ public class GameRoundManager {
 		state.put("totalRounds", session.getTotalRounds());
 		state.put("betweenRounds", true);
 
+		ScoreLedger ledger = scoreLedgers.get(sessionId);
 		List<UserSession> activePlayers = userSessionRepository.findActiveUsersBySessionId(sessionId);
 		List<Map<String, Object>> players = new ArrayList<>();
 		for (UserSession us : activePlayers) {
 			Map<String, Object> playerData = new HashMap<>();
 			playerData.put("userId", us.getUser().getUserId());
 			playerData.put("username", us.getUser().getUsername());
-			playerData.put("score", us.getScore());
+			playerData.put("score", scoreOf(us, ledger));
 			players.add(playerData);
 		}
 		state.put("players", players);
@@ -350,29 +400,42 @@ public class GameRoundManager {
 		return email.equals(round.getDrawerEmail());
 	}
 
-	private synchronized void endRound(Long sessionId, String roomCode, String reason) {
+	private void endRound(Long sessionId, String roomCode, String reason) {
+		ReentrantLock lock = sessionLock(sessionId);
+		lock.lock();
+		try {
+			finishRound(sessionId, roomCode, reason);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private void finishRound(Long sessionId, String roomCode, String reason) {
 		RoundState round = activeRounds.remove(sessionId);
 		if (round == null) {
 			log.info("Round already ended for session {}", sessionId);
 			return;
 		}
+		drawerIndex.roundEnded(roomCode, sessionId);
 
 		if (round.getTimerTask() != null && !round.getTimerTask().isDone()) {
-			round.getTimerTask().cancel(false);
+			round.getTimerTask().cancel();
 		}
 
 		log.info("Round {} ended for session {}. Reason: {}. Correct guessers: {}",
 				round.getRoundNumber(), sessionId, reason, round.getCorrectGuessers().size());
 
 		// Capture strokes NOW before the next round clears them
-		List<Map<String, Object>> strokeSnapshot = new ArrayList<>(canvasStrokeService.getStrokes(roomCode));
+		CanvasStrokeLog.Contents canvasSnapshot = canvasStrokeService.getContents(roomCode);
+		byte[] canvasJournal = canvasStrokeService.takeJournal(roomCode);
 
 		broadcastRoundEnded(roomCode, round, reason);
+		flushScoresAfterCommit(sessionId, round.getScores());
 
 		// Save round record asynchronously so it doesn't block the game loop
-		scheduler.schedule(() -> saveRoundRecord(round, strokeSnapshot, reason), 0, TimeUnit.MILLISECONDS);
+		gameTimers.run("round-record", () -> saveRoundRecord(round, canvasSnapshot, canvasJournal, reason));
 
-		scheduler.schedule(() -> {
+		gameTimers.schedule("next-round", () -> {
 			try {
 				startNextRound(sessionId, roomCode);
 			} catch (Exception e) {
@@ -381,7 +444,8 @@ public class GameRoundManager {
 		}, DELAY_BETWEEN_ROUNDS_SECONDS, TimeUnit.SECONDS);
 	}
 
-	private void saveRoundRecord(RoundState round, List<Map<String, Object>> strokes, String reason) {
+	private void saveRoundRecord(RoundState round, CanvasStrokeLog.Contents canvas, byte[] canvasJournal,
+			String reason) {
 		try {
 			Session session = sessionRepository.findById(round.getSessionId()).orElse(null);
 			if (session == null) return;
@@ -399,10 +463,15 @@ public class GameRoundManager {
 					.collect(Collectors.toList());
 
 			String correctGuessersJson = OBJECT_MAPPER.writeValueAsString(correctGuesserData);
+			List<CanvasStroke> strokes = canvas != null ? canvas.strokes() : List.of();
 			String canvasStrokesJson = OBJECT_MAPPER.writeValueAsString(strokes);
 
 			RoundRecord record = new RoundRecord(session, round.getRoundNumber(), round.getWord(),
 					round.getDrawerUsername(), correctGuessersJson, canvasStrokesJson, reason);
+			if (canvas != null && canvas.checkpoint() != null) {
+				record.setCanvasCheckpointPng(canvas.checkpoint().png());
+			}
+			record.setCanvasJournal(canvasJournal);
 			roundRecordRepository.save(record);
 
 			log.info("Round record saved: session={} round={} word={}",
@@ -420,24 +489,11 @@ public class GameRoundManager {
 		int guesserScore = Math.max(50, (int) (MAX_GUESSER_POINTS
 				- (elapsed * MAX_GUESSER_POINTS / ROUND_DURATION_SECONDS)));
 
-		List<UserSession> activePlayers = userSessionRepository.findActiveUsersBySessionId(sessionId);
-
-		activePlayers.stream()
-				.filter(us -> us.getUser().getUserId().equals(userId))
-				.findFirst()
-				.ifPresent(guesserSession -> {
-					guesserSession.addScore(guesserScore);
-					userSessionRepository.save(guesserSession);
-				});
-
-		activePlayers.stream()
-				.filter(us -> us.getUser().getUserId().equals(round.getDrawerId()))
-				.findFirst()
-				.ifPresent(drawerSession -> {
-					drawerSession.addScore(DRAWER_POINTS_PER_GUESS);
-					userSessionRepository.save(drawerSession);
-				});
+		// Written to user_sessions_table when the round ends, see flushScores
+		round.getScores().add(userId, guesserScore);
+		round.getScores().add(round.getDrawerId(), DRAWER_POINTS_PER_GUESS);
 
+		chatBroadcaster.flush(roomCode);
 		Map<String, Object> msg = new HashMap<>();
 		msg.put("type", "CORRECT_GUESS");
 		msg.put("username", username);
@@ -455,14 +511,6 @@ public class GameRoundManager {
 		}
 	}
 
-	private boolean containsWord(String message, String word) {
-		return message.toLowerCase().contains(word.toLowerCase());
-	}
-
-	private boolean isCorrectGuess(String message, String word) {
-		return message.trim().equalsIgnoreCase(word);
-	}
-
 	private void broadcastRoundStarted(String roomCode, RoundState round,
 			List<UserSession> players, Session session) {
 		Map<String, Object> msg = new HashMap<>();
@@ -480,7 +528,7 @@ public class GameRoundManager {
 			Map<String, Object> scoreData = new HashMap<>();
 			scoreData.put("userId", us.getUser().getUserId());
 			scoreData.put("username", us.getUser().getUsername());
-			scoreData.put("score", us.getScore());
+			scoreData.put("score", scoreOf(us, round.getScores()));
 			scores.add(scoreData);
 		}
 		msg.put("players", scores);
@@ -497,6 +545,7 @@ public class GameRoundManager {
 	}
 
 	private void broadcastRoundEnded(String roomCode, RoundState round, String reason) {
+		chatBroadcaster.flush(roomCode);
 		Map<String, Object> msg = new HashMap<>();
 		msg.put("type", "ROUND_ENDED");
 		msg.put("roundNumber", round.getRoundNumber());
@@ -509,21 +558,16 @@ public class GameRoundManager {
 	}
 
 	private void broadcastChatMessage(String roomCode, String username, String message) {
-		Map<String, Object> msg = new HashMap<>();
-		msg.put("type", "CHAT_MESSAGE");
-		msg.put("username", username);
-		msg.put("message", message);
-		msg.put("timestamp", LocalDateTime.now().toString());
-		messagingTemplate.convertAndSend("/topic/room/" + roomCode, (Object) msg);
+		chatBroadcaster.publish(roomCode, username, message);
 	}
 
-	private void broadcastAllRoundsComplete(String roomCode, Session session) {
+	private void broadcastAllRoundsComplete(String roomCode, Session session, ScoreLedger ledger) {
 		List<UserSession> allPlayers = userSessionRepository.findBySession(session);
 		List<Map<String, Object>> finalScores = new ArrayList<>();
 		for (UserSession us : allPlayers) {
 			Map<String, Object> scoreData = new HashMap<>();
 			scoreData.put("username", us.getUser().getUsername());
-			scoreData.put("score", us.getScore());
+			scoreData.put("score", scoreOf(us, ledger));
 			finalScores.add(scoreData);
 		}
 		finalScores.sort((a, b) -> Integer.compare(
@@ -550,6 +594,7 @@ public class GameRoundManager {
 				room.setStatus(RoomStatus.FINISHED);
 				room.setClosedAt(LocalDateTime.now());
 				roomCacheService.save(room);
+				drawerIndex.roomClosed(roomCode);
 			}
 			log.info("Session {} and room {} finalized after all rounds complete", session.getSessionId(), roomCode);
 		} catch (Exception e) {
@@ -564,8 +609,15 @@ public class GameRoundManager {
 		messagingTemplate.convertAndSendToUser(email, "/queue/errors", msg);
 	}
 
+	private void sendCloseGuessHint(String email, String guess) {
+		Map<String, Object> msg = new HashMap<>();
+		msg.put("type", "CLOSE_GUESS");
+		msg.put("message", "'" + guess.trim() + "' is close!");
+		messagingTemplate.convertAndSendToUser(email, "/queue/errors", msg);
+	}
+
 	private void scheduleRetry(Long sessionId, String roomCode, int retryCount) {
-		ScheduledFuture<?> task = scheduler.schedule(() -> {
+		GameTimerService.Handle task = gameTimers.schedule("next-round-retry", () -> {
 			try {
 				startNextRound(sessionId, roomCode, retryCount);
 			} catch (Exception e) {
@@ -575,18 +627,91 @@ public class GameRoundManager {
 		pendingNextRoundTasks.put(sessionId, task);
 	}
 
+	/**
+	 * Flush the ledger once the caller's transaction, if any, has completed.
+	 * The flush commits on its own; run inside a caller that may already hold
+	 * the user_sessions_table rows (leave → endSession → cleanup does) it would
+	 * wait on those row locks while the caller waits on it.
+	 */
+	private void flushScoresAfterCommit(Long sessionId, ScoreLedger ledger) {
+		Runnable flush = () -> flushScores(sessionId, ledger, 0);
+		if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+			gameTimers.run("score-flush", flush);
+			return;
+		}
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+			@Override
+			public void afterCompletion(int status) {
+				// The points were earned whether or not the caller committed
+				gameTimers.run("score-flush", flush);
+			}
+		});
+	}
+
+	/**
+	 * Write the ledger's deltas to user_sessions_table in one transaction. If
+	 * that fails the deltas go back into the ledger and a retry is scheduled;
+	 * the next round end picks them up too.
+	 */
+	private void flushScores(Long sessionId, ScoreLedger ledger, int attempt) {
+		Map<Long, Integer> deltas = ledger.drain();
+		if (deltas.isEmpty()) return;
+		try {
+			scoreFlushTransaction.executeWithoutResult(status -> deltas.forEach(
+					(userId, points) -> userSessionRepository.addScore(sessionId, userId, points)));
+		} catch (RuntimeException e) {
+			ledger.restore(deltas);
+			if (attempt >= MAX_SCORE_FLUSH_RETRIES) {
+				log.error("Giving up flushing scores {} for session {} after {} retries: {}",
+						deltas, sessionId, attempt, e.getMessage());
+				return;
+			}
+			log.warn("Failed to flush scores for session {}, retrying in {}s (attempt {}/{}): {}",
+					sessionId, RETRY_INTERVAL_SECONDS, attempt + 1, MAX_SCORE_FLUSH_RETRIES, e.getMessage());
+			gameTimers.schedule("score-flush-retry", () -> flushScores(sessionId, ledger, attempt + 1),
+					RETRY_INTERVAL_SECONDS, TimeUnit.SECONDS);
+		}
+	}
+
+	/** Stored score plus anything still waiting in the ledger. */
+	private static int scoreOf(UserSession us, ScoreLedger ledger) {
+		int score = us.getScore();
+		return ledger != null ? score + ledger.pending(us.getUser().getUserId()) : score;
+	}
+
+	private ReentrantLock sessionLock(Long sessionId) {
+		return sessionLocks[Math.floorMod(sessionId.hashCode(), LOCK_STRIPES)];
+	}
+
+	private static ReentrantLock[] newLockStripes() {
+		ReentrantLock[] locks = new ReentrantLock[LOCK_STRIPES];
+		for (int i = 0; i < locks.length; i++) {
+			locks[i] = new ReentrantLock();
+		}
+		return locks;
+	}
+
 	public void cleanup(Long sessionId) {
 		RoundState round = activeRounds.remove(sessionId);
 		if (round != null && round.getTimerTask() != null && !round.getTimerTask().isDone()) {
-			round.getTimerTask().cancel(false);
+			round.getTimerTask().cancel();
 		}
-		ScheduledFuture<?> pendingTask = pendingNextRoundTasks.remove(sessionId);
+		GameTimerService.Handle pendingTask = pendingNextRoundTasks.remove(sessionId);
 		if (pendingTask != null && !pendingTask.isDone()) {
-			pendingTask.cancel(false);
+			pendingTask.cancel();
+		}
+		ScoreLedger ledger = scoreLedgers.remove(sessionId);
+		if (ledger != null) {
+			flushScoresAfterCommit(sessionId, ledger);
 		}
 		drawerOrders.remove(sessionId);
 		drawerRotationCounters.remove(sessionId);
 		usedWordsPerSession.remove(sessionId);
-		roomCodeToSessionId.entrySet().removeIf(e -> e.getValue().equals(sessionId));
+		roomCodeToSessionId.entrySet().removeIf(e -> {
+			if (!e.getValue().equals(sessionId)) return false;
+			drawerIndex.sessionEnded(e.getKey());
+			canvasStrokeService.takeJournal(e.getKey()); // round abandoned, nothing to save
+			return true;
+		});
 	}
 }
\ No newline at end of file
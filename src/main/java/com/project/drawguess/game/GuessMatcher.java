@@ -0,0 +1,135 @@
+package com.project.drawguess.game;
+
+import java.util.Arrays;
+
+/**
+ * Matches chat lines against one round's word without allocating.
+ *
+ * The word is case-folded once when the round starts. Guesses are folded a
+ * character at a time while they are compared (the same folding as
+ * String.equalsIgnoreCase), and surrounding whitespace is skipped by index
+ * instead of trimmed off.
+ *
+ * A guess that neither is nor contains the word may still be close: its
+ * optimal string alignment distance (insertions, deletions, substitutions and
+ * adjacent transpositions) is at most 1 for short words and 2 otherwise. The
+ * distance is computed with Hyyrö's bit-parallel algorithm, a handful of long
+ * operations per guess character, so words longer than 64 characters are
+ * never reported close.
+ */
+public final class GuessMatcher {
+
+	public enum Match {
+		EXACT,
+		CONTAINS,
+		CLOSE,
+		NONE
+	}
+
+	/** Words this long or shorter only count a single edit as close. */
+	private static final int SHORT_WORD_LENGTH = 4;
+
+	private final char[] word;
+	private final int maxDistance;
+
+	// Bit i of a character's mask is set when word[i] is that character
+	private final long[] asciiMasks = new long[128];
+	private final char[] otherChars;
+	private final long[] otherMasks;
+
+	public GuessMatcher(String word) {
+		String trimmed = word.trim();
+		int n = trimmed.length();
+		this.word = new char[n];
+		char[] others = new char[n];
+		long[] masks = new long[n];
+		int otherCount = 0;
+		for (int i = 0; i < n; i++) {
+			char c = fold(trimmed.charAt(i));
+			this.word[i] = c;
+			if (i >= Long.SIZE) continue;
+			if (c < asciiMasks.length) {
+				asciiMasks[c] |= 1L << i;
+				continue;
+			}
+			int k = 0;
+			while (k < otherCount && others[k] != c) k++;
+			if (k == otherCount) others[otherCount++] = c;
+			masks[k] |= 1L << i;
+		}
+		this.otherChars = Arrays.copyOf(others, otherCount);
+		this.otherMasks = Arrays.copyOf(masks, otherCount);
+		this.maxDistance = n == 0 || n > Long.SIZE ? 0 : n <= SHORT_WORD_LENGTH ? 1 : 2;
+	}
+
+	public Match match(String message) {
+		int start = 0;
+		int end = message.length();
+		while (start < end && message.charAt(start) <= ' ') start++;
+		while (end > start && message.charAt(end - 1) <= ' ') end--;
+
+		int n = word.length;
+		if (n == 0) return Match.NONE;
+		if (end - start == n && matchesAt(message, start)) return Match.EXACT;
+		for (int i = start; i + n <= end; i++) {
+			if (matchesAt(message, i)) return Match.CONTAINS;
+		}
+		if (Math.abs(end - start - n) <= maxDistance && isClose(message, start, end)) {
+			return Match.CLOSE;
+		}
+		return Match.NONE;
+	}
+
+	private boolean matchesAt(String message, int offset) {
+		for (int i = 0; i < word.length; i++) {
+			if (fold(message.charAt(offset + i)) != word[i]) return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Hyyrö's bit-vector optimal string alignment distance between the word
+	 * and message[start, end), giving up as soon as it cannot come back
+	 * within maxDistance.
+	 */
+	private boolean isClose(String message, int start, int end) {
+		long last = 1L << (word.length - 1);
+		long vp = ~0L;
+		long vn = 0;
+		long d0 = 0;
+		long previousMask = 0;
+		int distance = word.length;
+		for (int j = start; j < end; j++) {
+			long mask = maskOf(fold(message.charAt(j)));
+			long transposed = ((~d0 & mask) << 1) & previousMask;
+			d0 = (((mask & vp) + vp) ^ vp) | mask | vn | transposed;
+			long hp = vn | ~(d0 | vp);
+			long hn = d0 & vp;
+			if ((hp & last) != 0) {
+				distance++;
+			} else if ((hn & last) != 0) {
+				distance--;
+			}
+			// Each remaining character can lower the distance by one at most
+			if (distance - (end - j - 1) > maxDistance) return false;
+			hp = (hp << 1) | 1;
+			hn <<= 1;
+			vp = hn | ~(d0 | hp);
+			vn = hp & d0;
+			previousMask = mask;
+		}
+		return distance <= maxDistance;
+	}
+
+	private long maskOf(char c) {
+		if (c < asciiMasks.length) return asciiMasks[c];
+		for (int k = 0; k < otherChars.length; k++) {
+			if (otherChars[k] == c) return otherMasks[k];
+		}
+		return 0;
+	}
+
+	private static char fold(char c) {
+		return Character.toLowerCase(Character.toUpperCase(c));
+	}
+}
@@ -6,7 +6,8 @@ import java.time.Instant;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ScheduledFuture;
+
+import com.project.drawguess.scheduler.GameTimerService;
 
 import lombok.Data;
 
@@ -18,23 +19,28 @@ public class RoundState {
 	private final String drawerUsername;
 	private final String drawerEmail;
 	private final String word;
+	private final GuessMatcher guessMatcher;
 	private final Instant startedAt;
 	/** Maps userId → seconds elapsed when they guessed correctly */
 	private final Map<Long, Long> correctGuessers = new ConcurrentHashMap<>();
 	private final int totalGuessers;
-	private ScheduledFuture<?> timerTask;
+	/** The session's unflushed points, shared by all its rounds */
+	private final ScoreLedger scores;
+	private GameTimerService.Handle timerTask;
 
 	public RoundState(Long sessionId, int roundNumber, Long drawerId,
 			String drawerUsername, String drawerEmail,
-			String word, int totalGuessers) {
+			String word, int totalGuessers, ScoreLedger scores) {
 		this.sessionId = sessionId;
 		this.roundNumber = roundNumber;
 		this.drawerId = drawerId;
 		this.drawerUsername = drawerUsername;
 		this.drawerEmail = drawerEmail;
 		this.word = word;
+		this.guessMatcher = new GuessMatcher(word);
 		this.startedAt = Instant.now();
 		this.totalGuessers = totalGuessers;
+		this.scores = scores;
 	}
 
 	public boolean hasEveryoneGuessed() {
@@ -0,0 +1,39 @@
+package com.project.drawguess.game;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Points a session has earned that are not yet in user_sessions_table,
+ * keyed by userId.
+ *
+ * Correct guesses only add to the ledger; GameRoundManager writes the deltas
+ * back in a transaction of their own when a round ends or the session
+ * finishes, after the transaction that ended it (if any) has completed. A
+ * flush that fails puts its deltas back, so they are retried rather than lost.
+ */
+public final class ScoreLedger {
+
+	private final Map<Long, Integer> pending = new HashMap<>();
+
+	public synchronized void add(Long userId, int points) {
+		pending.merge(userId, points, Integer::sum);
+	}
+
+	/** Points the user has earned since the last successful flush. */
+	public synchronized int pending(Long userId) {
+		return pending.getOrDefault(userId, 0);
+	}
+
+	/** Take every pending delta, leaving the ledger empty. */
+	public synchronized Map<Long, Integer> drain() {
+		Map<Long, Integer> deltas = new HashMap<>(pending);
+		pending.clear();
+		return deltas;
+	}
+
+	/** Put back the deltas of a failed flush, on top of anything added since. */
+	public synchronized void restore(Map<Long, Integer> deltas) {
+		deltas.forEach((userId, points) -> pending.merge(userId, points, Integer::sum));
+	}
+}
@@ -0,0 +1,86 @@
+package com.project.drawguess.game;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Read-only spectators, keyed by WebSocket session id: STOMP spectators and
+ * /ws-canvas-binary spectator connections alike, so app.spectators.max-per-room
+ * caps a room's spectators over both transports together.
+ *
+ * Spectators are kept in memory only: they get no RoomPlayer or UserSession
+ * rows, do not count toward app.room.max-players and are forgotten when
+ * their connection closes. Guesses from a spectator session are refused, and
+ * so is canvas input from a user spectating the room (see
+ * {@link #isWatching}), on whichever connection it arrives.
+ */
+@Component
+public class SpectatorRegistry {
+
+	private record Spectator(String roomCode, String email) {
+	}
+
+	private final int maxPerRoom;
+
+	// wsSessionId → spectator
+	private final Map<String, Spectator> spectators = new ConcurrentHashMap<>();
+	private final Map<String, Audience> rooms = new ConcurrentHashMap<>();
+
+	public SpectatorRegistry(@Value("${app.spectators.max-per-room:5000}") int maxPerRoom) {
+		this.maxPerRoom = maxPerRoom;
+	}
+
+	/** Register a spectator; false if the room already has max-per-room of them. */
+	public boolean add(String roomCode, String wsSessionId, String email) {
+		if (spectators.containsKey(wsSessionId)) return true;
+		boolean[] added = new boolean[1];
+		rooms.compute(roomCode, (k, audience) -> {
+			if (audience == null) audience = new Audience();
+			if (audience.size >= maxPerRoom) return audience.size == 0 ? null : audience;
+			audience.size++;
+			audience.users.merge(email, 1, Integer::sum);
+			added[0] = true;
+			return audience;
+		});
+		if (added[0]) {
+			spectators.put(wsSessionId, new Spectator(roomCode, email));
+		}
+		return added[0];
+	}
+
+	/** Forget a closed session; returns false if it was not a spectator. */
+	public boolean remove(String wsSessionId) {
+		Spectator spectator = spectators.remove(wsSessionId);
+		if (spectator == null) return false;
+		rooms.computeIfPresent(spectator.roomCode(), (k, audience) -> {
+			audience.size--;
+			audience.users.computeIfPresent(spectator.email(), (e, n) -> n <= 1 ? null : n - 1);
+			return audience.size <= 0 ? null : audience;
+		});
+		return true;
+	}
+
+	public boolean isSpectator(String wsSessionId) {
+		return wsSessionId != null && spectators.containsKey(wsSessionId);
+	}
+
+	/** Whether the user has a spectator connection open on the room. */
+	public boolean isWatching(String roomCode, String email) {
+		Audience audience = rooms.get(roomCode);
+		return audience != null && audience.users.containsKey(email);
+	}
+
+	public int count(String roomCode) {
+		Audience audience = rooms.get(roomCode);
+		return audience == null ? 0 : audience.size;
+	}
+
+	/** A room's spectators; changed only under the rooms map's compute lock. */
+	private static final class Audience {
+		private int size;
+		private final Map<String, Integer> users = new ConcurrentHashMap<>();
+	}
+}
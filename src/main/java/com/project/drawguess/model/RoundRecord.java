@@ -10,6 +10,7 @@ import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
+import jakarta.persistence.Lob;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.Table;
 import lombok.Data;
@@ -46,6 +47,16 @@ public class RoundRecord {
     @Column(columnDefinition = "MEDIUMTEXT")
     private String canvasStrokesJson;
 
+    // Raster of the strokes compacted away before canvasStrokesJson; drawn underneath them
+    @Lob
+    @Column(columnDefinition = "MEDIUMBLOB")
+    private byte[] canvasCheckpointPng;
+
+    // Timestamped CanvasJournal of the round, for replay; streamed by RoundJournalRepository
+    @Lob
+    @Column(columnDefinition = "MEDIUMBLOB")
+    private byte[] canvasJournal;
+
     @Column(nullable = false)
     private String endReason;
 
@@ -45,7 +45,9 @@ public class UserSession {
   	@JoinColumn(name = "session_id", nullable = false)
   	private Session session;
   	
-  	@Column(nullable = false)
+  	// Only ever changed by UserSessionRepository.addScore, so that saving a
+  	// stale entity cannot overwrite points flushed since it was loaded
+  	@Column(nullable = false, updatable = false)
   	private Integer score = 0;
   	
   	@Column(nullable = false)
@@ -69,11 +71,6 @@ public class UserSession {
   		this.isActive = true;
   	}
   	
-  	public void addScore(int points)
-  	{
-  		this.score += points;
-  	}
-  	
  	@PrePersist
   	protected void onCreated() {
   		if(joinedAt == null)
@@ -0,0 +1,72 @@
+package com.project.drawguess.repository;
+
+import java.io.InputStream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Streams a round's canvas journal (round_records.canvas_journal) for
+ * replay. The blob is read in SUBSTRING slices of chunk-bytes, one query per
+ * slice, so a replay holds one slice in memory however long the round was
+ * (the JPA entity would load the whole column).
+ */
+@Repository
+@RequiredArgsConstructor
+public class RoundJournalRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${app.history.replay.chunk-bytes:65536}")
+    private int chunkBytes;
+
+    /** Length of the round's journal in bytes, or null if the round has none. */
+    public Long findJournalLength(Long roundRecordId) {
+        return jdbcTemplate.query(
+                "SELECT LENGTH(canvas_journal) FROM round_records WHERE round_record_id = ?",
+                rs -> rs.next() ? (Long) rs.getObject(1, Long.class) : null,
+                roundRecordId);
+    }
+
+    /** Stream over a journal of the given length (see {@link #findJournalLength}). */
+    public InputStream openJournal(Long roundRecordId, long length) {
+        return new InputStream() {
+            private byte[] slice = new byte[0];
+            private int slicePos;
+            private long offset; // journal bytes fetched so far
+
+            @Override
+            public int read() {
+                if (!fill()) return -1;
+                return slice[slicePos++] & 0xFF;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) {
+                if (len == 0) return 0;
+                if (!fill()) return -1;
+                int n = Math.min(len, slice.length - slicePos);
+                System.arraycopy(slice, slicePos, b, off, n);
+                slicePos += n;
+                return n;
+            }
+
+            private boolean fill() {
+                if (slicePos < slice.length) return true;
+                if (offset >= length) return false;
+                int n = (int) Math.min(chunkBytes, length - offset);
+                byte[] next = jdbcTemplate.queryForObject(
+                        "SELECT SUBSTRING(canvas_journal, ?, ?) FROM round_records WHERE round_record_id = ?",
+                        byte[].class, offset + 1, n, roundRecordId);
+                if (next == null || next.length == 0) return false; // row deleted or shrunk
+                slice = next;
+                slicePos = 0;
+                offset += next.length;
+                return true;
+            }
+        };
+    }
+}
@@ -1,6 +1,7 @@
 package com.project.drawguess.repository;
 
 import java.util.List;
+import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
@@ -27,4 +28,15 @@ public interface RoundRecordRepository extends JpaRepository<RoundRecord, Long>
         ORDER BY rr.session.sessionId DESC, rr.roundNumber ASC
         """)
     List<RoundSummaryDto> findSummariesBySessionIds(@Param("sessionIds") List<Long> sessionIds);
+
+    /** Summary of one round without loading its canvas columns. */
+    @Query("""
+        SELECT new com.project.drawguess.dto.RoundSummaryDto(
+            rr.roundRecordId, rr.session.sessionId, rr.roundNumber,
+            rr.word, rr.drawerUsername, rr.correctGuessersJson,
+            rr.endReason, rr.createdAt)
+        FROM RoundRecord rr
+        WHERE rr.roundRecordId = :roundRecordId
+        """)
+    Optional<RoundSummaryDto> findSummaryById(@Param("roundRecordId") Long roundRecordId);
 }
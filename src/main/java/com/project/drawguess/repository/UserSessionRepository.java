@@ -5,6 +5,7 @@ import java.util.Optional;
 
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -27,6 +28,10 @@ public interface UserSessionRepository extends JpaRepository<UserSession, Long>
 	@Query("SELECT COUNT(us) FROM UserSession us WHERE us.session.id = :sessionId AND us.isActive = true")
 	long countActivePlayersBySessionId(long sessionId);
 
+	@Modifying(flushAutomatically = true, clearAutomatically = true)
+	@Query("UPDATE UserSession us SET us.score = us.score + :points WHERE us.session.id = :sessionId AND us.user.id = :userId")
+	int addScore(@Param("sessionId") Long sessionId, @Param("userId") Long userId, @Param("points") int points);
+
 	@Query("""
 		SELECT us FROM UserSession us
 		JOIN FETCH us.session s
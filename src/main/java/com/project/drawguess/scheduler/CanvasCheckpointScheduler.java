@@ -0,0 +1,52 @@
+package com.project.drawguess.scheduler;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.project.drawguess.service.impl.CanvasStrokeServiceImpl;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Periodically folds the older strokes of long-lived canvases (lobby
+ * canvases of WAITING rooms, long rounds) into raster checkpoints.
+ *
+ * Rooms under app.canvas.checkpoint.min-strokes are skipped, so short
+ * rounds keep their full vector history for the round record.
+ *
+ * Also holds all canvases to app.canvas.budget.total-bytes.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class CanvasCheckpointScheduler {
+
+    private final CanvasStrokeServiceImpl canvasStrokeService;
+
+    @Value("${app.canvas.checkpoint.enabled:true}")
+    private boolean enabled;
+
+    @Scheduled(fixedDelayString = "${app.canvas.checkpoint.interval-ms:15000}")
+    public void checkpointLongCanvases() {
+        if (!enabled) return;
+        for (String roomCode : canvasStrokeService.getRoomCodes()) {
+            try {
+                canvasStrokeService.checkpoint(roomCode);
+            } catch (Exception e) {
+                log.error("Canvas checkpoint failed for room {}: {}", roomCode, e.getMessage());
+            }
+        }
+    }
+
+    /** Compact the largest canvases while all of them together are over the total memory budget. */
+    @Scheduled(fixedDelayString = "${app.canvas.budget.check-interval-ms:5000}")
+    public void enforceMemoryBudget() {
+        try {
+            canvasStrokeService.enforceGlobalBudget();
+        } catch (Exception e) {
+            log.error("Canvas memory budget check failed: {}", e.getMessage());
+        }
+    }
+}
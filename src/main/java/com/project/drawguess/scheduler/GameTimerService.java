@@ -0,0 +1,132 @@
+package com.project.drawguess.scheduler;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.netty.util.HashedWheelTimer;
+import io.netty.util.Timeout;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * One hashed timing wheel for every game and room timer (round start and
+ * end, next-round delays and retries, disconnect grace periods) instead of a
+ * scheduled thread pool per service.
+ *
+ * Scheduling and cancelling are O(1): a timer is a node in one of
+ * wheel-size buckets, and a single thread advances the wheel every tick-ms,
+ * so timers fire up to one tick late. That thread never runs game code;
+ * expired timers are handed to virtual threads, so a task blocked on the
+ * database delays nothing else. Tasks that need ordering between each other
+ * must take their own locks, as before.
+ *
+ * Metrics: game.timers.pending (scheduled, not yet fired or cancelled),
+ * game.timers.lag (deadline to task start) and game.timers.fired /
+ * game.timers.cancelled, tagged with the timer's name.
+ */
+@Component
+@Slf4j
+public class GameTimerService {
+
+    /** A scheduled timer. */
+    public static final class Handle {
+        private final Timeout timeout;
+        private final Runnable onCancel;
+
+        private Handle(Timeout timeout, Runnable onCancel) {
+            this.timeout = timeout;
+            this.onCancel = onCancel;
+        }
+
+        /** Cancel the timer if it has not fired yet; returns true if this call cancelled it. */
+        public boolean cancel() {
+            boolean cancelled = timeout.cancel();
+            if (cancelled) {
+                onCancel.run();
+            }
+            return cancelled;
+        }
+
+        /** Whether the timer has fired or been cancelled. */
+        public boolean isDone() {
+            return timeout.isExpired() || timeout.isCancelled();
+        }
+    }
+
+    private final MeterRegistry meterRegistry;
+    private final VirtualThreadTaskExecutor taskExecutor = new VirtualThreadTaskExecutor("game-timer-");
+    private final HashedWheelTimer wheel;
+    private final Map<String, Meters> meters = new ConcurrentHashMap<>();
+
+    public GameTimerService(
+            MeterRegistry meterRegistry,
+            @Value("${app.timers.tick-ms:100}") long tickMs,
+            @Value("${app.timers.wheel-size:512}") int wheelSize) {
+        this.meterRegistry = meterRegistry;
+        this.wheel = new HashedWheelTimer(
+                Thread.ofPlatform().name("game-timer-wheel").daemon(true).factory(),
+                tickMs, TimeUnit.MILLISECONDS, wheelSize, false, -1, taskExecutor);
+        Gauge.builder("game.timers.pending", wheel, HashedWheelTimer::pendingTimeouts)
+                .description("Game and room timers scheduled and not yet fired or cancelled")
+                .register(meterRegistry);
+    }
+
+    /** Run task after the delay; name tags the timer's metrics (keep it to a fixed set). */
+    public Handle schedule(String name, Runnable task, long delay, TimeUnit unit) {
+        Meters m = meters.computeIfAbsent(name, Meters::new);
+        long deadline = System.nanoTime() + unit.toNanos(delay);
+        Timeout timeout = wheel.newTimeout(t -> {
+            m.lag.record(Math.max(0, System.nanoTime() - deadline), TimeUnit.NANOSECONDS);
+            m.fired.increment();
+            try {
+                task.run();
+            } catch (Exception e) {
+                log.error("Timer {} failed: {}", name, e.getMessage(), e);
+            }
+        }, delay, unit);
+        return new Handle(timeout, m.cancelled::increment);
+    }
+
+    /** Run task now on a timer thread, off the caller's thread. */
+    public void run(String name, Runnable task) {
+        taskExecutor.execute(() -> {
+            try {
+                task.run();
+            } catch (Exception e) {
+                log.error("Timer task {} failed: {}", name, e.getMessage(), e);
+            }
+        });
+    }
+
+    @PreDestroy
+    public void stop() {
+        int unfired = wheel.stop().size();
+        if (unfired > 0) {
+            log.info("Game timer wheel stopped with {} pending timers", unfired);
+        }
+    }
+
+    private final class Meters {
+        private final Timer lag;
+        private final Counter fired;
+        private final Counter cancelled;
+
+        Meters(String name) {
+            this.lag = Timer.builder("game.timers.lag")
+                    .description("Delay between a timer's deadline and its task starting")
+                    .tag("timer", name)
+                    .register(meterRegistry);
+            this.fired = Counter.builder("game.timers.fired").tag("timer", name).register(meterRegistry);
+            this.cancelled = Counter.builder("game.timers.cancelled").tag("timer", name).register(meterRegistry);
+        }
+    }
+}
@@ -10,6 +10,7 @@ import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
 
 import com.project.drawguess.enums.RoomStatus;
+import com.project.drawguess.game.DrawerIndex;
 import com.project.drawguess.model.Room;
 import com.project.drawguess.model.RoomPlayer;
 import com.project.drawguess.repository.RoomPlayerRepository;
@@ -38,6 +39,7 @@ public class RoomCleanupScheduler {
     private final RoomPlayerRepository roomPlayerRepository;
     private final RoomCacheService roomCacheService;
     private final SimpMessagingTemplate messagingTemplate;
+    private final DrawerIndex drawerIndex;
 
     @Scheduled(fixedDelay = 15000)
     @Transactional
@@ -65,6 +67,7 @@ public class RoomCleanupScheduler {
                 room.setStatus(RoomStatus.FINISHED);
                 room.setClosedAt(LocalDateTime.now());
                 roomCacheService.save(room);
+                drawerIndex.roomClosed(room.getRoomCode());
                 messagingTemplate.convertAndSend("/topic/public-rooms",
                         (Object) Map.of("type", "PUBLIC_ROOMS_UPDATED"));
                 log.info("Cleanup: closed abandoned room {} (created {})",
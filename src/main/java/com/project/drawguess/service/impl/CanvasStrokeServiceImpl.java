@@ -1,31 +1,366 @@
 package com.project.drawguess.service.impl;
 
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import com.project.drawguess.websocket.BinaryCanvasCodec;
+import com.project.drawguess.websocket.BinaryCanvasCodecV2;
+import com.project.drawguess.websocket.CanvasCheckpoint;
+import com.project.drawguess.websocket.CanvasJournal;
+import com.project.drawguess.websocket.CanvasRasterizer;
+import com.project.drawguess.websocket.CanvasStroke;
+import com.project.drawguess.websocket.CanvasStrokeLog;
+import com.project.drawguess.websocket.DirectBufferPool;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
+/**
+ * Per-room canvas history, kept off-heap as an append-only log of strokes in
+ * wire format. State requests read the MSG_STATE frame straight from the log's
+ * chunks; v2 requests only transcode strokes appended since the previous one.
+ *
+ * Long-lived canvases are periodically compacted: all but the newest strokes
+ * are rasterized into a PNG checkpoint and dropped from the log, so memory
+ * and state size are bounded by the canvas resolution plus a short tail.
+ *
+ * Memory is also held to budgets: a room whose log chunks and checkpoint
+ * exceed app.canvas.budget.room-bytes is compacted right away (off the
+ * caller's thread), first down to the usual tail and, if that is not
+ * enough, to the checkpoint alone. When all rooms together exceed
+ * app.canvas.budget.total-bytes, the largest rooms are compacted until the
+ * total fits (see {@link #enforceGlobalBudget}). Round journals are not
+ * counted; they are needed whole for replay.
+ *
+ * While a round is running the room also keeps a {@link CanvasJournal} of
+ * timestamped strokes and clears, which is saved with the round for replay.
+ */
 @Service
 @Slf4j
+@RequiredArgsConstructor
 public class CanvasStrokeServiceImpl {
 
-	private final Map<String, List<Map<String, Object>>> strokeHistory = new ConcurrentHashMap<>();
+	private final DirectBufferPool bufferPool;
+	private final CanvasRasterizer canvasRasterizer;
+	private final MeterRegistry meterRegistry;
+
+	@Value("${app.canvas.checkpoint.min-strokes:500}")
+	private int checkpointMinStrokes;
+
+	@Value("${app.canvas.checkpoint.keep-tail-strokes:50}")
+	private int checkpointKeepTail;
+
+	@Value("${app.canvas.budget.room-bytes:8388608}")
+	private long roomBudgetBytes;
+
+	@Value("${app.canvas.budget.total-bytes:268435456}")
+	private long totalBudgetBytes;
+
+	/** One room's memory use against its budget. */
+	public record BudgetState(String roomCode, long retainedBytes, long budgetBytes, int strokeCount,
+			long checkpointedStrokes, boolean overBudget) {
+	}
+
+	private final Map<String, CanvasStrokeLog> strokeLogs = new ConcurrentHashMap<>();
+	private final Map<String, CanvasJournal> journals = new ConcurrentHashMap<>();
+	private final Set<String> pendingCompactions = ConcurrentHashMap.newKeySet();
+	private final ExecutorService compactionExecutor = Executors.newSingleThreadExecutor(
+			Thread.ofVirtual().name("canvas-compaction").factory());
+	private Counter roomBudgetCompactions;
+	private Counter globalBudgetCompactions;
+
+	@PostConstruct
+	void registerMeters() {
+		roomBudgetCompactions = Counter.builder("canvas.budget.compactions")
+				.description("Canvases compacted for exceeding a memory budget")
+				.tag("budget", "room")
+				.register(meterRegistry);
+		globalBudgetCompactions = Counter.builder("canvas.budget.compactions")
+				.description("Canvases compacted for exceeding a memory budget")
+				.tag("budget", "total")
+				.register(meterRegistry);
+		Gauge.builder("canvas.memory.bytes", this, CanvasStrokeServiceImpl::getRetainedBytes)
+				.description("Memory held by all canvases (log chunks, checkpoints)")
+				.baseUnit("bytes")
+				.register(meterRegistry);
+	}
+
+	/** Let a running compaction finish; queued ones are abandoned after a few seconds. */
+	@PreDestroy
+	void stopCompaction() {
+		compactionExecutor.shutdown();
+		try {
+			if (!compactionExecutor.awaitTermination(5, TimeUnit.SECONDS)) {
+				log.warn("Canvas compaction still running at shutdown, interrupting it");
+				compactionExecutor.shutdownNow();
+			}
+		} catch (InterruptedException e) {
+			compactionExecutor.shutdownNow();
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Append a stroke that is already in wire format (a client STROKE frame
+	 * without its type byte).
+	 */
+	public void appendEncodedStroke(String roomCode, byte[] src, int off, int len) {
+		appendToLog(roomCode, src, off, len);
+		CanvasJournal journal = journals.get(roomCode);
+		if (journal != null) {
+			journal.recordEncodedStroke(src, off, len);
+		}
+	}
+
+	public void addStroke(String roomCode, CanvasStroke stroke) {
+		byte[] body = new byte[BinaryCanvasCodec.strokeSize(stroke)];
+		BinaryCanvasCodec.writeStroke(ByteBuffer.wrap(body), stroke);
+		appendToLog(roomCode, body, 0, body.length);
+		CanvasJournal journal = journals.get(roomCode);
+		if (journal != null) {
+			journal.recordEncodedStroke(body, 0, body.length);
+		}
+	}
+
+	private void appendToLog(String roomCode, byte[] src, int off, int len) {
+		CanvasStrokeLog strokeLog;
+		while (!(strokeLog = strokeLogs.computeIfAbsent(roomCode, k -> new CanvasStrokeLog(bufferPool))).append(src, off, len)) {
+			// Lost a race with clearStrokes(); the released log has been removed, retry on a fresh one
+		}
+		if (roomBudgetBytes > 0 && strokeLog.retainedBytes() > roomBudgetBytes && pendingCompactions.add(roomCode)) {
+			compactionExecutor.execute(() -> {
+				try {
+					compactToBudget(roomCode, roomBudgetBytes, roomBudgetCompactions);
+				} catch (Exception e) {
+					log.error("Canvas budget compaction failed for room {}: {}", roomCode, e.getMessage());
+				} finally {
+					pendingCompactions.remove(roomCode);
+				}
+			});
+		}
+	}
+
+	/** Start journaling the room's strokes for a new round, replacing any previous journal. */
+	public void startJournal(String roomCode) {
+		journals.put(roomCode, new CanvasJournal());
+	}
+
+	/** Stop journaling the room and return the encoded journal, or null if none was running. */
+	public byte[] takeJournal(String roomCode) {
+		CanvasJournal journal = journals.remove(roomCode);
+		return journal == null ? null : journal.toByteArray();
+	}
+
+	/** Decoded copy of the room's strokes, for the JSON and round-record paths. */
+	public List<CanvasStroke> getStrokes(String roomCode) {
+		CanvasStrokeLog strokeLog = strokeLogs.get(roomCode);
+		return strokeLog == null ? Collections.emptyList() : strokeLog.strokes();
+	}
+
+	/** Checkpoint plus decoded tail strokes, or null if the room has no canvas. */
+	public CanvasStrokeLog.Contents getContents(String roomCode) {
+		CanvasStrokeLog strokeLog = strokeLogs.get(roomCode);
+		return strokeLog == null ? null : strokeLog.contents();
+	}
+
+	/**
+	 * The room's current stroke log, or null. For streaming readers (chunked
+	 * state transfer) that pin a log and read its immutable prefix; the log
+	 * may be released at any time by a clear or a checkpoint.
+	 */
+	public CanvasStrokeLog getStrokeLog(String roomCode) {
+		return strokeLogs.get(roomCode);
+	}
+
+	public Set<String> getRoomCodes() {
+		return strokeLogs.keySet();
+	}
+
+	public int getStrokeCount(String roomCode) {
+		CanvasStrokeLog strokeLog = strokeLogs.get(roomCode);
+		return strokeLog == null ? 0 : strokeLog.getStrokeCount();
+	}
+
+	/**
+	 * The room's MSG_STATE frame, or null if the room has no strokes. Each
+	 * call copies the frame out of the stroke log's off-heap chunks.
+	 */
+	public byte[] getCanvasState(String roomCode) {
+		return getCanvasState(roomCode, 1);
+	}
+
+	/** Same as {@link #getCanvasState(String)} in the given wire format version. */
+	public byte[] getCanvasState(String roomCode, int version) {
+		CanvasStrokeLog strokeLog = strokeLogs.get(roomCode);
+		if (strokeLog == null) return null;
+		return version == BinaryCanvasCodecV2.VERSION ? strokeLog.stateSnapshotV2() : strokeLog.stateSnapshot();
+	}
+
+	/**
+	 * Rasterize all but the newest keep-tail strokes of a room into its
+	 * checkpoint, if the room holds at least min-strokes strokes. Returns
+	 * true if the room was compacted.
+	 */
+	public boolean checkpoint(String roomCode) {
+		CanvasStrokeLog current = strokeLogs.get(roomCode);
+		if (current == null || current.getStrokeCount() < checkpointMinStrokes) return false;
+		return compact(roomCode, checkpointKeepTail);
+	}
+
+	/**
+	 * Hold all canvases to the total budget: if it is exceeded, the largest
+	 * rooms are compacted first, each down to what the total still needs to
+	 * lose, until the total fits. Rooms already being compacted for
+	 * their own budget are skipped. Called periodically by the checkpoint
+	 * scheduler.
+	 */
+	public void enforceGlobalBudget() {
+		if (totalBudgetBytes <= 0) return;
+		List<BudgetState> states = getBudgetStates();
+		long total = 0;
+		for (BudgetState state : states) {
+			total += state.retainedBytes();
+		}
+		if (total <= totalBudgetBytes) return;
+
+		log.warn("Canvas memory {} bytes over the {} byte budget, compacting largest rooms", total, totalBudgetBytes);
+		states.sort(Comparator.comparingLong(BudgetState::retainedBytes).reversed());
+		for (BudgetState state : states) {
+			if (total <= totalBudgetBytes) break;
+			if (!pendingCompactions.add(state.roomCode())) continue;
+			try {
+				long target = Math.max(0, state.retainedBytes() - (total - totalBudgetBytes));
+				compactToBudget(state.roomCode(), target, globalBudgetCompactions);
+				total -= state.retainedBytes() - getRetainedBytes(state.roomCode());
+			} finally {
+				pendingCompactions.remove(state.roomCode());
+			}
+		}
+	}
+
+	/**
+	 * Compact the room towards limit bytes: first the regular checkpoint
+	 * keeping the newest tail, then, if still over, everything into the
+	 * checkpoint. A bare checkpoint cannot be compacted further; its size is
+	 * bounded by the canvas resolution.
+	 */
+	private void compactToBudget(String roomCode, long limit, Counter compactions) {
+		if (getRetainedBytes(roomCode) <= limit) return;
+		boolean compacted = compact(roomCode, checkpointKeepTail);
+		if (getRetainedBytes(roomCode) > limit) {
+			compacted |= compact(roomCode, 0);
+		}
+		if (compacted) {
+			compactions.increment();
+		}
+		long retained = getRetainedBytes(roomCode);
+		if (retained > limit) {
+			log.warn("Canvas for room {} still holds {} bytes after compaction (limit {})", roomCode, retained, limit);
+		}
+	}
+
+	/**
+	 * Rasterize all but the newest keepTail strokes into the room's
+	 * checkpoint. Rendering runs without locks; only the swap to the
+	 * compacted log is done under the old log's monitor. Returns true if the
+	 * room was compacted.
+	 */
+	private boolean compact(String roomCode, int keepTail) {
+		CanvasStrokeLog current = strokeLogs.get(roomCode);
+		if (current == null) return false;
+
+		CanvasStrokeLog.Contents contents = current.contents();
+		List<CanvasStroke> strokes = contents.strokes();
+		int covered = strokes.size() - keepTail;
+		if (covered <= 0) return false;
+
+		long coveredBytes = 0;
+		for (int i = 0; i < covered; i++) {
+			coveredBytes += BinaryCanvasCodec.strokeSize(strokes.get(i));
+		}
+		CanvasCheckpoint next = canvasRasterizer.render(contents.checkpoint(), strokes.subList(0, covered));
+
+		synchronized (current) {
+			CanvasStrokeLog compacted = current.compact(coveredBytes, covered, next);
+			if (compacted == null) return false; // cleared while rendering
+			if (!strokeLogs.replace(roomCode, current, compacted)) {
+				compacted.release();
+				return false;
+			}
+			current.release();
+		}
+		log.info("Canvas checkpoint for room {}: {} strokes rasterized ({} total), {} kept, {} PNG bytes",
+				roomCode, covered, next.coveredStrokes(), strokes.size() - covered, next.png().length);
+		return true;
+	}
+
+	/** Memory held by the room's canvas, 0 if it has none. */
+	public long getRetainedBytes(String roomCode) {
+		CanvasStrokeLog strokeLog = strokeLogs.get(roomCode);
+		return strokeLog == null ? 0 : strokeLog.retainedBytes();
+	}
+
+	/** Memory held by all canvases. */
+	public long getRetainedBytes() {
+		long total = 0;
+		for (CanvasStrokeLog strokeLog : strokeLogs.values()) {
+			total += strokeLog.retainedBytes();
+		}
+		return total;
+	}
+
+	public long getTotalBudgetBytes() {
+		return totalBudgetBytes;
+	}
 
-	public void addStroke(String roomCode, Map<String, Object> strokeData) {
-		strokeHistory.computeIfAbsent(roomCode, k -> Collections.synchronizedList(new ArrayList<>())).add(strokeData);
+	/** The room's memory use against its budget, or null if it has no canvas. */
+	public BudgetState getBudgetState(String roomCode) {
+		CanvasStrokeLog strokeLog = strokeLogs.get(roomCode);
+		if (strokeLog == null) return null;
+		long retained = strokeLog.retainedBytes();
+		CanvasCheckpoint checkpoint = strokeLog.getCheckpoint();
+		return new BudgetState(roomCode, retained, roomBudgetBytes, strokeLog.getStrokeCount(),
+				checkpoint == null ? 0 : checkpoint.coveredStrokes(),
+				roomBudgetBytes > 0 && retained > roomBudgetBytes);
 	}
 
-	public List<Map<String, Object>> getStrokes(String roomCode) {
-		return strokeHistory.getOrDefault(roomCode, Collections.emptyList());
+	public List<BudgetState> getBudgetStates() {
+		List<BudgetState> states = new ArrayList<>();
+		for (String roomCode : strokeLogs.keySet()) {
+			BudgetState state = getBudgetState(roomCode);
+			if (state != null) {
+				states.add(state);
+			}
+		}
+		return states;
 	}
 
 	public void clearStrokes(String roomCode) {
-		strokeHistory.remove(roomCode);
+		CanvasStrokeLog strokeLog = strokeLogs.remove(roomCode);
+		if (strokeLog != null) {
+			strokeLog.release();
+		}
+		CanvasJournal journal = journals.get(roomCode);
+		if (journal != null) {
+			journal.recordClear();
+		}
 		log.info("Canvas strokes cleared for room {}", roomCode);
 	}
 }
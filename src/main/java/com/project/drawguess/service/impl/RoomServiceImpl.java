@@ -9,9 +9,6 @@ import java.time.LocalDateTime;
 import java.util.Optional;
 import java.util.Random;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
@@ -20,6 +17,8 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import com.project.drawguess.exception.ResourceNotFoundException;
+import com.project.drawguess.game.DrawerIndex;
+import com.project.drawguess.game.SpectatorRegistry;
 import com.project.drawguess.enums.RoomStatus;
 import com.project.drawguess.enums.SessionStatus;
 import com.project.drawguess.model.Room;
@@ -30,7 +29,10 @@ import com.project.drawguess.dto.PublicRoomDto;
 import com.project.drawguess.repository.RoomPlayerRepository;
 import com.project.drawguess.repository.RoomRepository;
 import com.project.drawguess.repository.SessionRepository;
+import com.project.drawguess.scheduler.GameTimerService;
 import com.project.drawguess.service.RoomCacheService;
+import com.project.drawguess.websocket.CanvasReplicator;
+import com.project.drawguess.websocket.CanvasStrokeLog;
 import com.project.drawguess.service.UserCacheService;
 
 import lombok.RequiredArgsConstructor;
@@ -52,11 +54,14 @@ public class RoomServiceImpl {
 	private final CanvasStrokeServiceImpl canvasStrokeService;
 	private final UserCacheService userCacheService;
 	private final RoomCacheService roomCacheService;
+	private final SpectatorRegistry spectatorRegistry;
+	private final DrawerIndex drawerIndex;
+	private final CanvasReplicator canvasReplicator;
+	private final GameTimerService gameTimers;
 
-	private final Map<String, ScheduledFuture<?>> pendingDisconnectTasks = new ConcurrentHashMap<>();
+	private final Map<String, GameTimerService.Handle> pendingDisconnectTasks = new ConcurrentHashMap<>();
 	private final Map<String, String> disconnectingPlayers = new ConcurrentHashMap<>();
 
-	private final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(10);
 
 	@Value("${app.room.grace-period-seconds:30}")
 	private int gracePeriodSeconds;
@@ -74,6 +79,7 @@ public class RoomServiceImpl {
 		Room room = new Room(roomCode, user);
 		room.setIsPublic(isPublic);
 		Room saved = roomCacheService.save(room);
+		drawerIndex.roomOpened(roomCode);
 
 		// Create the host as an active RoomPlayer immediately.
 		// The placeholder WS session ID is updated when the host connects via WebSocket.
@@ -131,6 +137,7 @@ public class RoomServiceImpl {
 		if (activePlayerCount >= maxPlayersPerRoom && !hasExistingRecord) {
 			throw new IllegalArgumentException("Room is full (max " + maxPlayersPerRoom + " players)");
 		}
+		canvasReplicator.retain(roomCode, wsSessionId);
 
 		// --- WAITING rooms: always treat as a fresh join, no reconnect logic ---
 		if (room.getStatus() == RoomStatus.WAITING) {
@@ -190,9 +197,9 @@ public class RoomServiceImpl {
 		}
 
 		if (oldWsSessionId != null) {
-			ScheduledFuture<?> pendingTask = pendingDisconnectTasks.get(oldWsSessionId);
+			GameTimerService.Handle pendingTask = pendingDisconnectTasks.get(oldWsSessionId);
 			if (pendingTask != null && !pendingTask.isDone()) {
-				pendingTask.cancel(false);
+				pendingTask.cancel();
 				log.info("Cancelled pending disconnect for user {} in room {}", user.getUsername(), roomCode);
 			}
 			pendingDisconnectTasks.remove(oldWsSessionId);
@@ -228,6 +235,47 @@ public class RoomServiceImpl {
 		sessionServiceImpl.handlePlayerReconnection(room, user);
 	}
 
+	/**
+	 * Watch a public room without joining it. Spectators write nothing to the
+	 * database and do not count toward max-players; they get the room's
+	 * players, round state and canvas privately and then follow the room
+	 * topics like everyone else.
+	 */
+	@Transactional
+	public void spectateRoom(String roomCode, String username, String wsSessionId) {
+		Room room = roomCacheService.findByRoomCode(roomCode);
+		User user = userCacheService.findByEmail(username);
+
+		if (room == null) {
+			throw new ResourceNotFoundException("Room not found");
+		}
+		if (user == null) {
+			throw new ResourceNotFoundException("User not found");
+		}
+		if (room.getStatus() == RoomStatus.FINISHED) {
+			throw new IllegalArgumentException("Cannot spectate finished room");
+		}
+		if (!Boolean.TRUE.equals(room.getIsPublic())) {
+			throw new IllegalArgumentException("Only public rooms can be spectated");
+		}
+		if (!spectatorRegistry.add(roomCode, wsSessionId, username)) {
+			throw new IllegalArgumentException("Room has too many spectators");
+		}
+		canvasReplicator.retain(roomCode, wsSessionId);
+
+		Map<String, Object> message = new HashMap<>();
+		message.put("type", "SPECTATING");
+		message.put("roomCode", roomCode);
+		message.put("status", room.getStatus().name());
+		message.put("players", getActivePlayers(roomCode));
+		message.put("spectatorCount", spectatorRegistry.count(roomCode));
+		messagingTemplate.convertAndSendToUser(username, "/queue/spectate", message);
+
+		sessionServiceImpl.sendSpectatorRoundState(room, username);
+		sendLobbyCanvasState(roomCode, user);
+		log.info("User {} spectating room {}", user.getUsername(), roomCode);
+	}
+
 	@Transactional
 	public void handlePlayerDisconnect(String wsSessionId, String principalName) {
 		if (wsSessionId == null) {
@@ -278,6 +326,7 @@ public class RoomServiceImpl {
 				room.setStatus(RoomStatus.FINISHED);
 				room.setClosedAt(LocalDateTime.now());
 				roomCacheService.save(room);
+				drawerIndex.roomClosed(roomCode);
 				broadcastLobbyUpdate();
 				log.info("Room {} closed - last player left lobby", roomCode);
 			} else {
@@ -313,8 +362,8 @@ public class RoomServiceImpl {
 			sessionServiceImpl.handleSessionPlayerDisconnect(wsSessionId, room, user, session);
 		}
 
-		ScheduledFuture<?> disconnectTask = scheduler.schedule(() -> handleDelayedPlayerDisconnect(wsSessionId, player),
-				gracePeriodSeconds, TimeUnit.SECONDS);
+		GameTimerService.Handle disconnectTask = gameTimers.schedule("room-disconnect-grace",
+				() -> handleDelayedPlayerDisconnect(wsSessionId, player), gracePeriodSeconds, TimeUnit.SECONDS);
 
 		pendingDisconnectTasks.put(wsSessionId, disconnectTask);
 
@@ -448,13 +497,16 @@ public class RoomServiceImpl {
 	}
 
 	private void sendLobbyCanvasState(String roomCode, User user) {
-		List<Map<String, Object>> strokes = canvasStrokeService.getStrokes(roomCode);
-		if (strokes != null && !strokes.isEmpty()) {
+		CanvasStrokeLog.Contents contents = canvasStrokeService.getContents(roomCode);
+		if (contents != null && (contents.checkpoint() != null || !contents.strokes().isEmpty())) {
 			Map<String, Object> canvasState = new HashMap<>();
 			canvasState.put("type", "CANVAS_STATE");
-			canvasState.put("strokes", new ArrayList<>(strokes));
+			canvasState.put("strokes", new ArrayList<>(contents.strokes()));
+			if (contents.checkpoint() != null) {
+				canvasState.put("checkpoint", contents.checkpoint().toJson());
+			}
 			messagingTemplate.convertAndSendToUser(user.getEmail(), "/canvas-queue/canvas-state", canvasState);
-			log.info("Sent {} lobby canvas strokes to {}", strokes.size(), user.getUsername());
+			log.info("Sent {} lobby canvas strokes to {}", contents.strokes().size(), user.getUsername());
 		}
 	}
 
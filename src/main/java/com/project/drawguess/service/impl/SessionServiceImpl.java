@@ -7,9 +7,6 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
@@ -18,6 +15,7 @@ import org.springframework.stereotype.Service;
 
 import com.project.drawguess.enums.RoomStatus;
 import com.project.drawguess.enums.SessionStatus;
+import com.project.drawguess.game.DrawerIndex;
 import com.project.drawguess.game.GameRoundManager;
 import com.project.drawguess.model.Room;
 import java.util.ArrayList;
@@ -30,7 +28,11 @@ import com.project.drawguess.repository.RoomRepository;
 import com.project.drawguess.repository.SessionRepository;
 import com.project.drawguess.repository.UserRepository;
 import com.project.drawguess.repository.UserSessionRepository;
+import com.project.drawguess.scheduler.GameTimerService;
 import com.project.drawguess.service.RoomCacheService;
+import com.project.drawguess.websocket.CanvasReplicationEvent;
+import com.project.drawguess.websocket.CanvasReplicator;
+import com.project.drawguess.websocket.CanvasStrokeLog;
 
 import org.springframework.beans.factory.annotation.Value;
 
@@ -49,12 +51,14 @@ public class SessionServiceImpl {
 	private final UserRepository userRepository;
 	private final SimpMessagingTemplate messagingTemplate;
 	private final GameRoundManager gameRoundManager;
+	private final DrawerIndex drawerIndex;
 	private final CanvasStrokeServiceImpl canvasStrokeService;
 	private final RoomCacheService roomCacheService;
+	private final CanvasReplicator canvasReplicator;
+	private final GameTimerService gameTimers;
 
-	private final Map<String, ScheduledFuture<?>> sessionDisconnectTasks = new ConcurrentHashMap<>();
+	private final Map<String, GameTimerService.Handle> sessionDisconnectTasks = new ConcurrentHashMap<>();
 	private final Map<String, String> disconnectingSessionPlayers = new ConcurrentHashMap<>();
-	private final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(10);
 
 	@Value("${app.disconnect.grace-period-seconds:30}")
 	private int gracePeriodSeconds;
@@ -92,6 +96,8 @@ public class SessionServiceImpl {
 
 		}
 		canvasStrokeService.clearStrokes(roomCode);
+		canvasReplicator.publishClear(roomCode, CanvasReplicationEvent.Transport.NONE);
+		drawerIndex.sessionStarted(roomCode, session.getSessionId());
 		broadcastGameStarted(roomCode, session);
 		gameRoundManager.initializeGame(session, roomCode);
 		return session;
@@ -121,12 +127,13 @@ public class SessionServiceImpl {
 			messagingTemplate.convertAndSend("/topic/public-rooms", (Object) java.util.Map.of("type", "PUBLIC_ROOMS_UPDATED"));
 		}
 		log.info("Session ended : {} for room {} ", session.getSessionId(), roomCode);
+		drawerIndex.roomClosed(roomCode);
 
 		gameRoundManager.cleanup(session.getSessionId());
 
 		sessionDisconnectTasks.forEach((wsId, task) -> {
 			if (task != null && !task.isDone()) {
-				task.cancel(false);
+				task.cancel();
 			}
 		});
 		sessionDisconnectTasks.clear();
@@ -167,7 +174,7 @@ public class SessionServiceImpl {
 		disconnectingSessionPlayers.put(playerKey, wsSessionId);
 
 
-		ScheduledFuture<?> task = scheduler.schedule(
+		GameTimerService.Handle task = gameTimers.schedule("session-disconnect-grace",
 				() -> handleDelayedSessionDisconnect(wsSessionId, room, user, session), gracePeriodSeconds,
 				TimeUnit.SECONDS);
 
@@ -286,9 +293,9 @@ public class SessionServiceImpl {
 		String playerKey = user.getUserId() + ":" + session.getSessionId();
 		String wsSessionId = disconnectingSessionPlayers.get(playerKey);
 		if (wsSessionId != null) {
-			ScheduledFuture<?> task = sessionDisconnectTasks.get(wsSessionId);
+			GameTimerService.Handle task = sessionDisconnectTasks.get(wsSessionId);
 			if (task != null && !task.isDone()) {
-				task.cancel(false);
+				task.cancel();
 				log.info("Cancelled pending session disconnect task for user {} ", user.getUsername());
 			}
 			sessionDisconnectTasks.remove(wsSessionId);
@@ -317,11 +324,14 @@ public class SessionServiceImpl {
 		}
 
 		// Send canvas stroke history for reconnection replay
-		List<Map<String, Object>> strokes = canvasStrokeService.getStrokes(room.getRoomCode());
-		if (strokes != null && !strokes.isEmpty()) {
+		CanvasStrokeLog.Contents contents = canvasStrokeService.getContents(room.getRoomCode());
+		if (contents != null && (contents.checkpoint() != null || !contents.strokes().isEmpty())) {
 			Map<String, Object> canvasState = new HashMap<>();
 			canvasState.put("type", "CANVAS_STATE");
-			canvasState.put("strokes", new ArrayList<>(strokes));
+			canvasState.put("strokes", new ArrayList<>(contents.strokes()));
+			if (contents.checkpoint() != null) {
+				canvasState.put("checkpoint", contents.checkpoint().toJson());
+			}
 			messagingTemplate.convertAndSendToUser(user.getEmail(), "/canvas-queue/canvas-state", canvasState);
 		}
 	}
@@ -359,6 +369,25 @@ public class SessionServiceImpl {
 		log.info("Sent GAME_ENDED to /topic/room");
 	}
 
+	/**
+	 * Send a new spectator the current round state (never the word), the
+	 * same message a reconnecting player gets. Nothing is sent for a room
+	 * without an active session.
+	 */
+	public void sendSpectatorRoundState(Room room, String email) {
+		Session session = sessionRepository.findByRoomAndStatus(room, SessionStatus.ACTIVE).orElse(null);
+		if (session == null) return;
+
+		Map<String, Object> roundState = gameRoundManager.getRoundStateForReconnection(session.getSessionId());
+		if (roundState == null) {
+			roundState = gameRoundManager.getBetweenRoundsState(session.getSessionId());
+		}
+		if (roundState != null) {
+			roundState.put("type", "ROUND_STATE");
+			messagingTemplate.convertAndSendToUser(email, "/queue/round-state", roundState);
+		}
+	}
+
 	@Transactional()
 	public Session getActiveSession(String roomCode) {
 		Room room = roomCacheService.findByRoomCode(roomCode);
@@ -2,10 +2,7 @@ package com.project.drawguess.websocket;
 
 import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
-import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
 /**
  * Binary codec for canvas WebSocket messages.
@@ -14,11 +11,18 @@ import java.util.Map;
  *   MSG_STROKE        (0x01) - draw stroke
  *   MSG_CLEAR         (0x02) - clear canvas
  *   MSG_REQUEST_STATE (0x03) - request full canvas state
+ *   MSG_STROKE_BEGIN  (0x07) - start streaming a stroke
+ *   MSG_STROKE_APPEND (0x08) - next points of the streamed stroke
+ *   MSG_STROKE_END    (0x09) - streamed stroke finished
  *
  * All server → client messages begin with a msg_type byte:
  *   MSG_STROKE (0x01) - draw stroke broadcast
  *   MSG_CLEAR  (0x02) - canvas cleared broadcast
  *   MSG_STATE  (0x03) - full canvas state response
+ *   MSG_BATCH  (0x04) - several of the above merged into one frame
+ *   MSG_CHECKPOINT (0x05) - raster checkpoint followed by the STATE drawn on top
+ *   MSG_STATE_CHUNK (0x06) - one slice of a chunked state transfer
+ *   MSG_STROKE_BEGIN / APPEND / END (0x07-0x09) - relayed stroke segments
  *
  * Client → server STROKE layout (after the 0x01 type byte):
  *   [1] tool (0=pen, 1=eraser)
@@ -34,6 +38,42 @@ import java.util.Map;
  *
  * Server → client CLEAR:   [1] 0x02
  * Server → client STATE:   [1] 0x03 | [2] strokeCount | per-stroke data
+ * Server → client BATCH:   [1] 0x04 | [2] frameCount | per frame: [4] length | frame bytes
+ * Server → client CHECKPOINT: [1] 0x05 | [2] width | [2] height | [4] pngLength | PNG bytes
+ *                             | a complete STATE frame (0x03 ...) with the strokes after it
+ *
+ * A state request is answered with CHECKPOINT instead of STATE once the room's
+ * older strokes have been rasterized; the client paints the PNG as the whole
+ * canvas and then applies the embedded STATE on top of it.
+ *
+ * Chunked state transfer (see {@link CanvasStateTransfer}):
+ *   Client → server REQUEST_STATE: [1] 0x03 | [4] transferId | [4] offset
+ *       transferId 0 starts a new transfer; otherwise resume at offset
+ *   Server → client STATE_CHUNK:   [1] 0x06 | [4] transferId | [4] offset
+ *                                  | [4] totalLength | payload
+ *       The payloads concatenate to a state stream: the CHECKPOINT header if
+ *       any, then [1] 0x03 | [4] strokeCount (uint32) | stroke bodies in the
+ *       connection's wire version. The last chunk is the one reaching
+ *       totalLength; the client asks for more with the next offset. A chunk
+ *       with a new transferId at offset 0 means the server restarted the
+ *       transfer (the canvas was cleared or compacted) and the client must
+ *       discard what it has. Offsets and lengths are uint32 BE.
+ *
+ * Streamed strokes (the same bytes in every wire version):
+ *   Client → server BEGIN:  [1] 0x07 | [2] strokeId | [1] tool | [3] RGB | [1] lineWidth
+ *   Client → server APPEND: [1] 0x08 | [2] strokeId | [2] pointCount | [4*N] x,y uint16 BE
+ *   Client → server END:    [1] 0x09 | [2] strokeId
+ *   Server → client: the client frame as-is, followed by [1] usernameLen | [N] username
+ *       A drawer has at most one open stroke; BEGIN ends any previous one
+ *       as if END had been sent. Segments are relayed as they arrive and the stroke is stored
+ *       (like a STROKE) only when END arrives, so a state request never
+ *       includes a stroke still being drawn; one still open when a round
+ *       starts or ends is dropped. Receivers draw segments as they
+ *       come and ignore APPEND/END for a strokeId they saw no BEGIN for;
+ *       that stroke reaches them with the next state.
+ *
+ * This is wire format v1, the default. Clients that connect with v=2 use the
+ * delta/varint encoding in {@link BinaryCanvasCodecV2} instead.
  */
 public class BinaryCanvasCodec {
 
@@ -41,138 +81,203 @@ public class BinaryCanvasCodec {
     public static final byte MSG_CLEAR         = 0x02;
     public static final byte MSG_REQUEST_STATE = 0x03; // client → server
     public static final byte MSG_STATE         = 0x03; // server → client
+    public static final byte MSG_BATCH         = 0x04; // server → client
+    public static final byte MSG_CHECKPOINT    = 0x05; // server → client
+    public static final byte MSG_STATE_CHUNK   = 0x06; // server → client
+    public static final byte MSG_STROKE_BEGIN  = 0x07;
+    public static final byte MSG_STROKE_APPEND = 0x08;
+    public static final byte MSG_STROKE_END    = 0x09;
+
+    /** Length of a client STROKE_BEGIN frame. */
+    public static final int STROKE_BEGIN_BYTES = 1 + 2 + 1 + 3 + 1;
+
+    /** Fixed bytes before the points of a client STROKE_APPEND frame. */
+    public static final int STROKE_APPEND_HEADER_BYTES = 1 + 2 + 2;
+
+    /** Length of a client STROKE_END frame. */
+    public static final int STROKE_END_BYTES = 1 + 2;
+
+    /** Length of a client REQUEST_STATE frame that starts or resumes a chunked transfer. */
+    public static final int CHUNKED_STATE_REQUEST_BYTES = 1 + 4 + 4;
+
+    /** Fixed bytes before the payload of a STATE_CHUNK frame. */
+    public static final int STATE_CHUNK_HEADER_BYTES = 1 + 4 + 4 + 4;
+
+    /** Fixed per-stroke bytes before the points: tool + RGB + lineWidth + pointCount. */
+    public static final int STROKE_HEADER_BYTES = 1 + 3 + 1 + 2;
+
+    /** Offset of the uint16 pointCount inside a client STROKE frame. */
+    private static final int POINT_COUNT_OFFSET = 1 + 1 + 3 + 1;
+
+    /**
+     * Header/bounds check for a client STROKE frame without decoding it.
+     * Returns the point count, or -1 if the frame is not a well-formed stroke
+     * (wrong type byte, truncated header, or length not matching pointCount).
+     */
+    public static int checkClientStroke(byte[] data, int length) {
+        if (length < 1 + STROKE_HEADER_BYTES || data[0] != MSG_STROKE) return -1;
+        int pointCount = ((data[POINT_COUNT_OFFSET] & 0xFF) << 8) | (data[POINT_COUNT_OFFSET + 1] & 0xFF);
+        return length == 1 + STROKE_HEADER_BYTES + 4 * pointCount ? pointCount : -1;
+    }
+
+    /**
+     * Bounds check for a client STROKE_APPEND frame. Returns the point count,
+     * or -1 if the frame length does not match it.
+     */
+    public static int checkStrokeAppend(byte[] data, int length) {
+        if (length < STROKE_APPEND_HEADER_BYTES || data[0] != MSG_STROKE_APPEND) return -1;
+        int pointCount = ((data[3] & 0xFF) << 8) | (data[4] & 0xFF);
+        return length == STROKE_APPEND_HEADER_BYTES + 4 * pointCount ? pointCount : -1;
+    }
+
+    /** The strokeId of a BEGIN, APPEND or END frame (bytes 1-2). */
+    public static int segmentStrokeId(byte[] data) {
+        return ((data[1] & 0xFF) << 8) | (data[2] & 0xFF);
+    }
+
+    /** Encode a STROKE_END frame, for ending a stroke the client did not end itself. */
+    public static byte[] encodeStrokeEnd(int strokeId) {
+        return new byte[]{MSG_STROKE_END, (byte) (strokeId >>> 8), (byte) strokeId};
+    }
+
+    /**
+     * Pre-encode the [usernameLen][username UTF-8] trailer appended to every
+     * server → client STROKE. Usernames longer than 255 bytes are truncated.
+     */
+    public static byte[] encodeUsernameSuffix(String username) {
+        byte[] usernameBytes = username != null
+                ? username.getBytes(StandardCharsets.UTF_8)
+                : new byte[0];
+        int len = Math.min(usernameBytes.length, 0xFF);
+        byte[] suffix = new byte[1 + len];
+        suffix[0] = (byte) len;
+        System.arraycopy(usernameBytes, 0, suffix, 1, len);
+        return suffix;
+    }
+
+    /**
+     * Build the broadcast STROKE frame by forwarding the client's bytes as-is
+     * and appending a pre-encoded username suffix. The client and server
+     * STROKE layouts are identical up to the username, so a frame that passed
+     * {@link #checkClientStroke} needs no decode/re-encode.
+     */
+    public static byte[] relayStroke(byte[] clientFrame, int length, byte[] usernameSuffix) {
+        byte[] out = new byte[length + usernameSuffix.length];
+        System.arraycopy(clientFrame, 0, out, 0, length);
+        System.arraycopy(usernameSuffix, 0, out, length, usernameSuffix.length);
+        return out;
+    }
 
     /**
      * Decode a stroke sent by the client.
      * data[0] must be MSG_STROKE (0x01); the rest is the stroke payload.
      */
-    public static Map<String, Object> decodeClientStroke(byte[] data) {
+    public static CanvasStroke decodeClientStroke(byte[] data) {
         ByteBuffer buf = ByteBuffer.wrap(data);
         buf.get(); // skip MSG_STROKE type byte
+        return readStroke(buf);
+    }
 
-        int toolByte = buf.get() & 0xFF;
-        String tool = toolByte == 0x01 ? "eraser" : "pen";
-
-        int r = buf.get() & 0xFF;
-        int g = buf.get() & 0xFF;
-        int b = buf.get() & 0xFF;
-        String color = String.format("#%02X%02X%02X", r, g, b);
-
+    /**
+     * Read one stroke body (tool, RGB, lineWidth, pointCount, points) from buf
+     * at its current position, advancing past it.
+     */
+    public static CanvasStroke readStroke(ByteBuffer buf) {
+        byte tool = buf.get() == CanvasStroke.TOOL_ERASER ? CanvasStroke.TOOL_ERASER : CanvasStroke.TOOL_PEN;
+        int rgb = ((buf.get() & 0xFF) << 16) | ((buf.get() & 0xFF) << 8) | (buf.get() & 0xFF);
         int lineWidth = buf.get() & 0xFF;
         int pointCount = buf.getShort() & 0xFFFF;
 
-        List<Map<String, Object>> points = new ArrayList<>(pointCount);
-        for (int i = 0; i < pointCount; i++) {
-            int x = buf.getShort() & 0xFFFF;
-            int y = buf.getShort() & 0xFFFF;
-            Map<String, Object> pt = new HashMap<>();
-            pt.put("x", x);
-            pt.put("y", y);
-            points.add(pt);
-        }
+        short[] xy = new short[pointCount * 2];
+        buf.asShortBuffer().get(xy);
+        buf.position(buf.position() + 4 * pointCount);
+        return new CanvasStroke(tool, rgb, lineWidth, xy);
+    }
 
-        Map<String, Object> stroke = new HashMap<>();
-        stroke.put("type", "STROKE");
-        stroke.put("tool", tool);
-        stroke.put("color", color);
-        stroke.put("lineWidth", lineWidth);
-        stroke.put("points", points);
-        return stroke;
+    /** Encoded size of a stroke body (no type byte, no username). */
+    public static int strokeSize(CanvasStroke stroke) {
+        return STROKE_HEADER_BYTES + 4 * stroke.pointCount();
     }
 
     /**
-     * Encode a STROKE message for broadcast (includes msg_type prefix and sender username).
+     * Write a stroke body (tool, RGB, lineWidth, pointCount, points) into buf
+     * at its current position.
      */
-    public static byte[] encodeStroke(Map<String, Object> stroke, String senderUsername) {
-        @SuppressWarnings("unchecked")
-        List<Map<String, Object>> points = (List<Map<String, Object>>) stroke.get("points");
-        int pointCount = points == null ? 0 : points.size();
-
-        int[] rgb = hexToRgb((String) stroke.get("color"));
-        String tool = (String) stroke.get("tool");
-        int lineWidth = ((Number) stroke.get("lineWidth")).intValue();
-        byte[] usernameBytes = senderUsername != null
-                ? senderUsername.getBytes(StandardCharsets.UTF_8)
-                : new byte[0];
-
-        // 1(type) + 1(tool) + 3(rgb) + 1(lineWidth) + 2(pointCount) + 4*N + 1(usernameLen) + usernameBytes
-        ByteBuffer buf = ByteBuffer.allocate(1 + 1 + 3 + 1 + 2 + 4 * pointCount + 1 + usernameBytes.length);
-
-        buf.put(MSG_STROKE);
-        buf.put((byte) ("eraser".equals(tool) ? 0x01 : 0x00));
-        buf.put((byte) rgb[0]);
-        buf.put((byte) rgb[1]);
-        buf.put((byte) rgb[2]);
-        buf.put((byte) lineWidth);
-        buf.putShort((short) pointCount);
-        if (points != null) {
-            for (Map<String, Object> pt : points) {
-                buf.putShort((short) ((Number) pt.get("x")).intValue());
-                buf.putShort((short) ((Number) pt.get("y")).intValue());
-            }
+    public static void writeStroke(ByteBuffer buf, CanvasStroke stroke) {
+        int rgb = stroke.rgb();
+        buf.put(stroke.toolByte());
+        buf.put((byte) (rgb >>> 16));
+        buf.put((byte) (rgb >>> 8));
+        buf.put((byte) rgb);
+        buf.put((byte) stroke.width());
+        buf.putShort((short) stroke.pointCount());
+        short[] xy = stroke.coords();
+        for (short v : xy) {
+            buf.putShort(v);
         }
-        buf.put((byte) usernameBytes.length);
-        buf.put(usernameBytes);
+    }
 
-        return buf.array();
+    /**
+     * Encode a STROKE message for broadcast (includes msg_type prefix and sender username).
+     */
+    public static byte[] encodeStroke(CanvasStroke stroke, String senderUsername) {
+        return encodeStroke(stroke, encodeUsernameSuffix(senderUsername));
     }
 
     /**
-     * Encode a CANVAS_CLEAR broadcast message.
+     * Encode a STROKE message for broadcast with a pre-encoded username suffix
+     * (see {@link #encodeUsernameSuffix}).
      */
-    public static byte[] encodeClear() {
-        return new byte[]{MSG_CLEAR};
+    public static byte[] encodeStroke(CanvasStroke stroke, byte[] usernameSuffix) {
+        // 1(type) + stroke body + 1(usernameLen) + usernameBytes
+        byte[] out = new byte[1 + strokeSize(stroke) + usernameSuffix.length];
+        ByteBuffer buf = ByteBuffer.wrap(out);
+        buf.put(MSG_STROKE);
+        writeStroke(buf, stroke);
+        buf.put(usernameSuffix);
+        return out;
     }
 
     /**
-     * Encode a full CANVAS_STATE message to send to a specific user.
+     * Merge complete server → client frames into one BATCH message. Frames
+     * are embedded unchanged, so clients unpack them and handle each one as if
+     * it had arrived on its own.
      */
-    public static byte[] encodeCanvasState(List<Map<String, Object>> strokes) {
-        int totalSize = 1 + 2; // MSG_STATE + strokeCount
-        for (Map<String, Object> stroke : strokes) {
-            @SuppressWarnings("unchecked")
-            List<?> pts = (List<?>) stroke.get("points");
-            int pc = pts == null ? 0 : pts.size();
-            totalSize += 1 + 3 + 1 + 2 + 4 * pc; // tool + rgb + lineWidth + pointCount + points
+    public static byte[] encodeBatch(List<byte[]> frames) {
+        int totalSize = 1 + 2;
+        for (byte[] frame : frames) {
+            totalSize += 4 + frame.length;
         }
-
-        ByteBuffer buf = ByteBuffer.allocate(totalSize);
-        buf.put(MSG_STATE);
-        buf.putShort((short) strokes.size());
-
-        for (Map<String, Object> stroke : strokes) {
-            String tool = (String) stroke.get("tool");
-            int[] rgb = hexToRgb((String) stroke.get("color"));
-            int lineWidth = ((Number) stroke.get("lineWidth")).intValue();
-
-            @SuppressWarnings("unchecked")
-            List<Map<String, Object>> pts = (List<Map<String, Object>>) stroke.get("points");
-            int pointCount = pts == null ? 0 : pts.size();
-
-            buf.put((byte) ("eraser".equals(tool) ? 0x01 : 0x00));
-            buf.put((byte) rgb[0]);
-            buf.put((byte) rgb[1]);
-            buf.put((byte) rgb[2]);
-            buf.put((byte) lineWidth);
-            buf.putShort((short) pointCount);
-            if (pts != null) {
-                for (Map<String, Object> pt : pts) {
-                    buf.putShort((short) ((Number) pt.get("x")).intValue());
-                    buf.putShort((short) ((Number) pt.get("y")).intValue());
-                }
-            }
+        byte[] out = new byte[totalSize];
+        ByteBuffer buf = ByteBuffer.wrap(out);
+        buf.put(MSG_BATCH);
+        buf.putShort((short) frames.size());
+        for (byte[] frame : frames) {
+            buf.putInt(frame.length);
+            buf.put(frame);
         }
+        return out;
+    }
 
-        return buf.array();
+    /**
+     * Encode the fixed part of a CHECKPOINT frame (everything before the
+     * embedded STATE).
+     */
+    public static byte[] encodeCheckpointHeader(int width, int height, byte[] png) {
+        byte[] out = new byte[1 + 2 + 2 + 4 + png.length];
+        ByteBuffer buf = ByteBuffer.wrap(out);
+        buf.put(MSG_CHECKPOINT);
+        buf.putShort((short) width);
+        buf.putShort((short) height);
+        buf.putInt(png.length);
+        buf.put(png);
+        return out;
     }
 
-    private static int[] hexToRgb(String hex) {
-        if (hex == null || hex.length() < 7) return new int[]{0, 0, 0};
-        String h = hex.startsWith("#") ? hex.substring(1) : hex;
-        return new int[]{
-            Integer.parseInt(h.substring(0, 2), 16),
-            Integer.parseInt(h.substring(2, 4), 16),
-            Integer.parseInt(h.substring(4, 6), 16)
-        };
+    /**
+     * Encode a CANVAS_CLEAR broadcast message.
+     */
+    public static byte[] encodeClear() {
+        return new byte[]{MSG_CLEAR};
     }
 }
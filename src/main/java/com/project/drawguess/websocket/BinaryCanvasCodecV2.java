@@ -0,0 +1,222 @@
+package com.project.drawguess.websocket;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+/**
+ * Version 2 of the canvas wire format, selected per connection with
+ * {@code v=2} in the /ws-canvas-binary query string.
+ *
+ * Message type bytes are the same as v1 (see {@link BinaryCanvasCodec}); only
+ * the STROKE body and the STATE header change.
+ *
+ * STROKE body (client → server after the 0x01 type byte; server → client is
+ * the same followed by [1] usernameLen | [N] username UTF-8):
+ *   [1] flags: bit0 = eraser, bit1 = palette colour
+ *   [1] palette index        (if bit1)
+ *   [3] R, G, B              (otherwise)
+ *   [1] lineWidth
+ *   [varint] pointCount
+ *   [varint] x0, [varint] y0
+ *   [zigzag varint] dx, dy   for every following point
+ *
+ * Server → client STATE:  [1] 0x03 | [4] strokeCount (uint32 BE) | v2 stroke bodies
+ * (also embedded in CHECKPOINT frames, whose header is the same as v1)
+ *
+ * Varints are unsigned LEB128; coordinates must stay within uint16 like v1.
+ */
+public final class BinaryCanvasCodecV2 {
+
+    public static final int VERSION = 2;
+
+    private static final int FLAG_ERASER  = 0x01;
+    private static final int FLAG_PALETTE = 0x02;
+
+    public static final int STATE_HEADER_BYTES = 1 + 4;
+
+    /** Default client palette; colours outside it are sent as raw RGB. */
+    private static final int[] PALETTE = {
+        0x000000, 0xFFFFFF, 0x808080, 0xC0C0C0,
+        0xFF0000, 0x800000, 0xFFA500, 0xFFFF00,
+        0x00FF00, 0x008000, 0x00FFFF, 0x0000FF,
+        0x000080, 0xFF00FF, 0x800080, 0xA52A2A
+    };
+
+    private BinaryCanvasCodecV2() {
+    }
+
+    /**
+     * Decode a v2 client STROKE frame (data[0] is the type byte).
+     * Throws IllegalArgumentException if the frame is malformed.
+     */
+    public static CanvasStroke decodeClientStroke(byte[] data, int length) {
+        ByteBuffer buf = ByteBuffer.wrap(data, 1, length - 1);
+        try {
+            CanvasStroke stroke = readStroke(buf);
+            if (buf.hasRemaining()) {
+                throw new IllegalArgumentException("Trailing bytes after v2 stroke");
+            }
+            return stroke;
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Truncated v2 stroke");
+        }
+    }
+
+    /**
+     * Point count of a v2 client STROKE frame, read from its header without
+     * decoding the points. Returns -1 if the header is truncated.
+     */
+    public static int peekPointCount(byte[] data, int length) {
+        if (length < 2) return -1;
+        int pos = 2 + ((data[1] & FLAG_PALETTE) != 0 ? 1 : 3) + 1; // type, flags, colour, lineWidth
+        int value = 0;
+        for (int shift = 0; shift < 32 && pos < length; shift += 7) {
+            int b = data[pos++] & 0xFF;
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return value;
+        }
+        return -1;
+    }
+
+    public static CanvasStroke readStroke(ByteBuffer buf) {
+        int flags = buf.get() & 0xFF;
+        int rgb;
+        if ((flags & FLAG_PALETTE) != 0) {
+            int index = buf.get() & 0xFF;
+            if (index >= PALETTE.length) {
+                throw new IllegalArgumentException("Unknown palette index " + index);
+            }
+            rgb = PALETTE[index];
+        } else {
+            rgb = ((buf.get() & 0xFF) << 16) | ((buf.get() & 0xFF) << 8) | (buf.get() & 0xFF);
+        }
+        int lineWidth = buf.get() & 0xFF;
+        int pointCount = getVarint(buf);
+        if (pointCount > 0xFFFF) {
+            throw new IllegalArgumentException("Too many points: " + pointCount);
+        }
+
+        short[] xy = new short[pointCount * 2];
+        int x = 0;
+        int y = 0;
+        for (int i = 0; i < pointCount; i++) {
+            if (i == 0) {
+                x = getVarint(buf);
+                y = getVarint(buf);
+            } else {
+                x += unzigzag(getVarint(buf));
+                y += unzigzag(getVarint(buf));
+            }
+            if ((x & ~0xFFFF) != 0 || (y & ~0xFFFF) != 0) {
+                throw new IllegalArgumentException("Point out of range");
+            }
+            xy[i << 1] = (short) x;
+            xy[(i << 1) + 1] = (short) y;
+        }
+        byte tool = (flags & FLAG_ERASER) != 0 ? CanvasStroke.TOOL_ERASER : CanvasStroke.TOOL_PEN;
+        return new CanvasStroke(tool, rgb, lineWidth, xy);
+    }
+
+    /** Exact encoded size of a v2 stroke body. */
+    public static int strokeSize(CanvasStroke stroke) {
+        int n = stroke.pointCount();
+        int size = 1 + (paletteIndex(stroke.rgb()) >= 0 ? 1 : 3) + 1 + varintSize(n);
+        for (int i = 0; i < n; i++) {
+            if (i == 0) {
+                size += varintSize(stroke.x(0)) + varintSize(stroke.y(0));
+            } else {
+                size += varintSize(zigzag(stroke.x(i) - stroke.x(i - 1)))
+                        + varintSize(zigzag(stroke.y(i) - stroke.y(i - 1)));
+            }
+        }
+        return size;
+    }
+
+    public static void writeStroke(ByteBuffer buf, CanvasStroke stroke) {
+        int paletteIndex = paletteIndex(stroke.rgb());
+        int flags = (stroke.toolByte() == CanvasStroke.TOOL_ERASER ? FLAG_ERASER : 0)
+                | (paletteIndex >= 0 ? FLAG_PALETTE : 0);
+        buf.put((byte) flags);
+        if (paletteIndex >= 0) {
+            buf.put((byte) paletteIndex);
+        } else {
+            int rgb = stroke.rgb();
+            buf.put((byte) (rgb >>> 16));
+            buf.put((byte) (rgb >>> 8));
+            buf.put((byte) rgb);
+        }
+        buf.put((byte) stroke.width());
+
+        int n = stroke.pointCount();
+        putVarint(buf, n);
+        for (int i = 0; i < n; i++) {
+            if (i == 0) {
+                putVarint(buf, stroke.x(0));
+                putVarint(buf, stroke.y(0));
+            } else {
+                putVarint(buf, zigzag(stroke.x(i) - stroke.x(i - 1)));
+                putVarint(buf, zigzag(stroke.y(i) - stroke.y(i - 1)));
+            }
+        }
+    }
+
+    /** Encode a v2 STROKE broadcast from a decoded stroke. */
+    public static byte[] encodeStroke(CanvasStroke stroke, byte[] usernameSuffix) {
+        byte[] out = new byte[1 + strokeSize(stroke) + usernameSuffix.length];
+        ByteBuffer buf = ByteBuffer.wrap(out);
+        buf.put(BinaryCanvasCodec.MSG_STROKE);
+        writeStroke(buf, stroke);
+        buf.put(usernameSuffix);
+        return out;
+    }
+
+    static void putStateHeader(byte[] out, int off, int strokeCount) {
+        out[off] = BinaryCanvasCodec.MSG_STATE;
+        out[off + 1] = (byte) (strokeCount >>> 24);
+        out[off + 2] = (byte) (strokeCount >>> 16);
+        out[off + 3] = (byte) (strokeCount >>> 8);
+        out[off + 4] = (byte) strokeCount;
+    }
+
+    private static int paletteIndex(int rgb) {
+        for (int i = 0; i < PALETTE.length; i++) {
+            if (PALETTE[i] == rgb) return i;
+        }
+        return -1;
+    }
+
+    private static int zigzag(int n) {
+        return (n << 1) ^ (n >> 31);
+    }
+
+    private static int unzigzag(int n) {
+        return (n >>> 1) ^ -(n & 1);
+    }
+
+    static int varintSize(int value) {
+        int size = 1;
+        while ((value & ~0x7F) != 0) {
+            value >>>= 7;
+            size++;
+        }
+        return size;
+    }
+
+    static void putVarint(ByteBuffer buf, int value) {
+        while ((value & ~0x7F) != 0) {
+            buf.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buf.put((byte) value);
+    }
+
+    private static int getVarint(ByteBuffer buf) {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            int b = buf.get() & 0xFF;
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return value;
+        }
+        throw new IllegalArgumentException("Varint too long");
+    }
+}
@@ -1,41 +1,79 @@
 package com.project.drawguess.websocket;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
 import org.springframework.stereotype.Component;
 import org.springframework.web.socket.BinaryMessage;
 import org.springframework.web.socket.CloseStatus;
 import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
 import org.springframework.web.socket.WebSocketSession;
 import org.springframework.web.socket.handler.AbstractWebSocketHandler;
 
-import com.project.drawguess.game.GameRoundManager;
-import com.project.drawguess.model.Session;
+import com.project.drawguess.enums.RoomStatus;
+import com.project.drawguess.game.DrawerIndex;
+import com.project.drawguess.game.SpectatorRegistry;
+import com.project.drawguess.model.Room;
+import com.project.drawguess.service.RoomCacheService;
 import com.project.drawguess.service.impl.CanvasStrokeServiceImpl;
-import com.project.drawguess.service.impl.SessionServiceImpl;
 
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
 @Component
 @Slf4j
 @RequiredArgsConstructor
-public class BinaryCanvasHandler extends AbstractWebSocketHandler {
+public class BinaryCanvasHandler extends AbstractWebSocketHandler implements CanvasTransport {
 
     private static final com.fasterxml.jackson.databind.ObjectMapper MAPPER = new com.fasterxml.jackson.databind.ObjectMapper();
 
     private final CanvasStrokeServiceImpl canvasStrokeService;
-    private final GameRoundManager gameRoundManager;
-    private final SessionServiceImpl sessionServiceImpl;
+    private final CanvasEngine canvasEngine;
+    private final DrawerIndex drawerIndex;
+    private final CanvasBatcher canvasBatcher;
+    private final CanvasSendQueues canvasSendQueues;
+    private final CanvasStateTransfers canvasStateTransfers;
+    private final CanvasIngestLimiter ingestLimiter;
+    private final SpectatorFanOut spectatorFanOut;
+    private final SpectatorRegistry spectatorRegistry;
+    private final RoomCacheService roomCacheService;
+    private final CanvasReplicator canvasReplicator;
 
-    // roomCode → { wsSessionId → WebSocketSession }
+    // roomCode → { wsSessionId → WebSocketSession }, players only; spectators live in spectatorFanOut
     private final ConcurrentHashMap<String, ConcurrentHashMap<String, WebSocketSession>> roomSessions = new ConcurrentHashMap<>();
     private final ConcurrentHashMap<String, String> sessionToUser = new ConcurrentHashMap<>();
     private final ConcurrentHashMap<String, String> sessionToRoom = new ConcurrentHashMap<>();
+    // wsSessionId → pre-encoded [usernameLen][username] trailer for relayed strokes
+    private final ConcurrentHashMap<String, byte[]> sessionToUsernameSuffix = new ConcurrentHashMap<>();
+    // wsSessionId → negotiated wire format version (1 or 2)
+    private final ConcurrentHashMap<String, Integer> sessionToVersion = new ConcurrentHashMap<>();
+    // wsSessionId → bounded outbound queue; all canvas binary sends go through it
+    private final ConcurrentHashMap<String, CanvasSendQueue> sessionToQueue = new ConcurrentHashMap<>();
+    // wsSessionId → reusable buffer for the stroke being streamed in segments
+    private final ConcurrentHashMap<String, OpenStroke> sessionToOpenStroke = new ConcurrentHashMap<>();
+    private final Set<String> spectatorSessions = ConcurrentHashMap.newKeySet();
+
+    @PostConstruct
+    void registerTransport() {
+        canvasEngine.register(this);
+    }
+
+    @Override
+    public CanvasReplicationEvent.Transport kind() {
+        return CanvasReplicationEvent.Transport.BINARY;
+    }
+
+    @Override
+    public void deliver(String roomCode, CanvasFrame frame, String excludeKey) {
+        broadcastStroke(roomCode, frame, excludeKey);
+    }
 
     @Override
     public void afterConnectionEstablished(WebSocketSession session) throws Exception {
@@ -47,12 +85,44 @@ public class BinaryCanvasHandler extends AbstractWebSocketHandler {
             return;
         }
 
+        boolean spectator = Boolean.TRUE.equals(session.getAttributes().get("spectator"));
+        Room room = roomCacheService.findByRoomCode(roomCode);
+        if (room == null || (spectator && !isSpectatable(room))) {
+            session.close(CloseStatus.POLICY_VIOLATION);
+            return;
+        }
+        if (spectator && !spectatorRegistry.add(roomCode, session.getId(), username)) {
+            log.warn("Spectator limit reached for room {}, refusing {}", roomCode, username);
+            session.close(CloseStatus.SERVICE_OVERLOAD);
+            return;
+        }
+
         sessionToUser.put(session.getId(), username);
         sessionToRoom.put(session.getId(), roomCode);
+        sessionToUsernameSuffix.put(session.getId(), BinaryCanvasCodec.encodeUsernameSuffix(username));
+        int version = (Integer) session.getAttributes().getOrDefault("canvasVersion", 1);
+        sessionToVersion.put(session.getId(), version);
+        CanvasSendQueue queue = canvasSendQueues.open(roomCode, room.getRoomId(), session,
+                () -> canvasStrokeService.getCanvasState(roomCode, version));
+        sessionToQueue.put(session.getId(), queue);
+        canvasReplicator.retain(roomCode, session.getId());
+
+        if (spectator) {
+            spectatorSessions.add(session.getId());
+            spectatorFanOut.add(roomCode, new SpectatorFanOut.Spectator(session.getId(), version, queue));
+            log.info("Canvas binary WS spectator connected: {} for room {} (wire v{})", username, roomCode, version);
+            return;
+        }
         roomSessions.computeIfAbsent(roomCode, k -> new ConcurrentHashMap<>())
                     .put(session.getId(), session);
 
-        log.info("Canvas binary WS connected: {} for room {}", username, roomCode);
+        log.info("Canvas binary WS connected: {} for room {} (wire v{})", username, roomCode,
+                sessionToVersion.get(session.getId()));
+    }
+
+    /** Spectators may watch public rooms that are still open. */
+    private boolean isSpectatable(Room room) {
+        return Boolean.TRUE.equals(room.getIsPublic()) && room.getStatus() != RoomStatus.FINISHED;
     }
 
     @Override
@@ -63,72 +133,337 @@ public class BinaryCanvasHandler extends AbstractWebSocketHandler {
 
         byte[] data = message.getPayload().array();
         if (data.length == 0) return;
+        if (!ingestLimiter.frameSizeAllowed(data.length, roomCode, session.getId())) {
+            sendError(session, "Frame too large");
+            return;
+        }
+        if (spectatorSessions.contains(session.getId()) && data[0] != BinaryCanvasCodec.MSG_REQUEST_STATE) {
+            log.debug("Ignoring canvas msg_type 0x{} from spectator {}", Integer.toHexString(data[0] & 0xFF), username);
+            return;
+        }
 
         try {
             switch (data[0]) {
-                case BinaryCanvasCodec.MSG_STROKE -> handleStroke(data, username, roomCode, session.getId());
-                case BinaryCanvasCodec.MSG_CLEAR  -> handleClear(username, roomCode);
-                case BinaryCanvasCodec.MSG_REQUEST_STATE -> handleRequestState(session, roomCode);
-                default -> log.warn("Unknown canvas msg_type 0x{} from {}", Integer.toHexString(data[0] & 0xFF), username);
+                case BinaryCanvasCodec.MSG_STROKE -> handleStroke(data, username, roomCode, session);
+                case BinaryCanvasCodec.MSG_CLEAR  -> handleClear(username, roomCode, session);
+                case BinaryCanvasCodec.MSG_REQUEST_STATE -> handleRequestState(session, roomCode, data);
+                case BinaryCanvasCodec.MSG_STROKE_BEGIN  -> handleStrokeBegin(data, username, roomCode, session);
+                case BinaryCanvasCodec.MSG_STROKE_APPEND -> handleStrokeAppend(data, username, roomCode, session);
+                case BinaryCanvasCodec.MSG_STROKE_END    -> handleStrokeEnd(data, username, roomCode, session);
+                default -> ingestLimiter.reportRejected(CanvasIngestLimiter.Verdict.UNKNOWN_TYPE, roomCode,
+                        session.getId(), "msg_type 0x" + Integer.toHexString(data[0] & 0xFF) + " from " + username);
             }
         } catch (Exception e) {
-            log.error("Error handling canvas binary message from {}: {}", username, e.getMessage());
+            ingestLimiter.reportRejected(CanvasIngestLimiter.Verdict.FAILED, roomCode, session.getId(),
+                    username + ": " + e.getMessage());
             sendError(session, e.getMessage());
         }
     }
 
-    private void handleStroke(byte[] data, String username, String roomCode, String senderSessionId) throws IOException {
-        Session gameSession = sessionServiceImpl.getActiveSession(roomCode);
-        if (gameSession != null && !gameRoundManager.isDrawerForRoom(roomCode, username)) {
-            log.warn("Draw rejected for {} in room {} - not the drawer", username, roomCode);
+    /** Hands a drawer stroke to the engine, which stores it and relays it on both transports. */
+    private void handleStroke(byte[] data, String username, String roomCode, WebSocketSession sender) {
+        CanvasEngine.Result result = canvasEngine.submitStroke(roomCode, username, sender.getId(), data,
+                versionOf(sender), sessionToUsernameSuffix.get(sender.getId()), CanvasReplicationEvent.Transport.BINARY);
+        if (result.error() != null) {
+            sendError(sender, result.error());
+        }
+    }
+
+    /**
+     * Opens a streamed stroke. It counts against the stroke rate like a
+     * STROKE; its points are counted as the segments arrive.
+     */
+    private void handleStrokeBegin(byte[] data, String username, String roomCode, WebSocketSession sender) {
+        if (data.length != BinaryCanvasCodec.STROKE_BEGIN_BYTES) {
+            sendError(sender, "Malformed stroke segment");
+            return;
+        }
+        if (ingestLimiter.checkStroke(roomCode, sender.getId(), 0) != CanvasIngestLimiter.Verdict.ACCEPT) return;
+        DrawerIndex.RoomDrawer drawer = drawerIndex.entry(roomCode);
+        if (drawer == null || !drawer.allows(username) || spectatorRegistry.isWatching(roomCode, username)) {
+            ingestLimiter.reportRejected(CanvasIngestLimiter.Verdict.NOT_DRAWER, roomCode, sender.getId(), username);
+            return;
+        }
+
+        OpenStroke open = sessionToOpenStroke.computeIfAbsent(sender.getId(), k -> new OpenStroke());
+        if (open.isOpen()) {
+            closeOpenStroke(roomCode, sender, open);
+        }
+        open.begin(data, drawer);
+        relaySegment(roomCode, data, sender);
+    }
+
+    /**
+     * Relays a segment of the open stroke and copies its points into the
+     * stroke's buffer. Segments for a stroke that is not open (never begun,
+     * rate-limited at BEGIN, or already ended) are dropped, and so is the
+     * stroke itself once its sender is no longer the drawer.
+     */
+    private void handleStrokeAppend(byte[] data, String username, String roomCode, WebSocketSession sender) {
+        int pointCount = BinaryCanvasCodec.checkStrokeAppend(data, data.length);
+        if (pointCount < 0) {
+            ingestLimiter.reportRejected(CanvasIngestLimiter.Verdict.MALFORMED, roomCode, sender.getId(),
+                    "segment of " + data.length + " bytes from " + username);
+            sendError(sender, "Malformed stroke segment");
+            return;
+        }
+        OpenStroke open = sessionToOpenStroke.get(sender.getId());
+        if (open == null || !open.isOpen(BinaryCanvasCodec.segmentStrokeId(data))) return;
+        if (drawerChanged(roomCode, open)) {
+            open.finish();
+            return;
+        }
+
+        CanvasIngestLimiter.Verdict verdict = ingestLimiter.checkSegment(roomCode, sender.getId(),
+                pointCount, open.pointCount() + pointCount);
+        if (verdict == CanvasIngestLimiter.Verdict.TOO_MANY_POINTS) {
+            commitOpenStroke(roomCode, sender, open);
+            sendError(sender, "Stroke has too many points");
             return;
         }
+        if (verdict != CanvasIngestLimiter.Verdict.ACCEPT) return;
+
+        open.append(data, pointCount);
+        relaySegment(roomCode, data, sender);
+    }
 
-        Map<String, Object> strokeData = BinaryCanvasCodec.decodeClientStroke(data);
-        canvasStrokeService.addStroke(roomCode, strokeData);
+    /** Ends the open stroke and stores it, unless the drawer changed meanwhile. */
+    private void handleStrokeEnd(byte[] data, String username, String roomCode, WebSocketSession sender) {
+        if (data.length != BinaryCanvasCodec.STROKE_END_BYTES) {
+            sendError(sender, "Malformed stroke segment");
+            return;
+        }
+        OpenStroke open = sessionToOpenStroke.get(sender.getId());
+        if (open == null || !open.isOpen(BinaryCanvasCodec.segmentStrokeId(data))) return;
+        closeOpenStroke(roomCode, sender, open);
+    }
 
-        broadcastBinary(roomCode, BinaryCanvasCodec.encodeStroke(strokeData, username), senderSessionId);
+    /**
+     * Commit the open stroke if its sender is still the drawer it was at
+     * BEGIN; a stroke that outlived its round (or its lobby) is dropped.
+     */
+    private void closeOpenStroke(String roomCode, WebSocketSession sender, OpenStroke open) {
+        if (drawerChanged(roomCode, open)) {
+            open.finish();
+        } else {
+            commitOpenStroke(roomCode, sender, open);
+        }
     }
 
-    private void handleClear(String username, String roomCode) throws IOException {
-        if (!gameRoundManager.isDrawerForRoom(roomCode, username)) return;
-        canvasStrokeService.clearStrokes(roomCode);
-        broadcastBinary(roomCode, BinaryCanvasCodec.encodeClear(), null);
+    /** Whether a session or round has started or ended in the room since the stroke began. */
+    private boolean drawerChanged(String roomCode, OpenStroke open) {
+        return drawerIndex.entry(roomCode) != open.drawer();
     }
 
-    private void handleRequestState(WebSocketSession session, String roomCode) throws IOException {
-        List<Map<String, Object>> strokes = canvasStrokeService.getStrokes(roomCode);
-        if (strokes != null && !strokes.isEmpty()) {
-            byte[] stateBytes = BinaryCanvasCodec.encodeCanvasState(new ArrayList<>(strokes));
-            session.sendMessage(new BinaryMessage(stateBytes));
-            log.info("Sent {} canvas strokes (binary) to {} for room {}",
-                    strokes.size(), sessionToUser.get(session.getId()), roomCode);
+    /**
+     * Close the open stroke: receivers get its END and the points collected
+     * so far are committed through the engine, which stores them and sends
+     * them to the STOMP clients as one STROKE.
+     */
+    private void commitOpenStroke(String roomCode, WebSocketSession sender, OpenStroke open) {
+        int strokeId = open.strokeId();
+        CanvasStroke stroke = open.finish();
+        relaySegment(roomCode, BinaryCanvasCodec.encodeStrokeEnd(strokeId), sender);
+        if (stroke != null) {
+            canvasEngine.commitStreamedStroke(roomCode, stroke, sessionToUsernameSuffix.get(sender.getId()),
+                    CanvasReplicationEvent.Transport.BINARY);
         }
     }
 
-    private void broadcastBinary(String roomCode, byte[] data, String excludeSessionId) {
+    /** Segments are relayed byte-for-byte with the sender's username appended. */
+    private void relaySegment(String roomCode, byte[] data, WebSocketSession sender) {
+        byte[] usernameSuffix = sessionToUsernameSuffix.get(sender.getId());
+        broadcastStroke(roomCode,
+                CanvasFrame.ofFixed(BinaryCanvasCodec.relayStroke(data, data.length, usernameSuffix)),
+                sender.getId());
+    }
+
+    private void handleClear(String username, String roomCode, WebSocketSession session) {
+        CanvasEngine.Result result = canvasEngine.submitClear(roomCode, username, session.getId(),
+                CanvasReplicationEvent.Transport.BINARY);
+        if (result != CanvasEngine.Result.ACCEPTED) return;
+        OpenStroke open = sessionToOpenStroke.get(session.getId());
+        if (open != null) {
+            open.finish(); // drawn before the clear, so it is not kept
+        }
+    }
+
+    /**
+     * A bare REQUEST_STATE gets the single-frame STATE (or CHECKPOINT) answer;
+     * one carrying a transfer id and offset starts or resumes a chunked
+     * transfer. v1 rooms too large for the uint16 STATE header are always
+     * answered with a chunked transfer.
+     */
+    private void handleRequestState(WebSocketSession session, String roomCode, byte[] data) throws IOException {
+        int version = versionOf(session);
+        if (data.length == BinaryCanvasCodec.CHUNKED_STATE_REQUEST_BYTES) {
+            ByteBuffer request = ByteBuffer.wrap(data, 1, data.length - 1);
+            int transferId = request.getInt();
+            long offset = Integer.toUnsignedLong(request.getInt());
+            sendStateChunks(session, roomCode, version, transferId, offset);
+            return;
+        }
+        if (data.length != 1) {
+            sendError(session, "Malformed state request");
+            return;
+        }
+        flushPendingBatch(session, roomCode);
+        if (version != BinaryCanvasCodecV2.VERSION
+                && canvasStrokeService.getStrokeCount(roomCode) > CanvasStrokeLog.MAX_V1_STATE_STROKES) {
+            sendStateChunks(session, roomCode, version, 0, 0);
+            return;
+        }
+
+        byte[] stateBytes = canvasStrokeService.getCanvasState(roomCode, version);
+        if (stateBytes != null) {
+            sendTo(session, new BinaryMessage(stateBytes));
+            log.info("Sent canvas state ({} bytes, binary) to {} for room {}",
+                    stateBytes.length, sessionToUser.get(session.getId()), roomCode);
+        }
+    }
+
+    /**
+     * Send the next chunks of a state transfer, starting a new transfer if
+     * the id is 0, unknown or expired, or if the canvas changed underneath it
+     * (the client sees a new id at offset 0 and starts over).
+     */
+    private void sendStateChunks(WebSocketSession session, String roomCode, int version, int transferId, long offset) {
+        CanvasStateTransfer transfer = transferId != 0
+                ? canvasStateTransfers.resume(transferId, roomCode, version)
+                : null;
+        if (transfer == null || offset > transfer.totalLength()) {
+            flushPendingBatch(session, roomCode);
+            transfer = canvasStateTransfers.start(roomCode, version);
+            offset = 0;
+        }
+
+        for (int i = 0; i < canvasStateTransfers.chunksPerRequest() && offset < transfer.totalLength(); i++) {
+            byte[] chunk = transfer.chunk(offset, canvasStateTransfers.chunkBytes());
+            if (chunk == null) {
+                canvasStateTransfers.finish(transfer);
+                flushPendingBatch(session, roomCode);
+                transfer = canvasStateTransfers.start(roomCode, version);
+                offset = 0;
+                continue;
+            }
+            sendTo(session, new BinaryMessage(chunk));
+            offset += chunk.length - BinaryCanvasCodec.STATE_CHUNK_HEADER_BYTES;
+        }
+        if (offset >= transfer.totalLength()) {
+            canvasStateTransfers.finish(transfer);
+            log.info("Sent canvas state ({} bytes, chunked) to {} for room {}",
+                    transfer.totalLength(), sessionToUser.get(session.getId()), roomCode);
+        }
+    }
+
+    /**
+     * Deliver the room's batched frames to everyone but the requester before
+     * its state is built: those frames are already stored, so the state
+     * carries them.
+     */
+    private void flushPendingBatch(WebSocketSession session, String roomCode) {
+        if (canvasBatcher.isEnabled()) {
+            canvasBatcher.flushNow(roomCode, (room, items) -> deliverBatch(room, items, session.getId()));
+        }
+    }
+
+    /**
+     * Broadcast a canvas frame to the room, each connection getting its own
+     * wire version. With batching enabled the frame is queued and delivered
+     * by {@link #deliverBatch} when the room's flush window closes.
+     * Spectators get the same frame through {@link SpectatorFanOut}.
+     */
+    private void broadcastStroke(String roomCode, CanvasFrame frame, String excludeSessionId) {
+        if (canvasBatcher.isEnabled()) {
+            canvasBatcher.enqueue(roomCode, frame, excludeSessionId, (room, items) -> deliverBatch(room, items, null));
+            return;
+        }
+
+        spectatorFanOut.broadcast(roomCode, frame, null);
         ConcurrentHashMap<String, WebSocketSession> sessions = roomSessions.get(roomCode);
         if (sessions == null) return;
 
-        BinaryMessage msg = new BinaryMessage(data);
+        BinaryMessage[] byVersion = new BinaryMessage[BinaryCanvasCodecV2.VERSION + 1];
         for (Map.Entry<String, WebSocketSession> entry : sessions.entrySet()) {
             if (excludeSessionId != null && entry.getKey().equals(excludeSessionId)) continue;
             WebSocketSession ws = entry.getValue();
             if (ws.isOpen()) {
-                try {
-                    ws.sendMessage(msg);
-                } catch (IOException e) {
-                    log.error("Failed to send canvas binary to session {}", ws.getId());
+                int version = versionOf(ws);
+                if (byVersion[version] == null) {
+                    byVersion[version] = new BinaryMessage(frame.bytesFor(version));
                 }
+                sendTo(ws, byVersion[version]);
             }
         }
     }
 
+    /**
+     * Flush sink for the batcher: every connection gets one MSG_BATCH with the
+     * pending frames it should see (a lone frame is sent unwrapped). Connections
+     * not excluded from any frame share one encoded batch per wire version,
+     * and so do all spectators. The skipped connection, if any, gets nothing,
+     * whether it is a player or a spectator.
+     */
+    private void deliverBatch(String roomCode, List<CanvasBatcher.Pending> items, String skipSessionId) {
+        CanvasFrame shared = CanvasFrame.ofEncoder(version -> encodeBatchFor(items, null, version));
+        spectatorFanOut.broadcast(roomCode, shared, skipSessionId);
+        ConcurrentHashMap<String, WebSocketSession> sessions = roomSessions.get(roomCode);
+        if (sessions == null) return;
+
+        BinaryMessage[] sharedByVersion = new BinaryMessage[BinaryCanvasCodecV2.VERSION + 1];
+        for (WebSocketSession ws : sessions.values()) {
+            if (!ws.isOpen() || ws.getId().equals(skipSessionId)) continue;
+            int version = versionOf(ws);
+            boolean excluded = false;
+            for (CanvasBatcher.Pending pending : items) {
+                if (ws.getId().equals(pending.excludeSessionId())) {
+                    excluded = true;
+                    break;
+                }
+            }
+
+            if (excluded) {
+                byte[] own = encodeBatchFor(items, ws.getId(), version);
+                if (own != null) {
+                    sendTo(ws, new BinaryMessage(own));
+                }
+            } else {
+                if (sharedByVersion[version] == null) {
+                    sharedByVersion[version] = new BinaryMessage(shared.bytesFor(version));
+                }
+                sendTo(ws, sharedByVersion[version]);
+            }
+        }
+    }
+
+    private byte[] encodeBatchFor(List<CanvasBatcher.Pending> items, String sessionId, int version) {
+        List<byte[]> frames = new ArrayList<>(items.size());
+        for (CanvasBatcher.Pending pending : items) {
+            if (sessionId == null || !sessionId.equals(pending.excludeSessionId())) {
+                frames.add(pending.frame().bytesFor(version));
+            }
+        }
+        if (frames.isEmpty()) return null;
+        return frames.size() == 1 ? frames.get(0) : BinaryCanvasCodec.encodeBatch(frames);
+    }
+
+    private int versionOf(WebSocketSession session) {
+        return sessionToVersion.getOrDefault(session.getId(), 1);
+    }
+
+    /** Queue a message for one connection; its send queue writes it off this thread. */
+    private void sendTo(WebSocketSession ws, WebSocketMessage<?> msg) {
+        CanvasSendQueue queue = sessionToQueue.get(ws.getId());
+        if (queue != null) {
+            queue.enqueue(msg);
+        }
+    }
+
     private void sendError(WebSocketSession session, String message) {
         if (!session.isOpen()) return;
         try {
             String json = MAPPER.writeValueAsString(Map.of("type", "CANVAS_ERROR", "message", message != null ? message : "Canvas error"));
-            session.sendMessage(new TextMessage(json));
+            sendTo(session, new TextMessage(json));
         } catch (IOException e) {
             log.error("Failed to send canvas error to session {}", session.getId());
         }
@@ -138,11 +473,29 @@ public class BinaryCanvasHandler extends AbstractWebSocketHandler {
     public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
         String roomCode = sessionToRoom.remove(session.getId());
         String username = sessionToUser.remove(session.getId());
+        OpenStroke open = sessionToOpenStroke.remove(session.getId());
+        if (roomCode != null && open != null && open.isOpen()) {
+            // Receivers already drew its segments; keep what arrived if it still counts
+            closeOpenStroke(roomCode, session, open);
+        }
+        sessionToUsernameSuffix.remove(session.getId());
+        sessionToVersion.remove(session.getId());
+        sessionToQueue.remove(session.getId());
+        ingestLimiter.release(session.getId());
+        canvasReplicator.release(session.getId());
+        if (spectatorSessions.remove(session.getId()) && roomCode != null) {
+            spectatorFanOut.remove(roomCode, session.getId());
+        }
+        spectatorRegistry.remove(session.getId());
         if (roomCode != null) {
+            canvasSendQueues.close(roomCode, session.getId());
             ConcurrentHashMap<String, WebSocketSession> sessions = roomSessions.get(roomCode);
             if (sessions != null) {
                 sessions.remove(session.getId());
-                if (sessions.isEmpty()) roomSessions.remove(roomCode);
+                if (sessions.isEmpty()) {
+                    roomSessions.remove(roomCode);
+                    canvasBatcher.discard(roomCode);
+                }
             }
         }
         log.info("Canvas binary WS disconnected: {} ({})", username, session.getId());
@@ -0,0 +1,149 @@
+package com.project.drawguess.websocket;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Per-room micro-batching of canvas broadcasts.
+ *
+ * When a window is configured, the first frame queued for a room starts a
+ * flush timer; everything queued until it fires (or until the pending bytes
+ * reach max-batch-bytes) is handed to the sink together, which sends it as a
+ * single MSG_BATCH frame per connection. The window is therefore the latency
+ * cap: no frame waits longer than window-ms. A window of 0 disables batching.
+ *
+ * A room's flushes run one at a time, so batches reach each connection in
+ * order. A state request calls {@link #flushNow} before the state is built:
+ * the frames still waiting are already in the stroke store, so the requester
+ * is left out of that flush instead of getting them again after its STATE.
+ */
+@Component
+@Slf4j
+public class CanvasBatcher {
+
+    /** A queued frame and the connection (usually the sender) that must not receive it. */
+    public record Pending(CanvasFrame frame, String excludeSessionId) {
+    }
+
+    private final long windowMs;
+    private final int maxBatchBytes;
+
+    private final Map<String, RoomBatch> batches = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("canvas-batch-flusher").daemon(true).factory());
+
+    private final DistributionSummary framesPerBatch;
+    private final Timer batchDelay;
+
+    public CanvasBatcher(
+            MeterRegistry meterRegistry,
+            @Value("${app.canvas.batch.window-ms:0}") long windowMs,
+            @Value("${app.canvas.batch.max-batch-bytes:16384}") int maxBatchBytes) {
+        this.windowMs = windowMs;
+        this.maxBatchBytes = maxBatchBytes;
+        this.framesPerBatch = DistributionSummary.builder("canvas.batch.frames")
+                .description("Frames merged into one canvas flush")
+                .register(meterRegistry);
+        this.batchDelay = Timer.builder("canvas.batch.delay")
+                .description("Time the oldest frame of a batch waited before flush")
+                .register(meterRegistry);
+        Gauge.builder("canvas.batch.window.ms", () -> windowMs).register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return windowMs > 0;
+    }
+
+    /**
+     * Queue a frame for the room. The sink is called on the flush thread with
+     * all frames pending for that room, in arrival order.
+     */
+    public void enqueue(String roomCode, CanvasFrame frame, String excludeSessionId,
+            BiConsumer<String, List<Pending>> sink) {
+        RoomBatch batch = batches.computeIfAbsent(roomCode, k -> new RoomBatch());
+        boolean schedule;
+        boolean flushNow;
+        synchronized (batch) {
+            schedule = batch.items.isEmpty();
+            if (schedule) {
+                batch.firstQueuedNanos = System.nanoTime();
+            }
+            batch.items.add(new Pending(frame, excludeSessionId));
+            batch.bytes += frame.sizeHint();
+            flushNow = batch.bytes >= maxBatchBytes;
+        }
+        if (flushNow) {
+            flusher.execute(() -> flush(roomCode, batch, sink));
+        } else if (schedule) {
+            flusher.schedule(() -> flush(roomCode, batch, sink), windowMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Flush the room's pending frames on the calling thread, after any flush
+     * already in progress for the room. Does nothing if nothing is pending.
+     */
+    public void flushNow(String roomCode, BiConsumer<String, List<Pending>> sink) {
+        RoomBatch batch = batches.get(roomCode);
+        if (batch != null) {
+            flush(roomCode, batch, sink);
+        }
+    }
+
+    /** Drop a room's batch state once it has no connections left. */
+    public void discard(String roomCode) {
+        batches.remove(roomCode);
+    }
+
+    @PreDestroy
+    public void stop() {
+        flusher.shutdownNow();
+    }
+
+    private void flush(String roomCode, RoomBatch batch, BiConsumer<String, List<Pending>> sink) {
+        synchronized (batch.flushLock) {
+            List<Pending> items;
+            long firstQueuedNanos;
+            synchronized (batch) {
+                if (batch.items.isEmpty()) return; // already flushed early by the size cap
+                items = batch.items;
+                firstQueuedNanos = batch.firstQueuedNanos;
+                batch.items = new ArrayList<>();
+                batch.bytes = 0;
+            }
+            framesPerBatch.record(items.size());
+            batchDelay.record(System.nanoTime() - firstQueuedNanos, TimeUnit.NANOSECONDS);
+            try {
+                sink.accept(roomCode, items);
+            } catch (Exception e) {
+                log.error("Error flushing canvas batch for room {}: {}", roomCode, e.getMessage());
+            }
+        }
+    }
+
+    private static final class RoomBatch {
+        // Held while a batch is taken and handed to the sink, so flushes don't interleave
+        private final Object flushLock = new Object();
+        private List<Pending> items = new ArrayList<>();
+        private long bytes;
+        private long firstQueuedNanos;
+    }
+}
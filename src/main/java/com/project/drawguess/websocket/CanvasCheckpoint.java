@@ -0,0 +1,62 @@
+package com.project.drawguess.websocket;
+
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A rasterized prefix of a room's stroke history: the canvas as it looked
+ * after the first coveredStrokes strokes, stored as PNG. Immutable.
+ */
+public final class CanvasCheckpoint {
+
+    private final int width;
+    private final int height;
+    private final byte[] png;
+    private final long coveredStrokes;
+    private final byte[] frameHeader;
+
+    public CanvasCheckpoint(int width, int height, byte[] png, long coveredStrokes) {
+        this.width = width;
+        this.height = height;
+        this.png = png;
+        this.coveredStrokes = coveredStrokes;
+        this.frameHeader = BinaryCanvasCodec.encodeCheckpointHeader(width, height, png);
+    }
+
+    public int width() {
+        return width;
+    }
+
+    public int height() {
+        return height;
+    }
+
+    public byte[] png() {
+        return png;
+    }
+
+    /** Total strokes folded into this image since the canvas was last cleared. */
+    public long coveredStrokes() {
+        return coveredStrokes;
+    }
+
+    /** The CHECKPOINT frame up to (not including) the embedded STATE. Shared, read-only. */
+    public byte[] frameHeader() {
+        return frameHeader;
+    }
+
+    /** Heap held by this checkpoint: the PNG and the frame header that embeds it. */
+    public long retainedBytes() {
+        return png.length + frameHeader.length;
+    }
+
+    /** JSON form for the CANVAS_STATE messages: width, height and a PNG data URL. */
+    public Map<String, Object> toJson() {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("width", width);
+        json.put("height", height);
+        json.put("image", "data:image/png;base64," + Base64.getEncoder().encodeToString(png));
+        return json;
+    }
+}
@@ -0,0 +1,187 @@
+package com.project.drawguess.websocket;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import com.project.drawguess.game.DrawerIndex;
+import com.project.drawguess.game.SpectatorRegistry;
+import com.project.drawguess.service.impl.CanvasStrokeServiceImpl;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * The room canvas pipeline shared by both client transports (STOMP at
+ * /ws-canvas and raw binary at /ws-canvas-binary).
+ *
+ * A stroke is bounded and rate-limited, then authorized (only the room's
+ * drawer may draw, and not while spectating the room on another
+ * connection), so a flood of frames is refused before any drawer lookup.
+ * It is decoded and simplified at most once, turned into one {@link CanvasFrame},
+ * stored, handed to every registered {@link CanvasTransport} and replicated.
+ * It is stored before it is sent, so a state built while the frame is still
+ * queued (say, in a batch window) already contains it. Each encoding of the
+ * frame is built at most once, whichever transports and wire versions the
+ * room's clients use, so a room mixing STOMP and binary players pays for
+ * one conversion, not one per transport.
+ *
+ * Streamed segments (BEGIN/APPEND/END) only exist on the binary transport;
+ * the committed stroke comes back here through {@link #commitStreamedStroke}
+ * and reaches the other transports as a whole STROKE.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class CanvasEngine {
+
+    /** Outcome of a submitted stroke or clear; error is the message for the sender, if it gets one. */
+    public enum Result {
+        ACCEPTED(null),
+        NOT_DRAWER(null),
+        RATE_LIMITED(null),
+        FRAME_TOO_LARGE("Frame too large"),
+        MALFORMED("Malformed stroke"),
+        TOO_MANY_POINTS("Stroke has too many points");
+
+        private final String error;
+
+        Result(String error) {
+            this.error = error;
+        }
+
+        public String error() {
+            return error;
+        }
+    }
+
+    private final CanvasStrokeServiceImpl canvasStrokeService;
+    private final DrawerIndex drawerIndex;
+    private final SpectatorRegistry spectatorRegistry;
+    private final StrokeSimplifier strokeSimplifier;
+    private final CanvasIngestLimiter ingestLimiter;
+    private final CanvasReplicator canvasReplicator;
+
+    private final List<CanvasTransport> transports = new CopyOnWriteArrayList<>();
+
+    public void register(CanvasTransport transport) {
+        transports.add(transport);
+    }
+
+    /**
+     * Submit a client STROKE frame (data[0] is the type byte) in the given
+     * wire version. A v1 frame too short to simplify is not decoded at all:
+     * only its header and length are checked and its bytes are relayed with
+     * the sender's username trailer. A v2 frame is decoded once (its deltas
+     * must be validated). Either is relayed as-is to clients on the same
+     * version unless simplification dropped points.
+     */
+    public Result submitStroke(String roomCode, String username, String connectionKey, byte[] data,
+            int version, byte[] usernameSuffix, CanvasReplicationEvent.Transport origin) {
+        if (!ingestLimiter.frameSizeAllowed(data.length, roomCode, connectionKey)) {
+            return Result.FRAME_TOO_LARGE;
+        }
+
+        boolean v2 = version == BinaryCanvasCodecV2.VERSION;
+        int pointCount = v2
+                ? BinaryCanvasCodecV2.peekPointCount(data, data.length)
+                : BinaryCanvasCodec.checkClientStroke(data, data.length);
+        if (pointCount < 0) {
+            ingestLimiter.reportRejected(CanvasIngestLimiter.Verdict.MALFORMED, roomCode, connectionKey,
+                    "stroke of " + data.length + " bytes from " + username);
+            return Result.MALFORMED;
+        }
+        CanvasIngestLimiter.Verdict verdict = ingestLimiter.checkStroke(roomCode, connectionKey, pointCount);
+        if (verdict == CanvasIngestLimiter.Verdict.TOO_MANY_POINTS) return Result.TOO_MANY_POINTS;
+        if (verdict != CanvasIngestLimiter.Verdict.ACCEPT) return Result.RATE_LIMITED;
+        if (!drawerIndex.canDraw(roomCode, username) || spectatorRegistry.isWatching(roomCode, username)) {
+            ingestLimiter.reportRejected(CanvasIngestLimiter.Verdict.NOT_DRAWER, roomCode, connectionKey, username);
+            return Result.NOT_DRAWER;
+        }
+
+        CanvasStroke stroke;
+        if (v2) {
+            stroke = BinaryCanvasCodecV2.decodeClientStroke(data, data.length);
+        } else {
+            if (!strokeSimplifier.appliesTo(pointCount)) {
+                canvasStrokeService.appendEncodedStroke(roomCode, data, 1, data.length - 1);
+                deliver(roomCode, CanvasFrame.ofV1(data, null, usernameSuffix), connectionKey, null);
+                canvasReplicator.publishStroke(roomCode, data, 1, data.length - 1, usernameSuffix, origin);
+                return Result.ACCEPTED;
+            }
+            stroke = BinaryCanvasCodec.decodeClientStroke(data);
+        }
+
+        CanvasStroke simplified = strokeSimplifier.simplify(stroke);
+        CanvasFrame frame;
+        if (simplified != stroke) {
+            frame = CanvasFrame.ofStroke(simplified, usernameSuffix);
+        } else if (v2) {
+            frame = CanvasFrame.ofV2(data, stroke, usernameSuffix);
+        } else {
+            frame = CanvasFrame.ofV1(data, stroke, usernameSuffix);
+        }
+        canvasStrokeService.addStroke(roomCode, simplified);
+        deliver(roomCode, frame, connectionKey, null);
+        canvasReplicator.publishStroke(roomCode, frame, usernameSuffix, origin);
+        return Result.ACCEPTED;
+    }
+
+    /**
+     * Store a stroke whose segments the origin transport has already relayed
+     * to its own clients; the other transports get it as one STROKE.
+     */
+    public void commitStreamedStroke(String roomCode, CanvasStroke stroke, byte[] usernameSuffix,
+            CanvasReplicationEvent.Transport origin) {
+        CanvasStroke simplified = strokeSimplifier.simplify(stroke);
+        CanvasFrame frame = CanvasFrame.ofStroke(simplified, usernameSuffix);
+        canvasStrokeService.addStroke(roomCode, simplified);
+        deliver(roomCode, frame, null, origin);
+        canvasReplicator.publishStroke(roomCode, frame, usernameSuffix, origin);
+    }
+
+    /** Clear the room's canvas for every client, if the sender is the drawer and within its rate. */
+    public Result submitClear(String roomCode, String username, String connectionKey,
+            CanvasReplicationEvent.Transport origin) {
+        if (ingestLimiter.checkStroke(roomCode, connectionKey, 0) != CanvasIngestLimiter.Verdict.ACCEPT) {
+            return Result.RATE_LIMITED;
+        }
+        if (!drawerIndex.isDrawer(roomCode, username) || spectatorRegistry.isWatching(roomCode, username)) {
+            return Result.NOT_DRAWER;
+        }
+        canvasStrokeService.clearStrokes(roomCode);
+        deliver(roomCode, CanvasFrame.ofFixed(BinaryCanvasCodec.encodeClear()), null, null);
+        canvasReplicator.publishClear(roomCode, origin);
+        return Result.ACCEPTED;
+    }
+
+    /**
+     * Relay a stroke or clear drawn on another node (already applied to the
+     * store by the replicator) to this node's clients on every transport.
+     * Events marked NONE only carry history.
+     */
+    @EventListener
+    public void onReplicatedEvent(CanvasReplicationEvent event) {
+        if (event.transport() == CanvasReplicationEvent.Transport.NONE) return;
+        CanvasFrame frame = event.type() == CanvasReplicationEvent.Type.CLEAR
+                ? CanvasFrame.ofFixed(BinaryCanvasCodec.encodeClear())
+                : CanvasFrame.ofStroke(BinaryCanvasCodec.readStroke(ByteBuffer.wrap(event.strokeBody())),
+                        event.usernameSuffix());
+        deliver(event.roomCode(), frame, null, null);
+    }
+
+    private void deliver(String roomCode, CanvasFrame frame, String excludeKey,
+            CanvasReplicationEvent.Transport skip) {
+        for (CanvasTransport transport : transports) {
+            if (transport.kind() == skip) continue;
+            try {
+                transport.deliver(roomCode, frame, excludeKey);
+            } catch (RuntimeException e) {
+                log.error("Canvas delivery over {} failed for room {}: {}", transport.kind(), roomCode, e.getMessage());
+            }
+        }
+    }
+}
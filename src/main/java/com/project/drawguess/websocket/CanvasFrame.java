@@ -0,0 +1,96 @@
+package com.project.drawguess.websocket;
+
+import java.util.function.IntFunction;
+
+/**
+ * One server → client canvas message, available in every wire format
+ * version. Version-specific encodings are built lazily, so a room whose
+ * clients all use the sender's version only pays for the relay copy.
+ *
+ * Instances may be read from the inbound thread and a batch flush thread,
+ * so the lazy paths are synchronized.
+ */
+public final class CanvasFrame {
+
+    private final byte[] usernameSuffix;
+    private IntFunction<byte[]> encoder;
+    private byte[] clientFrameV1;
+    private CanvasStroke stroke;
+    private byte[] v1;
+    private byte[] v2;
+
+    private CanvasFrame(byte[] usernameSuffix) {
+        this.usernameSuffix = usernameSuffix;
+    }
+
+    /** A v1 client STROKE frame relayed as-is; stroke may be null if not decoded. */
+    public static CanvasFrame ofV1(byte[] clientFrame, CanvasStroke stroke, byte[] usernameSuffix) {
+        CanvasFrame frame = new CanvasFrame(usernameSuffix);
+        frame.clientFrameV1 = clientFrame;
+        frame.stroke = stroke;
+        frame.v1 = BinaryCanvasCodec.relayStroke(clientFrame, clientFrame.length, usernameSuffix);
+        return frame;
+    }
+
+    /** A v2 client STROKE frame relayed as-is. */
+    public static CanvasFrame ofV2(byte[] clientFrame, CanvasStroke stroke, byte[] usernameSuffix) {
+        CanvasFrame frame = new CanvasFrame(usernameSuffix);
+        frame.stroke = stroke;
+        frame.v2 = BinaryCanvasCodec.relayStroke(clientFrame, clientFrame.length, usernameSuffix);
+        return frame;
+    }
+
+    /** A STROKE built from a decoded (e.g. simplified) stroke. */
+    public static CanvasFrame ofStroke(CanvasStroke stroke, byte[] usernameSuffix) {
+        CanvasFrame frame = new CanvasFrame(usernameSuffix);
+        frame.stroke = stroke;
+        return frame;
+    }
+
+    /** A message whose bytes are the same in every version (e.g. CLEAR). */
+    public static CanvasFrame ofFixed(byte[] bytes) {
+        CanvasFrame frame = new CanvasFrame(null);
+        frame.v1 = bytes;
+        frame.v2 = bytes;
+        return frame;
+    }
+
+    /** A message encoded on first use for each version (e.g. a batch). */
+    public static CanvasFrame ofEncoder(IntFunction<byte[]> encoder) {
+        CanvasFrame frame = new CanvasFrame(null);
+        frame.encoder = encoder;
+        return frame;
+    }
+
+    public synchronized byte[] bytesFor(int version) {
+        if (version == BinaryCanvasCodecV2.VERSION) {
+            if (v2 == null) {
+                v2 = encoder != null
+                        ? encoder.apply(version)
+                        : BinaryCanvasCodecV2.encodeStroke(decoded(), usernameSuffix);
+            }
+            return v2;
+        }
+        if (v1 == null) {
+            v1 = encoder != null
+                    ? encoder.apply(version)
+                    : BinaryCanvasCodec.encodeStroke(decoded(), usernameSuffix);
+        }
+        return v1;
+    }
+
+    /** Size of an already-built encoding, for batch accounting. */
+    public synchronized int sizeHint() {
+        if (v1 != null) return v1.length;
+        if (v2 != null) return v2.length;
+        if (encoder != null) return bytesFor(1).length;
+        return 1 + BinaryCanvasCodec.strokeSize(stroke) + usernameSuffix.length;
+    }
+
+    private CanvasStroke decoded() {
+        if (stroke == null) {
+            stroke = BinaryCanvasCodec.decodeClientStroke(clientFrameV1);
+        }
+        return stroke;
+    }
+}
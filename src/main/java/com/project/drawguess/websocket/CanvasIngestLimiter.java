@@ -0,0 +1,226 @@
+package com.project.drawguess.websocket;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Bounds on canvas ingestion, shared by the binary and STOMP transports.
+ *
+ * Hard limits (frame bytes, points per stroke) are checked before a stroke is
+ * decoded. Rate limits are token buckets for strokes/s and points/s, one pair
+ * per connection and one per room, so a single client cannot flood its room
+ * and a room cannot flood the server. Bursts of burst-seconds worth of
+ * traffic are allowed.
+ *
+ * Every rejection is counted in canvas.ingest.rejected (tag "reason"); the
+ * log gets at most one summary line per reason every log-interval. The
+ * transports report the frames they refuse themselves (not the drawer,
+ * malformed, unknown type, failed) through {@link #reportRejected}, so a client
+ * sending garbage cannot flood the log either.
+ */
+@Component
+@Slf4j
+public class CanvasIngestLimiter {
+
+    public enum Verdict {
+        ACCEPT,
+        FRAME_TOO_LARGE,
+        TOO_MANY_POINTS,
+        CONNECTION_RATE,
+        ROOM_RATE,
+        NOT_DRAWER,
+        MALFORMED,
+        UNKNOWN_TYPE,
+        FAILED
+    }
+
+    private static final long SWEEP_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(60);
+    private static final long IDLE_BUCKET_NANOS = TimeUnit.MINUTES.toNanos(5);
+
+    private final int maxFrameBytes;
+    private final int maxPoints;
+    private final double connectionStrokesPerSecond;
+    private final double connectionPointsPerSecond;
+    private final double roomStrokesPerSecond;
+    private final double roomPointsPerSecond;
+    private final double burstSeconds;
+    private final long logIntervalNanos;
+
+    private final Map<String, Buckets> connections = new ConcurrentHashMap<>();
+    private final Map<String, Buckets> rooms = new ConcurrentHashMap<>();
+    private final AtomicLong lastSweepNanos = new AtomicLong(System.nanoTime());
+
+    private final Map<Verdict, Counter> rejected = new EnumMap<>(Verdict.class);
+    private final Map<Verdict, AtomicLong> lastLogNanos = new EnumMap<>(Verdict.class);
+    private final Map<Verdict, AtomicLong> suppressed = new EnumMap<>(Verdict.class);
+
+    public CanvasIngestLimiter(
+            MeterRegistry meterRegistry,
+            @Value("${app.canvas.limits.max-frame-bytes:32768}") int maxFrameBytes,
+            @Value("${app.canvas.limits.max-points:4096}") int maxPoints,
+            @Value("${app.canvas.limits.connection.strokes-per-second:30}") double connectionStrokesPerSecond,
+            @Value("${app.canvas.limits.connection.points-per-second:3000}") double connectionPointsPerSecond,
+            @Value("${app.canvas.limits.room.strokes-per-second:60}") double roomStrokesPerSecond,
+            @Value("${app.canvas.limits.room.points-per-second:6000}") double roomPointsPerSecond,
+            @Value("${app.canvas.limits.burst-seconds:2}") double burstSeconds,
+            @Value("${app.canvas.limits.log-interval-seconds:10}") long logIntervalSeconds) {
+        this.maxFrameBytes = maxFrameBytes;
+        this.maxPoints = maxPoints;
+        this.connectionStrokesPerSecond = connectionStrokesPerSecond;
+        this.connectionPointsPerSecond = connectionPointsPerSecond;
+        this.roomStrokesPerSecond = roomStrokesPerSecond;
+        this.roomPointsPerSecond = roomPointsPerSecond;
+        this.burstSeconds = burstSeconds;
+        this.logIntervalNanos = TimeUnit.SECONDS.toNanos(logIntervalSeconds);
+        for (Verdict verdict : Verdict.values()) {
+            if (verdict == Verdict.ACCEPT) continue;
+            rejected.put(verdict, Counter.builder("canvas.ingest.rejected")
+                    .description("Canvas frames refused by size bounds or rate limits")
+                    .tag("reason", verdict.name().toLowerCase())
+                    .register(meterRegistry));
+            lastLogNanos.put(verdict, new AtomicLong(System.nanoTime() - logIntervalNanos));
+            suppressed.put(verdict, new AtomicLong());
+        }
+    }
+
+    /** Hard frame-size bound, checked before anything in the frame is read. */
+    public boolean frameSizeAllowed(int frameBytes, String roomCode, String connectionKey) {
+        if (frameBytes <= maxFrameBytes) return true;
+        reject(Verdict.FRAME_TOO_LARGE, roomCode, connectionKey);
+        return false;
+    }
+
+    /**
+     * Check one stroke (pointCount 0 for a clear) against the point bound and
+     * the connection's and room's buckets. Tokens are only taken if every
+     * check passes.
+     */
+    public Verdict checkStroke(String roomCode, String connectionKey, int pointCount) {
+        if (pointCount > maxPoints) {
+            return reject(Verdict.TOO_MANY_POINTS, roomCode, connectionKey);
+        }
+        sweepIdle();
+
+        Buckets connection = connections.computeIfAbsent(connectionKey,
+                k -> new Buckets(connectionStrokesPerSecond, connectionPointsPerSecond));
+        if (!connection.tryConsume(pointCount)) {
+            return reject(Verdict.CONNECTION_RATE, roomCode, connectionKey);
+        }
+        Buckets room = rooms.computeIfAbsent(roomCode,
+                k -> new Buckets(roomStrokesPerSecond, roomPointsPerSecond));
+        if (!room.tryConsume(pointCount)) {
+            connection.refund(pointCount);
+            return reject(Verdict.ROOM_RATE, roomCode, connectionKey);
+        }
+        return Verdict.ACCEPT;
+    }
+
+    /**
+     * Check one APPEND segment of a streamed stroke. Segments only draw on the
+     * points buckets (the stroke was counted at BEGIN); strokePoints is the
+     * open stroke's total including this segment, held to the point bound.
+     */
+    public Verdict checkSegment(String roomCode, String connectionKey, int pointCount, int strokePoints) {
+        if (strokePoints > maxPoints) {
+            return reject(Verdict.TOO_MANY_POINTS, roomCode, connectionKey);
+        }
+        Buckets connection = connections.computeIfAbsent(connectionKey,
+                k -> new Buckets(connectionStrokesPerSecond, connectionPointsPerSecond));
+        if (!connection.points.tryConsume(pointCount)) {
+            return reject(Verdict.CONNECTION_RATE, roomCode, connectionKey);
+        }
+        Buckets room = rooms.computeIfAbsent(roomCode,
+                k -> new Buckets(roomStrokesPerSecond, roomPointsPerSecond));
+        if (!room.points.tryConsume(pointCount)) {
+            connection.points.refund(pointCount);
+            return reject(Verdict.ROOM_RATE, roomCode, connectionKey);
+        }
+        return Verdict.ACCEPT;
+    }
+
+    /**
+     * Count a frame refused outside the limiter and log it on the same
+     * per-reason schedule; detail (the sender, the frame size, the error) is
+     * only logged for the reported frame.
+     */
+    public void reportRejected(Verdict verdict, String roomCode, String connectionKey, String detail) {
+        reject(verdict, roomCode, connectionKey, detail);
+    }
+
+    /** Forget a closed connection's buckets. */
+    public void release(String connectionKey) {
+        connections.remove(connectionKey);
+    }
+
+    private Verdict reject(Verdict verdict, String roomCode, String connectionKey) {
+        return reject(verdict, roomCode, connectionKey, null);
+    }
+
+    private Verdict reject(Verdict verdict, String roomCode, String connectionKey, String detail) {
+        rejected.get(verdict).increment();
+        long now = System.nanoTime();
+        AtomicLong last = lastLogNanos.get(verdict);
+        long previous = last.get();
+        if (now - previous >= logIntervalNanos && last.compareAndSet(previous, now)) {
+            long others = suppressed.get(verdict).getAndSet(0);
+            if (detail != null) {
+                log.warn("Canvas ingest rejected ({}: {}) for {} in room {}; {} more since last report",
+                        verdict, detail, connectionKey, roomCode, others);
+            } else {
+                log.warn("Canvas ingest rejected ({}) for {} in room {}; {} more since last report",
+                        verdict, connectionKey, roomCode, others);
+            }
+        } else {
+            suppressed.get(verdict).incrementAndGet();
+        }
+        return verdict;
+    }
+
+    private void sweepIdle() {
+        long now = System.nanoTime();
+        long previous = lastSweepNanos.get();
+        if (now - previous < SWEEP_INTERVAL_NANOS || !lastSweepNanos.compareAndSet(previous, now)) return;
+        connections.values().removeIf(b -> b.idleNanos(now) > IDLE_BUCKET_NANOS);
+        rooms.values().removeIf(b -> b.idleNanos(now) > IDLE_BUCKET_NANOS);
+    }
+
+    private final class Buckets {
+        private final TokenBucket strokes;
+        private final TokenBucket points;
+
+        Buckets(double strokesPerSecond, double pointsPerSecond) {
+            this.strokes = new TokenBucket(strokesPerSecond, strokesPerSecond * burstSeconds);
+            this.points = new TokenBucket(pointsPerSecond, pointsPerSecond * burstSeconds);
+        }
+
+        boolean tryConsume(int pointCount) {
+            if (!strokes.tryConsume(1)) return false;
+            if (!points.tryConsume(pointCount)) {
+                strokes.refund(1);
+                return false;
+            }
+            return true;
+        }
+
+        void refund(int pointCount) {
+            strokes.refund(1);
+            points.refund(pointCount);
+        }
+
+        /** Time since either bucket was last used; segments only draw on points. */
+        long idleNanos(long now) {
+            return Math.min(strokes.idleNanos(now), points.idleNanos(now));
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.project.drawguess.websocket;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Timestamped record of everything drawn in one round, kept with the
+ * RoundRecord so the round can be replayed.
+ *
+ * Unlike the stroke log this is never compacted, and it records clears, so
+ * a replay shows the drawing as it happened. Format:
+ *   [1] format version (2)
+ *   per event:
+ *     [varint] milliseconds since the previous event (the first: since round start)
+ *     [1]      type: MSG_STROKE or MSG_CLEAR (see {@link BinaryCanvasCodec})
+ *     STROKE:  [varint] bodyLength | v1 stroke body, as stored in the stroke log
+ *
+ * Stroke bodies are copied in as they arrive, so journaling never decodes a
+ * stroke; {@link Reader} decodes them at replay. Version 1 journals, written
+ * with v2 stroke bodies (see {@link BinaryCanvasCodecV2}), can still be read.
+ *
+ * Strokes are timestamped when they are committed, i.e. when the pen is
+ * lifted. The length prefix lets {@link Reader} pull one event at a time from
+ * a stream.
+ */
+public final class CanvasJournal {
+
+    public static final byte FORMAT_VERSION = 2;
+
+    /** Journals written before stroke bodies were kept in the v1 wire format. */
+    private static final int FORMAT_VERSION_V2_BODIES = 1;
+
+    private static final int INITIAL_BYTES = 4096;
+
+    private final long startNanos = System.nanoTime();
+    private long lastMillis;
+    private byte[] bytes = new byte[INITIAL_BYTES];
+    private int size;
+
+    public CanvasJournal() {
+        bytes[size++] = FORMAT_VERSION;
+    }
+
+    /** Record a stroke already in v1 wire format (a STROKE frame without its type byte). */
+    public synchronized void recordEncodedStroke(byte[] src, int off, int len) {
+        ByteBuffer buf = reserve(BinaryCanvasCodecV2.varintSize(len) + len);
+        buf.put(BinaryCanvasCodec.MSG_STROKE);
+        BinaryCanvasCodecV2.putVarint(buf, len);
+        buf.put(src, off, len);
+        size = buf.position();
+    }
+
+    public synchronized void recordClear() {
+        ByteBuffer buf = reserve(0);
+        buf.put(BinaryCanvasCodec.MSG_CLEAR);
+        size = buf.position();
+    }
+
+    public synchronized byte[] toByteArray() {
+        return Arrays.copyOf(bytes, size);
+    }
+
+    /** Buffer positioned at the end, with the event's time delta written and room for type + payload. */
+    private ByteBuffer reserve(int payloadBytes) {
+        long now = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+        int delta = (int) Math.min(Integer.MAX_VALUE, now - lastMillis);
+        lastMillis = now;
+
+        int needed = size + BinaryCanvasCodecV2.varintSize(delta) + 1 + payloadBytes;
+        if (needed > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(needed, bytes.length * 2));
+        }
+        ByteBuffer buf = ByteBuffer.wrap(bytes);
+        buf.position(size);
+        BinaryCanvasCodecV2.putVarint(buf, delta);
+        return buf;
+    }
+
+    /** One replayed event; stroke is null for a clear. */
+    public record Event(long timeMillis, byte type, CanvasStroke stroke) {
+    }
+
+    /**
+     * Reads a journal one event at a time, holding only the current stroke.
+     * Not thread-safe.
+     */
+    public static final class Reader {
+
+        private final InputStream in;
+        private byte[] body = new byte[256];
+        private long timeMillis;
+        private boolean started;
+        private boolean v2Bodies;
+
+        public Reader(InputStream in) {
+            this.in = in;
+        }
+
+        /** The next event, or null at the end of the journal. */
+        public Event next() throws IOException {
+            if (!started) {
+                started = true;
+                int version = in.read();
+                if (version < 0) return null;
+                if (version != FORMAT_VERSION && version != FORMAT_VERSION_V2_BODIES) {
+                    throw new IOException("Unsupported canvas journal version " + version);
+                }
+                v2Bodies = version == FORMAT_VERSION_V2_BODIES;
+            }
+            int first = in.read();
+            if (first < 0) return null;
+            timeMillis += readVarint(first);
+
+            int type = in.read();
+            if (type == BinaryCanvasCodec.MSG_CLEAR) {
+                return new Event(timeMillis, BinaryCanvasCodec.MSG_CLEAR, null);
+            }
+            if (type != BinaryCanvasCodec.MSG_STROKE) {
+                throw new IOException("Corrupt canvas journal: event type " + type);
+            }
+            int length = readVarint(in.read());
+            if (length > body.length) {
+                body = new byte[Math.max(length, body.length * 2)];
+            }
+            if (in.readNBytes(body, 0, length) != length) {
+                throw new EOFException("Truncated canvas journal");
+            }
+            ByteBuffer buf = ByteBuffer.wrap(body, 0, length);
+            CanvasStroke stroke = v2Bodies ? BinaryCanvasCodecV2.readStroke(buf) : BinaryCanvasCodec.readStroke(buf);
+            return new Event(timeMillis, BinaryCanvasCodec.MSG_STROKE, stroke);
+        }
+
+        private int readVarint(int b) throws IOException {
+            int value = 0;
+            for (int shift = 0; shift < 32; shift += 7) {
+                if (b < 0) throw new EOFException("Truncated canvas journal");
+                value |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) return value;
+                b = in.read();
+            }
+            throw new IOException("Corrupt canvas journal: varint too long");
+        }
+    }
+}
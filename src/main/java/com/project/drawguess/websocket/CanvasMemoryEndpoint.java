@@ -0,0 +1,65 @@
+package com.project.drawguess.websocket;
+
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.stereotype.Component;
+
+import com.project.drawguess.service.impl.CanvasStrokeServiceImpl;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Canvas memory budgets at /actuator/canvasmemory: the total against
+ * app.canvas.budget.total-bytes with every room largest first, and
+ * /actuator/canvasmemory/{roomCode} for a single room.
+ *
+ * The list leaves the room codes out: a code is the key to join a private
+ * room, and any signed-in user can read the actuator. A room can still be
+ * looked up by a code the caller already knows.
+ */
+@Component
+@Endpoint(id = "canvasmemory")
+@RequiredArgsConstructor
+public class CanvasMemoryEndpoint {
+
+    /** A room's line in the budget list, without its code. */
+    public record RoomUsage(long retainedBytes, long budgetBytes, int strokeCount, long checkpointedStrokes,
+            boolean overBudget) {
+
+        static RoomUsage of(CanvasStrokeServiceImpl.BudgetState state) {
+            return new RoomUsage(state.retainedBytes(), state.budgetBytes(), state.strokeCount(),
+                    state.checkpointedStrokes(), state.overBudget());
+        }
+    }
+
+    private final CanvasStrokeServiceImpl canvasStrokeService;
+
+    @ReadOperation
+    public Map<String, Object> budgets() {
+        List<CanvasStrokeServiceImpl.BudgetState> rooms = canvasStrokeService.getBudgetStates();
+        rooms.sort(Comparator.comparingLong(CanvasStrokeServiceImpl.BudgetState::retainedBytes).reversed());
+        long total = 0;
+        for (CanvasStrokeServiceImpl.BudgetState room : rooms) {
+            total += room.retainedBytes();
+        }
+        long budget = canvasStrokeService.getTotalBudgetBytes();
+
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("retainedBytes", total);
+        body.put("budgetBytes", budget);
+        body.put("overBudget", budget > 0 && total > budget);
+        body.put("rooms", rooms.stream().map(RoomUsage::of).toList());
+        return body;
+    }
+
+    @ReadOperation
+    public CanvasStrokeServiceImpl.BudgetState room(@Selector String roomCode) {
+        return canvasStrokeService.getBudgetState(roomCode);
+    }
+}
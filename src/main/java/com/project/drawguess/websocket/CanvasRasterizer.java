@@ -0,0 +1,118 @@
+package com.project.drawguess.websocket;
+
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.Path2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+
+import javax.imageio.ImageIO;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Renders strokes into a raster checkpoint with Java2D on the CPU (the JVM
+ * runs headless, which Spring Boot sets by default).
+ *
+ * Stroke coordinates are canvas pixels, so width/height must match the
+ * client canvas; points outside it are clipped. The eraser paints the
+ * background colour, the same as the clients do on their opaque canvas.
+ */
+@Component
+public class CanvasRasterizer {
+
+    private static final int BACKGROUND_RGB = 0xFFFFFF;
+
+    private final int width;
+    private final int height;
+
+    private final Counter checkpoints;
+    private final Timer renderTime;
+
+    public CanvasRasterizer(
+            MeterRegistry meterRegistry,
+            @Value("${app.canvas.checkpoint.width:800}") int width,
+            @Value("${app.canvas.checkpoint.height:600}") int height) {
+        this.width = width;
+        this.height = height;
+        this.checkpoints = meterRegistry.counter("canvas.checkpoint.created");
+        this.renderTime = Timer.builder("canvas.checkpoint.render")
+                .description("Time to draw strokes onto a checkpoint and encode it as PNG")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Draw strokes on top of the previous checkpoint (or a blank canvas) and
+     * return the result as a new checkpoint.
+     */
+    public CanvasCheckpoint render(CanvasCheckpoint base, List<CanvasStroke> strokes) {
+        return renderTime.record(() -> {
+            BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+            Graphics2D g = image.createGraphics();
+            try {
+                g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+                g.setColor(new Color(BACKGROUND_RGB));
+                g.fillRect(0, 0, width, height);
+                if (base != null) {
+                    g.drawImage(decode(base.png()), 0, 0, null);
+                }
+                for (CanvasStroke stroke : strokes) {
+                    draw(g, stroke);
+                }
+            } finally {
+                g.dispose();
+            }
+            long covered = (base != null ? base.coveredStrokes() : 0) + strokes.size();
+            checkpoints.increment();
+            return new CanvasCheckpoint(width, height, encode(image), covered);
+        });
+    }
+
+    private static void draw(Graphics2D g, CanvasStroke stroke) {
+        int n = stroke.pointCount();
+        if (n == 0) return;
+        int lineWidth = Math.max(1, stroke.width());
+        g.setColor(new Color(stroke.toolByte() == CanvasStroke.TOOL_ERASER ? BACKGROUND_RGB : stroke.rgb()));
+
+        if (n == 1) {
+            g.fillOval(stroke.x(0) - lineWidth / 2, stroke.y(0) - lineWidth / 2, lineWidth, lineWidth);
+            return;
+        }
+        g.setStroke(new BasicStroke(lineWidth, BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND));
+        Path2D.Float path = new Path2D.Float(Path2D.WIND_NON_ZERO, n);
+        path.moveTo(stroke.x(0), stroke.y(0));
+        for (int i = 1; i < n; i++) {
+            path.lineTo(stroke.x(i), stroke.y(i));
+        }
+        g.draw(path);
+    }
+
+    private static BufferedImage decode(byte[] png) {
+        try {
+            return ImageIO.read(new ByteArrayInputStream(png));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static byte[] encode(BufferedImage image) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            ImageIO.write(image, "png", out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+}
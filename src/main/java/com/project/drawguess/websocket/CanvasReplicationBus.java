@@ -0,0 +1,42 @@
+package com.project.drawguess.websocket;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Carries canvas changes between nodes so the players of a room can be
+ * spread over several instances. Implementations are chosen with
+ * app.canvas.replication.mode (see CanvasReplicationConfig) and driven by
+ * {@link CanvasReplicator}.
+ *
+ * A node only receives events for rooms it has joined, and never its own.
+ */
+public interface CanvasReplicationBus {
+
+    String nodeId();
+
+    /** Register the handler for events from other nodes; called once before anything else. */
+    void start(Consumer<CanvasReplicationEvent> listener);
+
+    /**
+     * Whether another node may be listening. When false there is nobody to
+     * publish to, so callers skip building events altogether.
+     */
+    boolean hasPeers();
+
+    /** Send an event to the other nodes. Must not block the caller on I/O. */
+    void publish(CanvasReplicationEvent event);
+
+    /**
+     * Start receiving the room's events. Returns the events after the room's
+     * last clear, plus its latest DRAWER event, if the local canvas may be
+     * missing some of them (the caller rebuilds the canvas from them),
+     * otherwise an empty list.
+     */
+    List<CanvasReplicationEvent> join(String roomCode);
+
+    void leave(String roomCode);
+
+    /** The room is closed: drop whatever history the bus keeps for it. */
+    void roomClosed(String roomCode);
+}
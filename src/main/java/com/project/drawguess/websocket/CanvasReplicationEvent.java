@@ -0,0 +1,39 @@
+package com.project.drawguess.websocket;
+
+/**
+ * A canvas change replicated between nodes through the
+ * {@link CanvasReplicationBus}.
+ *
+ * strokeBody is a v1 stroke body (no type byte) and usernameSuffix the
+ * pre-encoded username trailer, both null for CLEAR. transport is the one
+ * the change arrived on; a receiving node relays it to its clients on every
+ * transport through the {@link CanvasEngine}, except for NONE (history only,
+ * e.g. the clear at round start, which clients get from the game messages).
+ *
+ * DRAWER events (always NONE) carry the room's new DrawerIndex entry in
+ * sessionId and drawerEmail, so every node authorizes strokes the same way
+ * as the node running the game; a null sessionId means the session ended or
+ * the room closed. Both fields are null for the other types.
+ */
+public record CanvasReplicationEvent(
+        String nodeId,
+        String roomCode,
+        Type type,
+        Transport transport,
+        byte[] strokeBody,
+        byte[] usernameSuffix,
+        Long sessionId,
+        String drawerEmail) {
+
+    public enum Type {
+        STROKE,
+        CLEAR,
+        DRAWER
+    }
+
+    public enum Transport {
+        BINARY,
+        STOMP,
+        NONE
+    }
+}
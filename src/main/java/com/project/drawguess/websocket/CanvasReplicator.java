@@ -0,0 +1,181 @@
+package com.project.drawguess.websocket;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import com.project.drawguess.service.impl.CanvasStrokeServiceImpl;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Keeps each room's canvas in step across nodes.
+ *
+ * Local changes are published on the {@link CanvasReplicationBus} after they
+ * are applied here. Remote changes are applied to the local stroke store and
+ * then republished as a {@link CanvasReplicationEvent} application event,
+ * which the {@link CanvasEngine} relays to this node's clients.
+ *
+ * A node follows a room while it has at least one client in it (a
+ * connection or a STOMP session, each a "holder"). When it starts following,
+ * the bus may hand back the room's recent history, which replaces the local
+ * canvas and brings the room's DrawerIndex entry up to date.
+ */
+@Component
+@Slf4j
+public class CanvasReplicator {
+
+    private final CanvasReplicationBus bus;
+    private final CanvasStrokeServiceImpl canvasStrokeService;
+    private final ApplicationEventPublisher eventPublisher;
+
+    // holderId → roomCode, and roomCode → its holders; both maps guarded by this
+    private final Map<String, String> holders = new HashMap<>();
+    private final Map<String, Following> following = new HashMap<>();
+
+    public CanvasReplicator(CanvasReplicationBus bus, CanvasStrokeServiceImpl canvasStrokeService,
+            ApplicationEventPublisher eventPublisher) {
+        this.bus = bus;
+        this.canvasStrokeService = canvasStrokeService;
+        this.eventPublisher = eventPublisher;
+        bus.start(this::applyRemote);
+    }
+
+    /**
+     * Follow the room on behalf of a client; a holder is in at most one room.
+     * Joining the bus (and rebuilding from its backlog) happens outside this
+     * object's monitor, under the room's own lock, so a slow bus only holds up
+     * clients of that room.
+     */
+    public void retain(String roomCode, String holderId) {
+        Following room;
+        String previous;
+        synchronized (this) {
+            previous = holders.put(holderId, roomCode);
+            if (roomCode.equals(previous)) return;
+            room = following.computeIfAbsent(roomCode, k -> new Following());
+            room.holders++;
+            if (previous != null) {
+                following.get(previous).holders--;
+            }
+        }
+        if (previous != null) {
+            settle(previous);
+        }
+        settle(roomCode);
+    }
+
+    public void release(String holderId) {
+        String roomCode;
+        synchronized (this) {
+            roomCode = holders.remove(holderId);
+            if (roomCode == null) return;
+            following.get(roomCode).holders--;
+        }
+        settle(roomCode);
+    }
+
+    /** Join or leave the room on the bus to match its holder count. */
+    private void settle(String roomCode) {
+        Following room;
+        synchronized (this) {
+            room = following.get(roomCode);
+        }
+        if (room == null) return;
+        synchronized (room) {
+            if (room.holders > 0 && !room.joined) {
+                room.joined = true;
+                rebuild(roomCode, bus.join(roomCode));
+            } else if (room.holders <= 0 && room.joined) {
+                room.joined = false;
+                bus.leave(roomCode);
+            }
+            if (!room.joined) {
+                synchronized (this) {
+                    if (room.holders <= 0) {
+                        following.remove(roomCode, room);
+                    }
+                }
+            }
+        }
+    }
+
+    private void rebuild(String roomCode, List<CanvasReplicationEvent> backlog) {
+        if (backlog.isEmpty()) return;
+        canvasStrokeService.clearStrokes(roomCode);
+        for (CanvasReplicationEvent event : backlog) {
+            apply(event);
+            if (event.type() == CanvasReplicationEvent.Type.DRAWER) {
+                eventPublisher.publishEvent(event);
+            }
+        }
+        log.info("Rebuilt canvas for room {} from {} replicated events", roomCode, backlog.size());
+    }
+
+    /**
+     * Publish a stroke given as its v1 wire body (no type byte). Nothing is
+     * published (or copied) while the bus has no other node to deliver to.
+     */
+    public void publishStroke(String roomCode, byte[] src, int off, int len, byte[] usernameSuffix,
+            CanvasReplicationEvent.Transport transport) {
+        if (!bus.hasPeers()) return;
+        bus.publish(new CanvasReplicationEvent(bus.nodeId(), roomCode, CanvasReplicationEvent.Type.STROKE,
+                transport, Arrays.copyOfRange(src, off, off + len), usernameSuffix, null, null));
+    }
+
+    /** Publish the stroke a STROKE frame carries, reusing the frame's v1 encoding. */
+    public void publishStroke(String roomCode, CanvasFrame frame, byte[] usernameSuffix,
+            CanvasReplicationEvent.Transport transport) {
+        if (!bus.hasPeers()) return;
+        byte[] v1 = frame.bytesFor(1);
+        publishStroke(roomCode, v1, 1, v1.length - 1 - usernameSuffix.length, usernameSuffix, transport);
+    }
+
+    public void publishClear(String roomCode, CanvasReplicationEvent.Transport transport) {
+        if (!bus.hasPeers()) return;
+        bus.publish(new CanvasReplicationEvent(bus.nodeId(), roomCode, CanvasReplicationEvent.Type.CLEAR,
+                transport, null, null, null, null));
+    }
+
+    /** Drop the room's replicated history; its code may be reused by a new room. */
+    public void roomClosed(String roomCode) {
+        bus.roomClosed(roomCode);
+    }
+
+    /** Publish the room's new drawer entry; a null sessionId removes it. */
+    public void publishDrawer(String roomCode, Long sessionId, String drawerEmail) {
+        if (!bus.hasPeers()) return;
+        bus.publish(new CanvasReplicationEvent(bus.nodeId(), roomCode, CanvasReplicationEvent.Type.DRAWER,
+                CanvasReplicationEvent.Transport.NONE, null, null, sessionId, drawerEmail));
+    }
+
+    private void applyRemote(CanvasReplicationEvent event) {
+        try {
+            apply(event);
+            eventPublisher.publishEvent(event);
+        } catch (RuntimeException e) {
+            log.error("Failed to apply replicated canvas event for room {}: {}", event.roomCode(), e.getMessage());
+        }
+    }
+
+    private void apply(CanvasReplicationEvent event) {
+        switch (event.type()) {
+            case CLEAR -> canvasStrokeService.clearStrokes(event.roomCode());
+            case STROKE -> canvasStrokeService.appendEncodedStroke(event.roomCode(), event.strokeBody(), 0,
+                    event.strokeBody().length);
+            case DRAWER -> {
+                // Not canvas state; DrawerIndex picks it up from the application event
+            }
+        }
+    }
+
+    /** A room this node follows; holders changes under the replicator's monitor, joined under this one's. */
+    private static final class Following {
+        private volatile int holders;
+        private boolean joined;
+    }
+}
@@ -0,0 +1,165 @@
+package com.project.drawguess.websocket;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import io.micrometer.core.instrument.Counter;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Bounded outbound queue for one /ws-canvas-binary connection.
+ *
+ * Broadcasts only enqueue; a drain task on the send executor writes the
+ * messages to the socket, so a slow client backs up its own queue instead of
+ * the drawer's inbound thread. When the queue is full the overflow policy
+ * decides:
+ *   DROP_OLDEST - the queued backlog is dropped and replaced by a resync
+ *                 marker, which is sent as a fresh MSG_STATE when it reaches
+ *                 the head of the queue (strokes queued after the marker may
+ *                 be drawn twice, which is harmless, but none are lost)
+ *   DISCONNECT  - the connection is closed and the client reconnects
+ *
+ * Only the drain task writes to the session and at most one is scheduled at a
+ * time, so sends need no lock (and never pin a virtual carrier thread) and
+ * reach the client in enqueue order. A failed send closes both the queue and
+ * the connection, so the client reconnects instead of silently missing frames.
+ */
+@Slf4j
+public final class CanvasSendQueue {
+
+    public enum OverflowPolicy {
+        DROP_OLDEST,
+        DISCONNECT
+    }
+
+    /** Placeholder for "send the current canvas state"; compared by identity. */
+    private static final WebSocketMessage<?> RESYNC = new BinaryMessage(new byte[0]);
+
+    private final WebSocketSession session;
+    private final Executor executor;
+    private final int maxMessages;
+    private final long maxBytes;
+    private final OverflowPolicy policy;
+    private final Supplier<byte[]> resyncState;
+    private final Counter dropped;
+    private final Counter overflows;
+
+    private final ArrayDeque<WebSocketMessage<?>> queue = new ArrayDeque<>();
+    private long queuedBytes;
+    private boolean draining;
+    private boolean closed;
+
+    CanvasSendQueue(WebSocketSession session, Executor executor, int maxMessages, long maxBytes,
+            OverflowPolicy policy, Supplier<byte[]> resyncState, Counter dropped, Counter overflows) {
+        this.session = session;
+        this.executor = executor;
+        this.maxMessages = maxMessages;
+        this.maxBytes = maxBytes;
+        this.policy = policy;
+        this.resyncState = resyncState;
+        this.dropped = dropped;
+        this.overflows = overflows;
+    }
+
+    public void enqueue(WebSocketMessage<?> msg) {
+        int len = msg.getPayloadLength();
+        boolean disconnect = false;
+        boolean schedule = false;
+        synchronized (this) {
+            if (closed) return;
+            boolean full = !queue.isEmpty()
+                    && (queue.size() >= maxMessages || queuedBytes + len > maxBytes);
+            if (full) {
+                overflows.increment();
+                int droppedCount = queue.size();
+                if (queue.peekFirst() == RESYNC) droppedCount--;
+                dropped.increment(droppedCount);
+                queue.clear();
+                queuedBytes = 0;
+                if (policy == OverflowPolicy.DISCONNECT) {
+                    closed = true;
+                    disconnect = true;
+                } else {
+                    queue.add(RESYNC);
+                }
+            }
+            if (!closed) {
+                queue.add(msg);
+                queuedBytes += len;
+                if (!draining) {
+                    draining = true;
+                    schedule = true;
+                }
+            }
+        }
+        if (disconnect) {
+            log.warn("Canvas send queue overflow, disconnecting session {}", session.getId());
+            executor.execute(this::closeSession);
+        } else if (schedule) {
+            executor.execute(this::drain);
+        }
+    }
+
+    public synchronized int size() {
+        return queue.size();
+    }
+
+    /** Stop accepting messages; anything still queued is discarded. */
+    public synchronized void close() {
+        closed = true;
+        queue.clear();
+        queuedBytes = 0;
+    }
+
+    private void drain() {
+        while (true) {
+            WebSocketMessage<?> msg;
+            synchronized (this) {
+                msg = closed ? null : queue.poll();
+                if (msg == null) {
+                    draining = false;
+                    return;
+                }
+                queuedBytes -= msg.getPayloadLength();
+            }
+            if (msg == RESYNC) {
+                byte[] state;
+                try {
+                    state = resyncState.get();
+                } catch (RuntimeException e) {
+                    // No single-frame state for this canvas; the client resyncs on reconnect
+                    log.warn("Canvas resync failed for session {}: {}", session.getId(), e.getMessage());
+                    close();
+                    closeSession();
+                    continue;
+                }
+                msg = new BinaryMessage(state != null ? state : BinaryCanvasCodec.encodeClear());
+            }
+            try {
+                if (session.isOpen()) {
+                    session.sendMessage(msg);
+                }
+            } catch (IOException | IllegalStateException e) {
+                log.error("Failed to send canvas message to session {}: {}", session.getId(), e.getMessage());
+                close();
+                closeSession();
+            }
+        }
+    }
+
+    private void closeSession() {
+        try {
+            session.close(CloseStatus.SESSION_NOT_RELIABLE);
+        } catch (IOException e) {
+            log.error("Failed to close canvas session {}", session.getId());
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.project.drawguess.websocket;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.WebSocketSession;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Creates the per-connection {@link CanvasSendQueue}s, drained on the
+ * virtual-thread fan-out executor. Queue depth, dropped messages and
+ * overflows are published per room while the room has binary canvas
+ * connections on this node, and removed with its last one:
+ *   canvas.send.queue.depth, canvas.send.dropped, canvas.send.overflows
+ * The "room" tag is the room's database id, not its code: a room code is the
+ * key to join a private room, so it must not show up in /actuator/metrics.
+ */
+@Component
+public class CanvasSendQueues {
+
+    private final MeterRegistry meterRegistry;
+    private final int maxMessages;
+    private final long maxBytes;
+    private final CanvasSendQueue.OverflowPolicy policy;
+    private final VirtualThreadTaskExecutor sendExecutor;
+
+    private final Map<String, RoomQueues> rooms = new ConcurrentHashMap<>();
+
+    public CanvasSendQueues(
+            MeterRegistry meterRegistry,
+            VirtualThreadTaskExecutor fanOutExecutor,
+            @Value("${app.canvas.send-queue.max-messages:256}") int maxMessages,
+            @Value("${app.canvas.send-queue.max-bytes:1048576}") long maxBytes,
+            @Value("${app.canvas.send-queue.overflow-policy:DROP_OLDEST}") CanvasSendQueue.OverflowPolicy policy) {
+        this.meterRegistry = meterRegistry;
+        this.maxMessages = maxMessages;
+        this.maxBytes = maxBytes;
+        this.policy = policy;
+        this.sendExecutor = fanOutExecutor;
+    }
+
+    /**
+     * Create the queue for a new connection to the room with this code and
+     * database id; resyncState supplies its MSG_STATE after drops.
+     */
+    public CanvasSendQueue open(String roomCode, Long roomId, WebSocketSession session,
+            Supplier<byte[]> resyncState) {
+        CanvasSendQueue[] created = new CanvasSendQueue[1];
+        rooms.compute(roomCode, (k, room) -> {
+            if (room == null) room = new RoomQueues(String.valueOf(roomId));
+            created[0] = new CanvasSendQueue(session, sendExecutor, maxMessages, maxBytes, policy,
+                    resyncState, room.dropped, room.overflows);
+            room.queues.put(session.getId(), created[0]);
+            return room;
+        });
+        return created[0];
+    }
+
+    /** Discard a closed connection's queue; the room's meters go with its last connection. */
+    public void close(String roomCode, String sessionId) {
+        rooms.computeIfPresent(roomCode, (k, room) -> {
+            CanvasSendQueue queue = room.queues.remove(sessionId);
+            if (queue != null) queue.close();
+            if (!room.queues.isEmpty()) return room;
+            room.meters.forEach(meterRegistry::remove);
+            return null;
+        });
+    }
+
+    private final class RoomQueues {
+        private final Map<String, CanvasSendQueue> queues = new ConcurrentHashMap<>();
+        private final Counter dropped;
+        private final Counter overflows;
+        private final List<Meter> meters;
+
+        RoomQueues(String roomId) {
+            this.dropped = Counter.builder("canvas.send.dropped")
+                    .description("Queued canvas messages dropped for slow connections")
+                    .tag("room", roomId)
+                    .register(meterRegistry);
+            this.overflows = Counter.builder("canvas.send.overflows")
+                    .description("Send queue overflows (each causes a resync or disconnect)")
+                    .tag("room", roomId)
+                    .register(meterRegistry);
+            Gauge depth = Gauge.builder("canvas.send.queue.depth", this::depth)
+                    .description("Messages waiting in the room's send queues")
+                    .tag("room", roomId)
+                    .register(meterRegistry);
+            this.meters = List.of(dropped, overflows, depth);
+        }
+
+        private int depth() {
+            int total = 0;
+            for (CanvasSendQueue queue : queues.values()) {
+                total += queue.size();
+            }
+            return total;
+        }
+    }
+}
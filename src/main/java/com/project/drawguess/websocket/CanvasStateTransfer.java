@@ -0,0 +1,119 @@
+package com.project.drawguess.websocket;
+
+import java.nio.ByteBuffer;
+
+/**
+ * One chunked, resumable canvas state transfer (STATE_CHUNK frames, see
+ * {@link BinaryCanvasCodec}).
+ *
+ * The transfer pins the room's stroke log and the stroke count / byte length
+ * it had when the transfer started. The log is append-only, so that prefix
+ * never changes and any chunk can be read straight out of it on demand;
+ * nothing is buffered, whatever the canvas size. Strokes appended later reach
+ * the client as ordinary broadcasts. If the log is released (canvas cleared
+ * or compacted) the transfer goes stale and {@link #chunk} returns null.
+ *
+ * The v1 stream is the log bytes as they are; the v2 stream is the log's own
+ * cached v2 encoding (see {@link CanvasStrokeLog#getV2SizeBytes}), so starting
+ * a v2 transfer only transcodes strokes no v2 reader has asked for yet.
+ */
+public final class CanvasStateTransfer {
+
+    private final int id;
+    private final String roomCode;
+    private final int version;
+    private final CanvasStrokeLog log;
+    private final byte[] header;
+    private final long totalLength;
+    private volatile long lastUsedNanos = System.nanoTime();
+
+    private CanvasStateTransfer(int id, String roomCode, int version, CanvasStrokeLog log,
+            int strokeCount, long bodyBytes, CanvasCheckpoint checkpoint) {
+        this.id = id;
+        this.roomCode = roomCode;
+        this.version = version;
+        this.log = log;
+
+        byte[] checkpointHeader = checkpoint != null ? checkpoint.frameHeader() : new byte[0];
+        this.header = new byte[checkpointHeader.length + 1 + 4];
+        System.arraycopy(checkpointHeader, 0, header, 0, checkpointHeader.length);
+        ByteBuffer.wrap(header, checkpointHeader.length, 5)
+                .put(BinaryCanvasCodec.MSG_STATE)
+                .putInt(strokeCount);
+        this.totalLength = header.length + bodyBytes;
+    }
+
+    /**
+     * Start a transfer of the log's current contents (log may be null for
+     * a room with no canvas, giving an empty state). Returns null if the log
+     * was released while the transfer was being set up.
+     */
+    static CanvasStateTransfer open(int id, String roomCode, int version, CanvasStrokeLog log) {
+        if (log == null) {
+            return new CanvasStateTransfer(id, roomCode, version, null, 0, 0, null);
+        }
+        int strokeCount;
+        long bodyBytes;
+        synchronized (log) {
+            if (log.isReleased()) return null;
+            strokeCount = log.getStrokeCount();
+            bodyBytes = version == BinaryCanvasCodecV2.VERSION ? log.getV2SizeBytes() : log.getSizeBytes();
+        }
+        return new CanvasStateTransfer(id, roomCode, version, log, strokeCount, bodyBytes, log.getCheckpoint());
+    }
+
+    public int id() {
+        return id;
+    }
+
+    public String roomCode() {
+        return roomCode;
+    }
+
+    public int version() {
+        return version;
+    }
+
+    public long totalLength() {
+        return totalLength;
+    }
+
+    long lastUsedNanos() {
+        return lastUsedNanos;
+    }
+
+    /**
+     * Build the STATE_CHUNK frame carrying up to maxPayload stream bytes from
+     * offset, or null if the pinned log has been released.
+     */
+    public byte[] chunk(long offset, int maxPayload) {
+        lastUsedNanos = System.nanoTime();
+        int n = (int) Math.min(maxPayload, totalLength - offset);
+        byte[] frame = new byte[BinaryCanvasCodec.STATE_CHUNK_HEADER_BYTES + n];
+        ByteBuffer.wrap(frame)
+                .put(BinaryCanvasCodec.MSG_STATE_CHUNK)
+                .putInt(id)
+                .putInt((int) offset)
+                .putInt((int) totalLength);
+
+        int out = BinaryCanvasCodec.STATE_CHUNK_HEADER_BYTES;
+        long pos = offset;
+        int remaining = n;
+        if (pos < header.length) {
+            int len = (int) Math.min(remaining, header.length - pos);
+            System.arraycopy(header, (int) pos, frame, out, len);
+            out += len;
+            pos += len;
+            remaining -= len;
+        }
+
+        if (remaining > 0) {
+            long bodyPos = pos - header.length;
+            boolean read = version == BinaryCanvasCodecV2.VERSION
+                    ? log.readV2At(bodyPos, frame, out, remaining)
+                    : log.readAt(bodyPos, frame, out, remaining);
+            if (!read) return null;
+        }
+        return frame;
+    }
+}
@@ -0,0 +1,78 @@
+package com.project.drawguess.websocket;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.project.drawguess.service.impl.CanvasStrokeServiceImpl;
+
+/**
+ * Open chunked state transfers, keyed by transfer id rather than by
+ * connection so a client can resume one after reconnecting. Transfers idle
+ * for longer than the TTL are swept away every 30 seconds (and a resume then
+ * starts over), so abandoned transfers don't keep released logs reachable.
+ */
+@Component
+public class CanvasStateTransfers {
+
+    private final CanvasStrokeServiceImpl canvasStrokeService;
+    private final int chunkBytes;
+    private final int chunksPerRequest;
+    private final long ttlNanos;
+
+    private final Map<Integer, CanvasStateTransfer> transfers = new ConcurrentHashMap<>();
+
+    public CanvasStateTransfers(
+            CanvasStrokeServiceImpl canvasStrokeService,
+            @Value("${app.canvas.state-transfer.chunk-bytes:32768}") int chunkBytes,
+            @Value("${app.canvas.state-transfer.chunks-per-request:4}") int chunksPerRequest,
+            @Value("${app.canvas.state-transfer.ttl-seconds:120}") long ttlSeconds) {
+        this.canvasStrokeService = canvasStrokeService;
+        this.chunkBytes = chunkBytes;
+        this.chunksPerRequest = Math.max(1, chunksPerRequest);
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+    }
+
+    public int chunkBytes() {
+        return chunkBytes;
+    }
+
+    public int chunksPerRequest() {
+        return chunksPerRequest;
+    }
+
+    /** Start a transfer of the room's current canvas in the given wire version. */
+    public CanvasStateTransfer start(String roomCode, int version) {
+        while (true) {
+            int id = ThreadLocalRandom.current().nextInt(1, Integer.MAX_VALUE);
+            CanvasStateTransfer transfer = CanvasStateTransfer.open(id, roomCode, version,
+                    canvasStrokeService.getStrokeLog(roomCode));
+            if (transfer == null) continue; // log swapped under us, pin the new one
+            if (transfers.putIfAbsent(id, transfer) == null) return transfer;
+        }
+    }
+
+    /** The open transfer with this id for the room and version, or null. */
+    public CanvasStateTransfer resume(int id, String roomCode, int version) {
+        CanvasStateTransfer transfer = transfers.get(id);
+        if (transfer == null || !transfer.roomCode().equals(roomCode) || transfer.version() != version) {
+            return null;
+        }
+        return transfer;
+    }
+
+    public void finish(CanvasStateTransfer transfer) {
+        transfers.remove(transfer.id(), transfer);
+    }
+
+    @Scheduled(fixedDelay = 30000)
+    public void purgeExpired() {
+        long now = System.nanoTime();
+        transfers.values().removeIf(t -> now - t.lastUsedNanos() > ttlNanos);
+    }
+}
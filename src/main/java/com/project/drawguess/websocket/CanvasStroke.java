@@ -0,0 +1,90 @@
+package com.project.drawguess.websocket;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact in-memory representation of a single canvas stroke.
+ *
+ * Colour is packed as 0xRRGGBB, the tool is the raw wire byte and the points
+ * are stored interleaved (x0, y0, x1, y1, ...) as uint16 values in a short[],
+ * so a decoded stroke costs two objects regardless of its length.
+ *
+ * The bean-style getters (type / tool / color / lineWidth / points) exist only
+ * for the JSON paths (reconnect CANVAS_STATE, round records) and keep the same
+ * shape the Map-based strokes used to serialize to.
+ */
+public final class CanvasStroke {
+
+    public static final byte TOOL_PEN    = 0x00;
+    public static final byte TOOL_ERASER = 0x01;
+
+    private final byte toolByte;
+    private final int rgb;
+    private final int width;
+    private final short[] xy;
+
+    public CanvasStroke(byte toolByte, int rgb, int width, short[] xy) {
+        this.toolByte = toolByte;
+        this.rgb = rgb & 0xFFFFFF;
+        this.width = width & 0xFF;
+        this.xy = xy;
+    }
+
+    public byte toolByte() {
+        return toolByte;
+    }
+
+    public int rgb() {
+        return rgb;
+    }
+
+    public int width() {
+        return width;
+    }
+
+    public int pointCount() {
+        return xy.length >> 1;
+    }
+
+    public int x(int i) {
+        return xy[i << 1] & 0xFFFF;
+    }
+
+    public int y(int i) {
+        return xy[(i << 1) + 1] & 0xFFFF;
+    }
+
+    /** Raw interleaved coordinates; callers must not modify the array. */
+    public short[] coords() {
+        return xy;
+    }
+
+    // --- JSON view (same shape as the legacy Map-based stroke) ---
+
+    public String getType() {
+        return "STROKE";
+    }
+
+    public String getTool() {
+        return toolByte == TOOL_ERASER ? "eraser" : "pen";
+    }
+
+    public String getColor() {
+        return String.format("#%06X", rgb);
+    }
+
+    public int getLineWidth() {
+        return width;
+    }
+
+    public List<Map<String, Integer>> getPoints() {
+        int n = pointCount();
+        List<Map<String, Integer>> points = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            points.add(Map.of("x", x(i), "y", y(i)));
+        }
+        return points;
+    }
+}
@@ -0,0 +1,295 @@
+package com.project.drawguess.websocket;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Append-only log of one room's strokes, stored in wire format
+ * (tool | RGB | lineWidth | pointCount | points — i.e. a client STROKE frame
+ * without its type byte) across pooled direct ByteBuffer chunks.
+ *
+ * Strokes may span chunk boundaries; the log is read back as one contiguous
+ * byte stream, which is exactly the per-stroke section of a MSG_STATE frame.
+ * Once {@link #release()} has been called the chunks belong to the pool again
+ * and further appends are refused.
+ *
+ * A MSG_STATE frame is read out of the chunks when first requested, and
+ * that one array is handed to every request in the same wire version until
+ * the next append (or the release), so clients joining or resyncing between
+ * strokes share one copy. The v2 encoding of the strokes is kept in a second
+ * set of pooled chunks, extended lazily by transcoding only the strokes
+ * appended since the last v2 request.
+ *
+ * A log may start from a raster {@link CanvasCheckpoint} of older strokes
+ * (see {@link #compact}); its state snapshots are then CHECKPOINT frames
+ * carrying the image followed by the STATE of the strokes in the log.
+ */
+public final class CanvasStrokeLog {
+
+    /** The checkpoint, decoded strokes and byte length of a log, read atomically. */
+    public record Contents(CanvasCheckpoint checkpoint, List<CanvasStroke> strokes, long sizeBytes) {
+    }
+
+    private static final int STATE_HEADER_BYTES = 1 + 2;
+
+    /** Largest stroke count a v1 STATE header can carry. */
+    public static final int MAX_V1_STATE_STROKES = 0xFFFF;
+
+    private final DirectBufferPool pool;
+    private final int chunkSize;
+    private final CanvasCheckpoint checkpoint;
+    private final List<ByteBuffer> chunks = new ArrayList<>();
+    private long size;
+    private int strokeCount;
+    private boolean released;
+
+    // v2 transcoding of the first v2StrokeCount strokes (v2LogBytes of the log)
+    private final List<ByteBuffer> v2Chunks = new ArrayList<>();
+    private long v2Size;
+    private int v2StrokeCount;
+    private long v2LogBytes;
+
+    // STATE frames of the current contents, shared until the next append
+    private byte[] state;
+    private byte[] stateV2;
+
+    public CanvasStrokeLog(DirectBufferPool pool) {
+        this(pool, null);
+    }
+
+    public CanvasStrokeLog(DirectBufferPool pool, CanvasCheckpoint checkpoint) {
+        this.pool = pool;
+        this.chunkSize = pool.chunkSize();
+        this.checkpoint = checkpoint;
+    }
+
+    /**
+     * Append one wire-format stroke body. Returns false if the log has
+     * already been released (the caller should retry on a fresh log).
+     */
+    public synchronized boolean append(byte[] src, int off, int len) {
+        if (released) return false;
+        size = write(chunks, size, src, off, len);
+        strokeCount++;
+        state = null;
+        stateV2 = null;
+        return true;
+    }
+
+    /** Copy the whole log into a new array prefixed by headerSpace empty bytes. */
+    public synchronized byte[] toArray(int headerSpace) {
+        byte[] out = new byte[headerSpace + (int) size];
+        read(chunks, 0, out, headerSpace, (int) size);
+        return out;
+    }
+
+    /**
+     * The room's MSG_STATE frame ([1] type | [2] strokeCount | strokes), or
+     * null if the log is empty. With a checkpoint the STATE is prefixed by
+     * the CHECKPOINT header. The array is shared by every caller until the
+     * next append and must not be modified.
+     * Throws IllegalStateException if the stroke count does not fit the v1
+     * uint16 header; such rooms need a chunked state transfer.
+     */
+    public synchronized byte[] stateSnapshot() {
+        if (strokeCount == 0 && checkpoint == null) return null;
+        if (state != null) return state;
+        if (strokeCount > MAX_V1_STATE_STROKES) {
+            throw new IllegalStateException("Canvas has " + strokeCount + " strokes, too many for a v1 STATE frame");
+        }
+        int base = checkpointHeaderBytes();
+        int headerBytes = base + STATE_HEADER_BYTES;
+        byte[] frame = new byte[headerBytes + (int) size];
+        if (base > 0) {
+            System.arraycopy(checkpoint.frameHeader(), 0, frame, 0, base);
+        }
+        frame[base] = BinaryCanvasCodec.MSG_STATE;
+        frame[base + 1] = (byte) (strokeCount >>> 8);
+        frame[base + 2] = (byte) strokeCount;
+        read(chunks, 0, frame, headerBytes, (int) size);
+        state = frame;
+        return frame;
+    }
+
+    /** Same as {@link #stateSnapshot()} but in the v2 wire format. */
+    public synchronized byte[] stateSnapshotV2() {
+        if (strokeCount == 0 && checkpoint == null) return null;
+        if (stateV2 != null) return stateV2;
+        extendV2();
+        int base = checkpointHeaderBytes();
+        int headerBytes = base + BinaryCanvasCodecV2.STATE_HEADER_BYTES;
+        byte[] frame = new byte[headerBytes + (int) v2Size];
+        if (base > 0) {
+            System.arraycopy(checkpoint.frameHeader(), 0, frame, 0, base);
+        }
+        BinaryCanvasCodecV2.putStateHeader(frame, base, strokeCount);
+        read(v2Chunks, 0, frame, headerBytes, (int) v2Size);
+        stateV2 = frame;
+        return frame;
+    }
+
+    /** Transcode the strokes appended since the last v2 request into the v2 chunks. */
+    private void extendV2() {
+        if (v2StrokeCount == strokeCount) return;
+        byte[] tail = new byte[(int) (size - v2LogBytes)];
+        read(chunks, v2LogBytes, tail, 0, tail.length);
+        ByteBuffer in = ByteBuffer.wrap(tail);
+        byte[] encoded = new byte[256];
+        while (v2StrokeCount < strokeCount) {
+            CanvasStroke stroke = BinaryCanvasCodec.readStroke(in);
+            int n = BinaryCanvasCodecV2.strokeSize(stroke);
+            if (n > encoded.length) encoded = new byte[Math.max(n, 2 * encoded.length)];
+            BinaryCanvasCodecV2.writeStroke(ByteBuffer.wrap(encoded, 0, n), stroke);
+            v2Size = write(v2Chunks, v2Size, encoded, 0, n);
+            v2StrokeCount++;
+        }
+        v2LogBytes = size;
+    }
+
+    /** Decode every stroke in the log. Only used by the JSON / round-record paths. */
+    public List<CanvasStroke> strokes() {
+        return contents().strokes();
+    }
+
+    /** The checkpoint plus every stroke after it, decoded outside the lock. */
+    public Contents contents() {
+        ByteBuffer buf;
+        int count;
+        synchronized (this) {
+            buf = ByteBuffer.wrap(toArray(0));
+            count = strokeCount;
+        }
+        List<CanvasStroke> strokes = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            strokes.add(BinaryCanvasCodec.readStroke(buf));
+        }
+        return new Contents(checkpoint, strokes, buf.capacity());
+    }
+
+    /**
+     * Build the log that replaces this one once the first coveredBytes of it
+     * have been rasterized into the given checkpoint: the new log starts from
+     * the checkpoint and holds only the strokes appended after that point.
+     * Returns null if this log has been released. Callers hold this log's
+     * monitor across compact(), installing the result and {@link #release()},
+     * so no append can land in between.
+     */
+    public synchronized CanvasStrokeLog compact(long coveredBytes, int coveredStrokes, CanvasCheckpoint next) {
+        if (released) return null;
+        CanvasStrokeLog compacted = new CanvasStrokeLog(pool, next);
+        int tailBytes = (int) (size - coveredBytes);
+        if (tailBytes > 0) {
+            byte[] tail = new byte[tailBytes];
+            read(chunks, coveredBytes, tail, 0, tailBytes);
+            compacted.append(tail, 0, tailBytes);
+            compacted.strokeCount = strokeCount - coveredStrokes;
+        }
+        return compacted;
+    }
+
+    /**
+     * Copy len bytes starting at pos into dst. Returns false if the log has
+     * been released or the range is past its end, so streaming readers can
+     * detect a cleared or compacted canvas.
+     */
+    public synchronized boolean readAt(long pos, byte[] dst, int dstOff, int len) {
+        if (released || pos + len > size) return false;
+        read(chunks, pos, dst, dstOff, len);
+        return true;
+    }
+
+    public synchronized boolean isReleased() {
+        return released;
+    }
+
+    public CanvasCheckpoint getCheckpoint() {
+        return checkpoint;
+    }
+
+    public synchronized int getStrokeCount() {
+        return strokeCount;
+    }
+
+    public synchronized long getSizeBytes() {
+        return size;
+    }
+
+    /** Byte length of the v2 encoding of every stroke in the log, transcoding any new ones first. */
+    public synchronized long getV2SizeBytes() {
+        extendV2();
+        return v2Size;
+    }
+
+    /** {@link #readAt} for the v2 encoding; pos must be within a length returned by {@link #getV2SizeBytes}. */
+    public synchronized boolean readV2At(long pos, byte[] dst, int dstOff, int len) {
+        if (released || pos + len > v2Size) return false;
+        read(v2Chunks, pos, dst, dstOff, len);
+        return true;
+    }
+
+    /**
+     * Memory held for this log: its pooled chunks and v2 chunks (whole
+     * chunks, used or not), the shared STATE frames and the checkpoint image.
+     */
+    public synchronized long retainedBytes() {
+        long bytes = (long) (chunks.size() + v2Chunks.size()) * chunkSize;
+        if (state != null) bytes += state.length;
+        if (stateV2 != null) bytes += stateV2.length;
+        if (checkpoint != null) bytes += checkpoint.retainedBytes();
+        return bytes;
+    }
+
+    /** Return all chunks to the pool. The log is unusable afterwards. */
+    public synchronized void release() {
+        if (released) return;
+        released = true;
+        for (ByteBuffer chunk : chunks) {
+            pool.release(chunk);
+        }
+        for (ByteBuffer chunk : v2Chunks) {
+            pool.release(chunk);
+        }
+        chunks.clear();
+        v2Chunks.clear();
+        size = 0;
+        v2Size = 0;
+        strokeCount = 0;
+        v2StrokeCount = 0;
+        v2LogBytes = 0;
+        state = null;
+        stateV2 = null;
+    }
+
+    private int checkpointHeaderBytes() {
+        return checkpoint == null ? 0 : checkpoint.frameHeader().length;
+    }
+
+    /** Append len bytes to a chunk list holding size bytes; returns the new size. */
+    private long write(List<ByteBuffer> target, long size, byte[] src, int off, int len) {
+        while (len > 0) {
+            if (size == (long) target.size() * chunkSize) {
+                target.add(pool.acquire());
+            }
+            int within = (int) (size % chunkSize);
+            int n = Math.min(len, chunkSize - within);
+            target.get(target.size() - 1).put(within, src, off, n);
+            size += n;
+            off += n;
+            len -= n;
+        }
+        return size;
+    }
+
+    private void read(List<ByteBuffer> source, long pos, byte[] dst, int dstOff, int len) {
+        while (len > 0) {
+            int chunkIndex = (int) (pos / chunkSize);
+            int within = (int) (pos % chunkSize);
+            int n = Math.min(len, chunkSize - within);
+            source.get(chunkIndex).get(within, dst, dstOff, n);
+            pos += n;
+            dstOff += n;
+            len -= n;
+        }
+    }
+}
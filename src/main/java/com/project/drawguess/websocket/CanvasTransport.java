@@ -0,0 +1,20 @@
+package com.project.drawguess.websocket;
+
+/**
+ * A client-facing transport plugged into the {@link CanvasEngine}: the
+ * engine hands it every canvas frame of a room once, already encoded
+ * (lazily per wire version, see {@link CanvasFrame}), and the transport
+ * only writes the bytes its clients need.
+ */
+public interface CanvasTransport {
+
+    /** Which transport this is, so a stroke can be kept from the one it arrived on. */
+    CanvasReplicationEvent.Transport kind();
+
+    /**
+     * Send the frame to the room's clients on this transport, except the
+     * connection excludeKey (the sender, may be null) where the transport
+     * can address connections individually.
+     */
+    void deliver(String roomCode, CanvasFrame frame, String excludeKey);
+}
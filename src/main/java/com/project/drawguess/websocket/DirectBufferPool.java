@@ -0,0 +1,64 @@
+package com.project.drawguess.websocket;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Pool of fixed-size direct ByteBuffers backing the per-room stroke logs.
+ *
+ * Chunks released by cleared rooms are kept (up to maxPooledChunks) and handed
+ * to the next room that needs one, so canvas data lives off-heap and the
+ * direct memory footprint tracks the strokes currently held, not room churn.
+ */
+@Component
+public class DirectBufferPool {
+
+    private final int chunkSize;
+    private final int maxPooledChunks;
+    private final ConcurrentLinkedQueue<ByteBuffer> free = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pooled = new AtomicInteger();
+    private final AtomicInteger inUse = new AtomicInteger();
+
+    public DirectBufferPool(
+            @Value("${app.canvas.store.chunk-bytes:65536}") int chunkSize,
+            @Value("${app.canvas.store.max-pooled-chunks:256}") int maxPooledChunks) {
+        this.chunkSize = chunkSize;
+        this.maxPooledChunks = maxPooledChunks;
+    }
+
+    public int chunkSize() {
+        return chunkSize;
+    }
+
+    public ByteBuffer acquire() {
+        inUse.incrementAndGet();
+        ByteBuffer buf = free.poll();
+        if (buf != null) {
+            pooled.decrementAndGet();
+            return buf;
+        }
+        return ByteBuffer.allocateDirect(chunkSize);
+    }
+
+    public void release(ByteBuffer buf) {
+        inUse.decrementAndGet();
+        if (pooled.incrementAndGet() <= maxPooledChunks) {
+            buf.clear();
+            free.offer(buf);
+        } else {
+            pooled.decrementAndGet(); // let GC reclaim it
+        }
+    }
+
+    public int getChunksInUse() {
+        return inUse.get();
+    }
+
+    public int getChunksPooled() {
+        return pooled.get();
+    }
+}
@@ -0,0 +1,82 @@
+package com.project.drawguess.websocket;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Replication between buses in the same JVM, delivered synchronously.
+ *
+ * The default (app.canvas.replication.mode=in-process) is a single node on a
+ * network of its own, so nothing leaves the node. Several buses sharing one
+ * {@link Network} behave like separate nodes, which is how the replication
+ * path can be exercised without Redis. Only live events are relayed: join
+ * never returns history.
+ */
+public class InProcessCanvasReplicationBus implements CanvasReplicationBus {
+
+    /** The set of buses that see each other's events. */
+    public static final class Network {
+        private final List<InProcessCanvasReplicationBus> nodes = new CopyOnWriteArrayList<>();
+    }
+
+    private final String nodeId;
+    private final Network network;
+    private final Set<String> joinedRooms = ConcurrentHashMap.newKeySet();
+    private volatile Consumer<CanvasReplicationEvent> listener;
+
+    public InProcessCanvasReplicationBus(String nodeId, Network network) {
+        this.nodeId = nodeId;
+        this.network = network;
+        network.nodes.add(this);
+    }
+
+    @Override
+    public String nodeId() {
+        return nodeId;
+    }
+
+    @Override
+    public boolean hasPeers() {
+        return network.nodes.size() > 1;
+    }
+
+    @Override
+    public void start(Consumer<CanvasReplicationEvent> listener) {
+        this.listener = listener;
+    }
+
+    @Override
+    public void publish(CanvasReplicationEvent event) {
+        for (InProcessCanvasReplicationBus node : network.nodes) {
+            if (node != this) {
+                node.deliver(event);
+            }
+        }
+    }
+
+    @Override
+    public List<CanvasReplicationEvent> join(String roomCode) {
+        joinedRooms.add(roomCode);
+        return List.of();
+    }
+
+    @Override
+    public void leave(String roomCode) {
+        joinedRooms.remove(roomCode);
+    }
+
+    /** Nothing is kept between events. */
+    @Override
+    public void roomClosed(String roomCode) {
+    }
+
+    private void deliver(CanvasReplicationEvent event) {
+        Consumer<CanvasReplicationEvent> target = listener;
+        if (target != null && joinedRooms.contains(event.roomCode())) {
+            target.accept(event);
+        }
+    }
+}
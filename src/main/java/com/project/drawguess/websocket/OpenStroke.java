@@ -0,0 +1,86 @@
+package com.project.drawguess.websocket;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import com.project.drawguess.game.DrawerIndex;
+
+/**
+ * The stroke a drawer is streaming with BEGIN/APPEND/END segments (see
+ * {@link BinaryCanvasCodec}). One instance lives per connection and is reused
+ * for every stroke it draws: the point buffer only grows, so appending a
+ * segment copies its points and allocates nothing once the buffer has reached
+ * the drawer's usual stroke length.
+ *
+ * A connection's frames are handled one at a time, so this is not thread-safe.
+ */
+final class OpenStroke {
+
+    private static final int INITIAL_COORDS = 256;
+
+    private boolean open;
+    private DrawerIndex.RoomDrawer drawer;
+    private int strokeId;
+    private byte toolByte;
+    private int rgb;
+    private int width;
+    private short[] xy = new short[INITIAL_COORDS];
+    private int coordCount;
+
+    /**
+     * Start a stroke from a BEGIN frame, discarding any stroke still open.
+     * drawer is the room's {@link DrawerIndex} entry that allowed it.
+     */
+    void begin(byte[] data, DrawerIndex.RoomDrawer drawer) {
+        this.drawer = drawer;
+        ByteBuffer buf = ByteBuffer.wrap(data, 1, BinaryCanvasCodec.STROKE_BEGIN_BYTES - 1);
+        strokeId = buf.getShort() & 0xFFFF;
+        toolByte = buf.get() == CanvasStroke.TOOL_ERASER ? CanvasStroke.TOOL_ERASER : CanvasStroke.TOOL_PEN;
+        rgb = ((buf.get() & 0xFF) << 16) | ((buf.get() & 0xFF) << 8) | (buf.get() & 0xFF);
+        width = buf.get() & 0xFF;
+        coordCount = 0;
+        open = true;
+    }
+
+    boolean isOpen(int id) {
+        return open && strokeId == id;
+    }
+
+    boolean isOpen() {
+        return open;
+    }
+
+    DrawerIndex.RoomDrawer drawer() {
+        return drawer;
+    }
+
+    int strokeId() {
+        return strokeId;
+    }
+
+    int pointCount() {
+        return coordCount >> 1;
+    }
+
+    /** Append the points of an APPEND frame already checked by {@link BinaryCanvasCodec#checkStrokeAppend}. */
+    void append(byte[] data, int pointCount) {
+        int needed = coordCount + 2 * pointCount;
+        if (needed > xy.length) {
+            xy = Arrays.copyOf(xy, Math.max(needed, xy.length * 2));
+        }
+        ByteBuffer.wrap(data, BinaryCanvasCodec.STROKE_APPEND_HEADER_BYTES, 4 * pointCount)
+                .asShortBuffer()
+                .get(xy, coordCount, 2 * pointCount);
+        coordCount = needed;
+    }
+
+    /**
+     * Close the stroke and return it, or null if no points were appended. The
+     * returned stroke gets its own copy of the points; the buffer is kept.
+     */
+    CanvasStroke finish() {
+        open = false;
+        if (coordCount == 0) return null;
+        return new CanvasStroke(toolByte, rgb, width, Arrays.copyOf(xy, coordCount));
+    }
+}
@@ -0,0 +1,288 @@
+package com.project.drawguess.websocket;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.connection.Limit;
+import org.springframework.data.redis.connection.RedisStreamCommands.XAddOptions;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.connection.stream.ReadOffset;
+import org.springframework.data.redis.connection.stream.RecordId;
+import org.springframework.data.redis.connection.stream.StreamOffset;
+import org.springframework.data.redis.connection.stream.StreamReadOptions;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StreamOperations;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Replication through one Redis stream per room (key prefix + room code),
+ * trimmed to roughly max-len entries. Each publish resets the stream's
+ * expiry to ttl, and the stream is deleted when the room closes, so streams
+ * of rooms nobody draws in any more don't pile up in Redis.
+ *
+ * Publishing is handed to a single background thread, so a stroke never
+ * waits for Redis and events keep their order. One reader thread tails the
+ * streams of every joined room with a single blocking XREAD and hands events
+ * from other nodes to the listener in stream order.
+ *
+ * join() remembers the last entry id whose effect the local canvas already
+ * has (published here or consumed); if the stream has moved past it, the
+ * entries after the stream's last CLEAR (and its latest DRAWER entry) are
+ * returned so the caller can rebuild the canvas and the drawer. History
+ * older than the trimmed stream is lost, as are raster checkpoints, which
+ * stay node-local. The id is dropped when the room closes here, or once the
+ * room is not joined and the id is older than ttl: by then the stream has
+ * expired, so the id can't spare a rebuild.
+ */
+@Slf4j
+public class RedisCanvasReplicationBus implements CanvasReplicationBus, AutoCloseable {
+
+    private static final String F_NODE = "node";
+    private static final String F_TYPE = "type";
+    private static final String F_TRANSPORT = "transport";
+    private static final String F_BODY = "body";
+    private static final String F_USER = "user";
+    private static final String F_SESSION = "session";
+    private static final String F_DRAWER = "drawer";
+
+    private static final int READ_BATCH = 512;
+    private static final long SWEEP_INTERVAL_MILLIS = TimeUnit.SECONDS.toMillis(60);
+
+    private final RedisTemplate<String, byte[]> template;
+    private final StreamOperations<String, String, byte[]> streams;
+    private final String nodeId;
+    private final String keyPrefix;
+    private final long maxLen;
+    private final Duration block;
+    private final Duration ttl;
+
+    private final ExecutorService publisher = Executors.newSingleThreadExecutor(
+            Thread.ofVirtual().name("canvas-replication-publish").factory());
+    // roomCode → id to read after, for joined rooms
+    private final Map<String, String> offsets = new ConcurrentHashMap<>();
+    // roomCode → last id reflected in the local canvas (kept after leave)
+    private final Map<String, String> lastApplied = new ConcurrentHashMap<>();
+    private final AtomicLong lastSweepMillis = new AtomicLong(System.currentTimeMillis());
+    private volatile boolean running;
+    private Thread reader;
+
+    public RedisCanvasReplicationBus(RedisTemplate<String, byte[]> template, String nodeId,
+            String keyPrefix, long maxLen, Duration block, Duration ttl) {
+        this.template = template;
+        this.streams = template.opsForStream();
+        this.nodeId = nodeId;
+        this.keyPrefix = keyPrefix;
+        this.maxLen = maxLen;
+        this.block = block;
+        this.ttl = ttl;
+    }
+
+    @Override
+    public String nodeId() {
+        return nodeId;
+    }
+
+    /** Other nodes may share the Redis server at any time. */
+    @Override
+    public boolean hasPeers() {
+        return true;
+    }
+
+    @Override
+    public synchronized void start(Consumer<CanvasReplicationEvent> listener) {
+        if (running) return;
+        running = true;
+        reader = Thread.ofVirtual().name("canvas-replication-read").start(() -> readLoop(listener));
+    }
+
+    @Override
+    public void publish(CanvasReplicationEvent event) {
+        publisher.execute(() -> {
+            try {
+                String key = keyPrefix + event.roomCode();
+                RecordId id = streams.add(key, encode(event), XAddOptions.maxlen(maxLen).approximateTrimming(true));
+                if (!ttl.isZero()) {
+                    template.expire(key, ttl);
+                }
+                if (id != null) {
+                    lastApplied.put(event.roomCode(), id.getValue());
+                }
+            } catch (RuntimeException e) {
+                log.warn("Canvas replication publish failed for room {}: {}", event.roomCode(), e.getMessage());
+            }
+        });
+    }
+
+    @Override
+    public List<CanvasReplicationEvent> join(String roomCode) {
+        String key = keyPrefix + roomCode;
+        List<CanvasReplicationEvent> backlog = new ArrayList<>();
+        String offset = "0-0";
+        try {
+            List<MapRecord<String, String, byte[]>> latest = streams.reverseRange(key, Range.unbounded(), Limit.limit().count(1));
+            if (!latest.isEmpty()) {
+                offset = latest.get(0).getId().getValue();
+                if (!offset.equals(lastApplied.get(roomCode))) {
+                    List<MapRecord<String, String, byte[]>> all = streams.range(key, Range.unbounded());
+                    for (MapRecord<String, String, byte[]> record : all) {
+                        CanvasReplicationEvent event = decode(roomCode, record.getValue());
+                        if (event.type() == CanvasReplicationEvent.Type.CLEAR) {
+                            // The drawer outlives a clear (the drawer may clear mid-round)
+                            backlog.removeIf(e -> e.type() != CanvasReplicationEvent.Type.DRAWER);
+                        } else {
+                            if (event.type() == CanvasReplicationEvent.Type.DRAWER) {
+                                backlog.removeIf(e -> e.type() == CanvasReplicationEvent.Type.DRAWER);
+                            }
+                            backlog.add(event);
+                        }
+                        offset = record.getId().getValue();
+                    }
+                    // The caller rebuilds from the backlog, which a clear would have emptied
+                    if (backlog.isEmpty()) {
+                        backlog.add(new CanvasReplicationEvent(nodeId, roomCode,
+                                CanvasReplicationEvent.Type.CLEAR, CanvasReplicationEvent.Transport.NONE,
+                                null, null, null, null));
+                    }
+                }
+            }
+        } catch (RuntimeException e) {
+            log.warn("Canvas replication join failed for room {}, following new events only: {}", roomCode, e.getMessage());
+            offset = "$";
+        }
+        lastApplied.put(roomCode, offset);
+        offsets.put(roomCode, offset);
+        return backlog;
+    }
+
+    @Override
+    public void leave(String roomCode) {
+        offsets.remove(roomCode);
+        sweepLastApplied();
+    }
+
+    /** Deleted on the publishing thread, after the room's last events are written. */
+    @Override
+    public void roomClosed(String roomCode) {
+        publisher.execute(() -> {
+            lastApplied.remove(roomCode);
+            try {
+                template.delete(keyPrefix + roomCode);
+            } catch (RuntimeException e) {
+                log.warn("Canvas replication stream delete failed for room {}: {}", roomCode, e.getMessage());
+            }
+        });
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        publisher.shutdown();
+        if (reader != null) {
+            reader.interrupt();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void readLoop(Consumer<CanvasReplicationEvent> listener) {
+        while (running) {
+            try {
+                if (offsets.isEmpty()) {
+                    Thread.sleep(block.toMillis());
+                    continue;
+                }
+                StreamOffset<String>[] positions = offsets.entrySet().stream()
+                        .map(e -> StreamOffset.create(keyPrefix + e.getKey(), ReadOffset.from(e.getValue())))
+                        .toArray(StreamOffset[]::new);
+                List<MapRecord<String, String, byte[]>> records = streams.read(
+                        StreamReadOptions.empty().block(block).count(READ_BATCH), positions);
+                if (records == null) continue;
+
+                for (MapRecord<String, String, byte[]> record : records) {
+                    String roomCode = record.getStream().substring(keyPrefix.length());
+                    String id = record.getId().getValue();
+                    if (offsets.computeIfPresent(roomCode, (k, v) -> id) == null) continue; // left meanwhile
+                    lastApplied.put(roomCode, id);
+                    CanvasReplicationEvent event = decode(roomCode, record.getValue());
+                    if (!nodeId.equals(event.nodeId())) {
+                        listener.accept(event);
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                if (!running) return;
+                log.warn("Canvas replication read failed, retrying: {}", e.getMessage());
+                try {
+                    Thread.sleep(block.toMillis());
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private void sweepLastApplied() {
+        long now = System.currentTimeMillis();
+        long previous = lastSweepMillis.get();
+        if (now - previous < SWEEP_INTERVAL_MILLIS || !lastSweepMillis.compareAndSet(previous, now)) return;
+        long ttlMillis = ttl.isZero() ? Long.MAX_VALUE : ttl.toMillis();
+        lastApplied.entrySet().removeIf(
+                e -> !offsets.containsKey(e.getKey()) && now - idMillis(e.getValue()) > ttlMillis);
+    }
+
+    /** The time part of a stream entry id (milliseconds); 0 for "0-0" or "$". */
+    private static long idMillis(String id) {
+        int dash = id.indexOf('-');
+        try {
+            return Long.parseLong(dash < 0 ? id : id.substring(0, dash));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private static Map<String, byte[]> encode(CanvasReplicationEvent event) {
+        Map<String, byte[]> fields = new HashMap<>();
+        fields.put(F_NODE, event.nodeId().getBytes(StandardCharsets.UTF_8));
+        fields.put(F_TYPE, new byte[]{(byte) event.type().ordinal()});
+        fields.put(F_TRANSPORT, new byte[]{(byte) event.transport().ordinal()});
+        if (event.strokeBody() != null) {
+            fields.put(F_BODY, event.strokeBody());
+            fields.put(F_USER, event.usernameSuffix());
+        }
+        if (event.sessionId() != null) {
+            fields.put(F_SESSION, event.sessionId().toString().getBytes(StandardCharsets.UTF_8));
+        }
+        if (event.drawerEmail() != null) {
+            fields.put(F_DRAWER, event.drawerEmail().getBytes(StandardCharsets.UTF_8));
+        }
+        return fields;
+    }
+
+    private static CanvasReplicationEvent decode(String roomCode, Map<String, byte[]> fields) {
+        return new CanvasReplicationEvent(
+                new String(fields.get(F_NODE), StandardCharsets.UTF_8),
+                roomCode,
+                CanvasReplicationEvent.Type.values()[fields.get(F_TYPE)[0]],
+                CanvasReplicationEvent.Transport.values()[fields.get(F_TRANSPORT)[0]],
+                fields.get(F_BODY),
+                fields.get(F_USER),
+                fields.containsKey(F_SESSION)
+                        ? Long.valueOf(new String(fields.get(F_SESSION), StandardCharsets.UTF_8))
+                        : null,
+                fields.containsKey(F_DRAWER) ? new String(fields.get(F_DRAWER), StandardCharsets.UTF_8) : null);
+    }
+}
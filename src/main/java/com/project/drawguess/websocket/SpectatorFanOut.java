@@ -0,0 +1,171 @@
+package com.project.drawguess.websocket;
+
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.BinaryMessage;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Delivery to read-only /ws-canvas-binary spectators, in two tiers.
+ *
+ * A room's spectators are split into shards of at most shard-size
+ * connections. A broadcast only hands the frame to each shard (tier one, on
+ * the caller's thread: a few queue appends however large the audience);
+ * each shard then copies it into its members' send queues on the fan-out
+ * executor (tier two). Every connection receives the same
+ * {@link CanvasFrame}, so a frame is encoded at most once per wire version
+ * for players and spectators together, and the per-connection
+ * {@link CanvasSendQueue}s keep slow viewers from holding anyone else up.
+ *
+ * A shard delivers its frames one at a time in arrival order, so each
+ * spectator sees frames in broadcast order. Shards are reused as spectators
+ * come and go and are dropped with the room's last spectator.
+ */
+@Component
+public class SpectatorFanOut {
+
+    /** A spectator connection and the queue its messages go through. */
+    public record Spectator(String sessionId, int version, CanvasSendQueue queue) {
+    }
+
+    private final Executor executor;
+    private final int shardSize;
+    private final AtomicInteger total = new AtomicInteger();
+
+    private final Map<String, Audience> rooms = new ConcurrentHashMap<>();
+
+    public SpectatorFanOut(
+            MeterRegistry meterRegistry,
+            VirtualThreadTaskExecutor fanOutExecutor,
+            @Value("${app.spectators.shard-size:256}") int shardSize) {
+        this.executor = fanOutExecutor;
+        this.shardSize = Math.max(1, shardSize);
+        Gauge.builder("canvas.spectators", total, AtomicInteger::get)
+                .description("Connected /ws-canvas-binary spectators")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Add a spectator to its room. The per-room cap is enforced by
+     * SpectatorRegistry, which counts STOMP spectators too.
+     */
+    public void add(String roomCode, Spectator spectator) {
+        rooms.compute(roomCode, (k, audience) -> {
+            if (audience == null) audience = new Audience();
+            audience.add(spectator);
+            return audience;
+        });
+        total.incrementAndGet();
+    }
+
+    public void remove(String roomCode, String sessionId) {
+        boolean[] removed = new boolean[1];
+        rooms.computeIfPresent(roomCode, (k, audience) -> {
+            removed[0] = audience.remove(sessionId);
+            return audience.size == 0 ? null : audience;
+        });
+        if (removed[0]) total.decrementAndGet();
+    }
+
+    public boolean hasSpectators(String roomCode) {
+        return rooms.containsKey(roomCode);
+    }
+
+    /**
+     * Queue the frame for every spectator of the room but skipSessionId (a
+     * spectator that is about to get the state the frame is already part
+     * of), if not null.
+     */
+    public void broadcast(String roomCode, CanvasFrame frame, String skipSessionId) {
+        Audience audience = rooms.get(roomCode);
+        if (audience == null) return;
+        Delivery delivery = new Delivery(frame, skipSessionId);
+        for (Shard shard : audience.shards) {
+            shard.submit(delivery);
+        }
+    }
+
+    private record Delivery(CanvasFrame frame, String skipSessionId) {
+    }
+
+    /** A room's shards; membership changes happen under the rooms map's compute lock. */
+    private final class Audience {
+        private final List<Shard> shards = new CopyOnWriteArrayList<>();
+        private final Map<String, Shard> shardOf = new ConcurrentHashMap<>();
+        private int size;
+
+        void add(Spectator spectator) {
+            Shard target = null;
+            for (Shard shard : shards) {
+                if (shard.members.size() < shardSize) {
+                    target = shard;
+                    break;
+                }
+            }
+            if (target == null) {
+                target = new Shard();
+                shards.add(target);
+            }
+            target.members.put(spectator.sessionId(), spectator);
+            shardOf.put(spectator.sessionId(), target);
+            size++;
+        }
+
+        boolean remove(String sessionId) {
+            Shard shard = shardOf.remove(sessionId);
+            if (shard == null) return false;
+            shard.members.remove(sessionId);
+            size--;
+            return true;
+        }
+    }
+
+    /** Up to shard-size spectators with one ordered delivery task. */
+    private final class Shard {
+        private final Map<String, Spectator> members = new ConcurrentHashMap<>();
+        private final ArrayDeque<Delivery> pending = new ArrayDeque<>();
+        private boolean draining;
+
+        void submit(Delivery delivery) {
+            synchronized (this) {
+                pending.add(delivery);
+                if (draining) return;
+                draining = true;
+            }
+            executor.execute(this::drain);
+        }
+
+        private void drain() {
+            while (true) {
+                Delivery delivery;
+                synchronized (this) {
+                    delivery = pending.poll();
+                    if (delivery == null) {
+                        draining = false;
+                        return;
+                    }
+                }
+                BinaryMessage[] byVersion = new BinaryMessage[BinaryCanvasCodecV2.VERSION + 1];
+                for (Spectator spectator : members.values()) {
+                    if (spectator.sessionId().equals(delivery.skipSessionId())) continue;
+                    int version = spectator.version();
+                    if (byVersion[version] == null) {
+                        byVersion[version] = new BinaryMessage(delivery.frame().bytesFor(version));
+                    }
+                    spectator.queue().enqueue(byVersion[version]);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.project.drawguess.websocket;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Ramer–Douglas–Peucker simplification applied to strokes on ingest, before
+ * they are stored and broadcast.
+ *
+ * Clients send raw pointer samples, so long strokes carry many nearly
+ * collinear points. The tolerance scales with lineWidth (a point that moves
+ * the line by less than a fraction of its own width is invisible), with a
+ * floor for hairline strokes. Short strokes are left alone so they can keep
+ * using the zero-decode relay path.
+ */
+@Component
+public class StrokeSimplifier {
+
+    private final boolean enabled;
+    private final int minPoints;
+    private final double toleranceFactor;
+    private final double minTolerance;
+
+    private final Counter strokesSimplified;
+    private final Counter pointsIn;
+    private final Counter pointsOut;
+
+    public StrokeSimplifier(
+            MeterRegistry meterRegistry,
+            @Value("${app.canvas.simplify.enabled:true}") boolean enabled,
+            @Value("${app.canvas.simplify.min-points:8}") int minPoints,
+            @Value("${app.canvas.simplify.tolerance-factor:0.25}") double toleranceFactor,
+            @Value("${app.canvas.simplify.min-tolerance:0.5}") double minTolerance) {
+        this.enabled = enabled;
+        this.minPoints = Math.max(3, minPoints);
+        this.toleranceFactor = toleranceFactor;
+        this.minTolerance = minTolerance;
+        this.strokesSimplified = meterRegistry.counter("canvas.simplify.strokes");
+        this.pointsIn = meterRegistry.counter("canvas.simplify.points.in");
+        this.pointsOut = meterRegistry.counter("canvas.simplify.points.out");
+    }
+
+    /** Whether a stroke with this many points would go through simplification. */
+    public boolean appliesTo(int pointCount) {
+        return enabled && pointCount >= minPoints;
+    }
+
+    /**
+     * Returns a simplified copy of the stroke, or the same instance if the
+     * stage is disabled, the stroke is too short, or no point could be dropped.
+     */
+    public CanvasStroke simplify(CanvasStroke stroke) {
+        int n = stroke.pointCount();
+        if (!appliesTo(n)) return stroke;
+
+        double tolerance = Math.max(minTolerance, stroke.width() * toleranceFactor);
+        double tolerance2 = tolerance * tolerance;
+
+        boolean[] keep = new boolean[n];
+        keep[0] = true;
+        keep[n - 1] = true;
+        int kept = 2;
+
+        // Explicit stack of [first, last] index pairs; open segments are disjoint so 2n is enough
+        int[] stack = new int[2 * n];
+        int sp = 0;
+        stack[sp++] = 0;
+        stack[sp++] = n - 1;
+
+        while (sp > 0) {
+            int last = stack[--sp];
+            int first = stack[--sp];
+            if (last - first < 2) continue;
+
+            int ax = stroke.x(first), ay = stroke.y(first);
+            int bx = stroke.x(last), by = stroke.y(last);
+            double dx = bx - ax, dy = by - ay;
+            double len2 = dx * dx + dy * dy;
+
+            double maxDist2 = -1;
+            int maxIndex = -1;
+            for (int i = first + 1; i < last; i++) {
+                double px = stroke.x(i) - ax, py = stroke.y(i) - ay;
+                double dist2;
+                if (len2 == 0) {
+                    dist2 = px * px + py * py;
+                } else {
+                    double cross = px * dy - py * dx;
+                    dist2 = cross * cross / len2;
+                }
+                if (dist2 > maxDist2) {
+                    maxDist2 = dist2;
+                    maxIndex = i;
+                }
+            }
+
+            if (maxDist2 > tolerance2) {
+                keep[maxIndex] = true;
+                kept++;
+                stack[sp++] = first;
+                stack[sp++] = maxIndex;
+                stack[sp++] = maxIndex;
+                stack[sp++] = last;
+            }
+        }
+
+        strokesSimplified.increment();
+        pointsIn.increment(n);
+        pointsOut.increment(kept);
+        if (kept == n) return stroke;
+
+        short[] src = stroke.coords();
+        short[] xy = new short[kept * 2];
+        int j = 0;
+        for (int i = 0; i < n; i++) {
+            if (keep[i]) {
+                xy[j++] = src[i << 1];
+                xy[j++] = src[(i << 1) + 1];
+            }
+        }
+        return new CanvasStroke(stroke.toolByte(), stroke.rgb(), stroke.width(), xy);
+    }
+}
@@ -0,0 +1,44 @@
+package com.project.drawguess.websocket;
+
+/**
+ * Classic token bucket: holds up to capacity tokens and refills at
+ * ratePerSecond. Refill is computed lazily from the elapsed time on each
+ * call, so an idle bucket costs nothing.
+ */
+public final class TokenBucket {
+
+    private final double capacity;
+    private final double ratePerNano;
+    private double tokens;
+    private long lastRefillNanos;
+
+    public TokenBucket(double ratePerSecond, double capacity) {
+        this.capacity = capacity;
+        this.ratePerNano = ratePerSecond / 1_000_000_000d;
+        this.tokens = capacity;
+        this.lastRefillNanos = System.nanoTime();
+    }
+
+    /** Take n tokens if available; otherwise take nothing and return false. */
+    public synchronized boolean tryConsume(double n) {
+        refill();
+        if (tokens < n) return false;
+        tokens -= n;
+        return true;
+    }
+
+    /** Put back tokens taken by a tryConsume whose request was then refused elsewhere. */
+    public synchronized void refund(double n) {
+        tokens = Math.min(capacity, tokens + n);
+    }
+
+    public synchronized long idleNanos(long now) {
+        return now - lastRefillNanos;
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        tokens = Math.min(capacity, tokens + (now - lastRefillNanos) * ratePerNano);
+        lastRefillNanos = now;
+    }
+}
@@ -7,6 +7,7 @@ import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
 import org.springframework.stereotype.Component;
 import org.springframework.web.socket.messaging.SessionDisconnectEvent;
 
+import com.project.drawguess.game.SpectatorRegistry;
 import com.project.drawguess.service.impl.RoomServiceImpl;
 
 import lombok.RequiredArgsConstructor;
@@ -17,12 +18,17 @@ import lombok.extern.slf4j.Slf4j;
 @RequiredArgsConstructor
 public class WebSocketEventListener  {
 	private final RoomServiceImpl roomServiceImpl;
+	private final CanvasIngestLimiter ingestLimiter;
+	private final SpectatorRegistry spectatorRegistry;
+	private final CanvasReplicator canvasReplicator;
 
 	@EventListener
 	public void handleWebSocketDisconnectListener(SessionDisconnectEvent event)
 	{
 		StompHeaderAccessor headerAccessor = StompHeaderAccessor.wrap(event.getMessage());
 		String sessionId = headerAccessor.getSessionId();
+		ingestLimiter.release(sessionId);
+		canvasReplicator.release(sessionId);
 
 		Map<String, Object> sessionAttributes = headerAccessor.getSessionAttributes();
 		if (sessionAttributes != null && Boolean.TRUE.equals(sessionAttributes.get("isCanvasConnection"))) {
@@ -30,6 +36,11 @@ public class WebSocketEventListener  {
 			return;
 		}
 
+		if (spectatorRegistry.remove(sessionId)) {
+			log.info("Spectator websocket disconnected: {}", sessionId);
+			return;
+		}
+
 		// event.getUser() is more reliable than headerAccessor.getUser() on disconnect
 		// because Spring stores the principal at the session level, not in the message headers
 		String username = event.getUser() != null ? event.getUser().getName() : null;
@@ -0,0 +1,125 @@
+package com.project.drawguess.game;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+import com.project.drawguess.scheduler.GameTimerService;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class ChatBroadcasterTest {
+
+	private final SimpMessagingTemplate messagingTemplate = mock(SimpMessagingTemplate.class);
+	private final GameTimerService gameTimers = mock(GameTimerService.class);
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private final ChatBroadcaster chat = new ChatBroadcaster(messagingTemplate, gameTimers, meterRegistry, 100, 3, 0, 2);
+
+	@Test
+	void loneLineGoesOutAsAChatMessage() {
+		chat.publish("ROOM", "alice", "hello");
+
+		verify(messagingTemplate, never()).convertAndSend(anyString(), any(Object.class));
+		scheduledFlush().run();
+
+		Object payload = sentTo("/topic/room/ROOM");
+		assertThat(payload).isInstanceOf(ChatBroadcaster.ChatMessage.class);
+		ChatBroadcaster.ChatMessage line = (ChatBroadcaster.ChatMessage) payload;
+		assertThat(line.type()).isEqualTo("CHAT_MESSAGE");
+		assertThat(line.username()).isEqualTo("alice");
+		assertThat(line.message()).isEqualTo("hello");
+	}
+
+	@Test
+	void severalLinesGoOutAsOneBatchInOrder() {
+		chat.publish("ROOM", "alice", "one");
+		chat.publish("ROOM", "bob", "two");
+
+		// Only the first line of a window starts the timer
+		Runnable flush = scheduledFlush();
+		flush.run();
+
+		Map<String, Object> batch = batch(sentTo("/topic/room/ROOM"));
+		assertThat(batch).containsEntry("type", "CHAT_BATCH");
+		assertThat(messages(batch)).extracting(ChatBroadcaster.ChatMessage::message).containsExactly("one", "two");
+
+		// The timer finds nothing left once the window has been sent
+		flush.run();
+		verify(messagingTemplate, times(1)).convertAndSend(anyString(), any(Object.class));
+	}
+
+	@Test
+	void maxMessagesFlushesWithoutWaiting() {
+		chat.publish("ROOM", "alice", "one");
+		chat.publish("ROOM", "alice", "two");
+		chat.publish("ROOM", "alice", "three");
+
+		Map<String, Object> batch = batch(sentTo("/topic/room/ROOM"));
+		assertThat(messages(batch)).hasSize(3);
+
+		// A new window starts with the next line
+		chat.publish("ROOM", "alice", "four");
+		verify(gameTimers, times(2)).schedule(eq("chat-flush"), any(Runnable.class), eq(100L), eq(TimeUnit.MILLISECONDS));
+	}
+
+	@Test
+	void flushSendsWhatIsWaitingNow() {
+		chat.publish("ROOM", "alice", "one");
+		chat.publish("OTHER", "bob", "two");
+
+		chat.flush("ROOM");
+
+		verify(messagingTemplate).convertAndSend(eq("/topic/room/ROOM"), any(Object.class));
+		verify(messagingTemplate, never()).convertAndSend(eq("/topic/room/OTHER"), any(Object.class));
+	}
+
+	@Test
+	void rateLimitRefusesPastTheBurst() {
+		assertThat(chat.tryAcquire("alice@example.com")).isTrue();
+		assertThat(chat.tryAcquire("alice@example.com")).isTrue();
+		assertThat(chat.tryAcquire("alice@example.com")).isFalse();
+		assertThat(chat.tryAcquire("bob@example.com")).isTrue();
+
+		ArgumentCaptor<Object> notice = ArgumentCaptor.forClass(Object.class);
+		verify(messagingTemplate).convertAndSendToUser(eq("alice@example.com"), eq("/queue/errors"), notice.capture());
+		assertThat(batch(notice.getValue())).containsEntry("type", "CHAT_RATE_LIMITED");
+		assertThat(meterRegistry.get("chat.rate.limited").counter().count()).isEqualTo(1);
+	}
+
+	private Runnable scheduledFlush() {
+		ArgumentCaptor<Runnable> task = ArgumentCaptor.forClass(Runnable.class);
+		verify(gameTimers).schedule(eq("chat-flush"), task.capture(), anyLong(), any(TimeUnit.class));
+		return task.getValue();
+	}
+
+	private Object sentTo(String destination) {
+		ArgumentCaptor<Object> payload = ArgumentCaptor.forClass(Object.class);
+		verify(messagingTemplate).convertAndSend(eq(destination), payload.capture());
+		return payload.getValue();
+	}
+
+	@SuppressWarnings("unchecked")
+	private static Map<String, Object> batch(Object payload) {
+		assertThat(payload).isInstanceOf(Map.class);
+		return (Map<String, Object>) payload;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static List<ChatBroadcaster.ChatMessage> messages(Map<String, Object> batch) {
+		return (List<ChatBroadcaster.ChatMessage>) batch.get("messages");
+	}
+}
@@ -0,0 +1,77 @@
+package com.project.drawguess.game;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Optional;
+
+import org.junit.jupiter.api.Test;
+
+import com.project.drawguess.enums.SessionStatus;
+import com.project.drawguess.model.Room;
+import com.project.drawguess.repository.SessionRepository;
+import com.project.drawguess.service.RoomCacheService;
+import com.project.drawguess.websocket.CanvasReplicator;
+
+class DrawerIndexTest {
+
+	private final SessionRepository sessionRepository = mock(SessionRepository.class);
+	private final RoomCacheService roomCacheService = mock(RoomCacheService.class);
+
+	@Test
+	void unknownRoomIsLookedUpOncePerMissTtl() {
+		DrawerIndex index = new DrawerIndex(sessionRepository, roomCacheService, mock(CanvasReplicator.class), 60_000);
+
+		assertThat(index.canDraw("NOPE", "alice@example.com")).isFalse();
+		assertThat(index.entry("NOPE")).isNull();
+
+		verify(roomCacheService, times(1)).findByRoomCode("NOPE");
+	}
+
+	@Test
+	void zeroMissTtlLooksUpEveryTime() {
+		DrawerIndex index = new DrawerIndex(sessionRepository, roomCacheService, mock(CanvasReplicator.class), 0);
+
+		index.entry("NOPE");
+		index.entry("NOPE");
+
+		verify(roomCacheService, times(2)).findByRoomCode("NOPE");
+	}
+
+	@Test
+	void openingARoomClearsItsCodesMiss() {
+		DrawerIndex index = new DrawerIndex(sessionRepository, roomCacheService, mock(CanvasReplicator.class), 60_000);
+		index.entry("ROOM");
+		openRoom("ROOM");
+
+		index.roomOpened("ROOM");
+
+		assertThat(index.entry("ROOM")).isEqualTo(new DrawerIndex.RoomDrawer(null, null));
+		assertThat(index.canDraw("ROOM", "alice@example.com")).isTrue();
+	}
+
+	@Test
+	void closedRoomIsAMissAndItsReplicatedHistoryIsDropped() {
+		CanvasReplicator replicator = mock(CanvasReplicator.class);
+		DrawerIndex index = new DrawerIndex(sessionRepository, roomCacheService, replicator, 60_000);
+		openRoom("ROOM");
+		assertThat(index.canDraw("ROOM", "alice@example.com")).isTrue();
+
+		index.roomClosed("ROOM");
+
+		assertThat(index.canDraw("ROOM", "alice@example.com")).isFalse();
+		verify(roomCacheService, times(1)).findByRoomCode("ROOM");
+		verify(replicator).roomClosed("ROOM");
+	}
+
+	private void openRoom(String roomCode) {
+		Room room = new Room();
+		when(roomCacheService.findByRoomCode(roomCode)).thenReturn(room);
+		when(sessionRepository.findByRoomAndStatus(any(), eq(SessionStatus.ACTIVE))).thenReturn(Optional.empty());
+	}
+}
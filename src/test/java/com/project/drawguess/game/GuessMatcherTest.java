@@ -0,0 +1,137 @@
+package com.project.drawguess.game;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+import com.project.drawguess.game.GuessMatcher.Match;
+
+class GuessMatcherTest {
+
+	private static final String ALPHABET = "abcdefghijklmnopqrstuvwxyz";
+
+	@Test
+	void exactIgnoresCaseAndSurroundingWhitespace() {
+		GuessMatcher matcher = new GuessMatcher("Basketball");
+
+		assertThat(matcher.match("basketball")).isEqualTo(Match.EXACT);
+		assertThat(matcher.match("BASKETBALL")).isEqualTo(Match.EXACT);
+		assertThat(matcher.match("  basketball \t\n")).isEqualTo(Match.EXACT);
+	}
+
+	@Test
+	void wordIsTrimmedToo() {
+		assertThat(new GuessMatcher("  cat ").match("cat")).isEqualTo(Match.EXACT);
+	}
+
+	@Test
+	void containsAnywhereInTheLine() {
+		GuessMatcher matcher = new GuessMatcher("basketball");
+
+		assertThat(matcher.match("is it a Basketball?")).isEqualTo(Match.CONTAINS);
+		assertThat(matcher.match("basketballs")).isEqualTo(Match.CONTAINS);
+		assertThat(matcher.match("basketball court")).isEqualTo(Match.CONTAINS);
+	}
+
+	@Test
+	void closeWithinTwoEditsForLongerWords() {
+		GuessMatcher matcher = new GuessMatcher("basketball");
+
+		assertThat(matcher.match("basketbal")).isEqualTo(Match.CLOSE);
+		assertThat(matcher.match("basketbsll")).isEqualTo(Match.CLOSE);
+		assertThat(matcher.match("bassketball")).isEqualTo(Match.CLOSE);
+		assertThat(matcher.match("basktbal")).isEqualTo(Match.CLOSE);
+		assertThat(matcher.match("baskxtbxll")).isEqualTo(Match.CLOSE);
+		assertThat(matcher.match("bsktbal")).isEqualTo(Match.NONE);
+		assertThat(matcher.match("bxskxtbxll")).isEqualTo(Match.NONE);
+	}
+
+	@Test
+	void adjacentTranspositionIsOneEdit() {
+		GuessMatcher matcher = new GuessMatcher("basketball");
+
+		assertThat(matcher.match("baksetball")).isEqualTo(Match.CLOSE);
+		assertThat(matcher.match("abksetbalL")).isEqualTo(Match.CLOSE);
+		assertThat(matcher.match("abksetblal")).isEqualTo(Match.NONE);
+
+		assertThat(new GuessMatcher("cat").match("cta")).isEqualTo(Match.CLOSE);
+	}
+
+	@Test
+	void shortWordsAllowOnlyOneEdit() {
+		GuessMatcher cat = new GuessMatcher("cat");
+		assertThat(cat.match("cut")).isEqualTo(Match.CLOSE);
+		assertThat(cat.match("ct")).isEqualTo(Match.CLOSE);
+		assertThat(cat.match("cats")).isEqualTo(Match.CONTAINS);
+		assertThat(cat.match("cuts")).isEqualTo(Match.NONE);
+		assertThat(cat.match("dog")).isEqualTo(Match.NONE);
+
+		GuessMatcher frog = new GuessMatcher("frog");
+		assertThat(frog.match("frgo")).isEqualTo(Match.CLOSE);
+		assertThat(frog.match("fr")).isEqualTo(Match.NONE);
+
+		GuessMatcher horse = new GuessMatcher("horse");
+		assertThat(horse.match("hrs")).isEqualTo(Match.CLOSE);
+		assertThat(horse.match("hr")).isEqualTo(Match.NONE);
+	}
+
+	@Test
+	void foldsNonAsciiCase() {
+		GuessMatcher matcher = new GuessMatcher("Ärger");
+
+		assertThat(matcher.match("ÄRGER")).isEqualTo(Match.EXACT);
+		assertThat(matcher.match("so viel ärger")).isEqualTo(Match.CONTAINS);
+		assertThat(matcher.match("ärgre")).isEqualTo(Match.CLOSE);
+		assertThat(matcher.match("arger")).isEqualTo(Match.CLOSE);
+
+		// Final and medial sigma fold to the same letter
+		assertThat(new GuessMatcher("οδος").match("ΟΔΟΣ")).isEqualTo(Match.EXACT);
+	}
+
+	@Test
+	void wordsUpToSixtyFourCharactersCanBeClose() {
+		String word = word(64);
+		GuessMatcher matcher = new GuessMatcher(word);
+
+		assertThat(matcher.match(word.substring(0, 63))).isEqualTo(Match.CLOSE);
+		assertThat(matcher.match(word.substring(1))).isEqualTo(Match.CLOSE);
+		assertThat(matcher.match(word.substring(0, 30) + word.substring(31))).isEqualTo(Match.CLOSE);
+	}
+
+	@Test
+	void wordsLongerThanSixtyFourCharactersAreNeverClose() {
+		String word = word(70);
+		GuessMatcher matcher = new GuessMatcher(word);
+
+		assertThat(matcher.match(word.toUpperCase())).isEqualTo(Match.EXACT);
+		assertThat(matcher.match("it's " + word)).isEqualTo(Match.CONTAINS);
+		assertThat(matcher.match(word.substring(0, 69))).isEqualTo(Match.NONE);
+		assertThat(matcher.match(word.substring(0, 30) + "x" + word.substring(31))).isEqualTo(Match.NONE);
+		assertThat(new GuessMatcher(word(65)).match(word(64))).isEqualTo(Match.NONE);
+	}
+
+	@Test
+	void emptyWordMatchesNothing() {
+		GuessMatcher matcher = new GuessMatcher("   ");
+
+		assertThat(matcher.match("")).isEqualTo(Match.NONE);
+		assertThat(matcher.match("anything")).isEqualTo(Match.NONE);
+	}
+
+	@Test
+	void blankOrUnrelatedGuessIsNone() {
+		GuessMatcher matcher = new GuessMatcher("basketball");
+
+		assertThat(matcher.match("")).isEqualTo(Match.NONE);
+		assertThat(matcher.match("   ")).isEqualTo(Match.NONE);
+		assertThat(matcher.match("football")).isEqualTo(Match.NONE);
+	}
+
+	private static String word(int length) {
+		StringBuilder sb = new StringBuilder(length);
+		for (int i = 0; i < length; i++) {
+			sb.append(ALPHABET.charAt(i * 7 % ALPHABET.length()));
+		}
+		return sb.toString();
+	}
+}
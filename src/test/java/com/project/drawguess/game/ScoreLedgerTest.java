@@ -0,0 +1,63 @@
+package com.project.drawguess.game;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+class ScoreLedgerTest {
+
+	@Test
+	void addsUpPointsPerUser() {
+		ScoreLedger ledger = new ScoreLedger();
+
+		ledger.add(1L, 100);
+		ledger.add(1L, 50);
+		ledger.add(2L, 30);
+
+		assertThat(ledger.pending(1L)).isEqualTo(150);
+		assertThat(ledger.pending(2L)).isEqualTo(30);
+		assertThat(ledger.pending(3L)).isZero();
+	}
+
+	@Test
+	void drainTakesEverything() {
+		ScoreLedger ledger = new ScoreLedger();
+		ledger.add(1L, 100);
+		ledger.add(2L, 30);
+
+		Map<Long, Integer> deltas = ledger.drain();
+
+		assertThat(deltas).containsExactlyInAnyOrderEntriesOf(Map.of(1L, 100, 2L, 30));
+		assertThat(ledger.pending(1L)).isZero();
+		assertThat(ledger.drain()).isEmpty();
+	}
+
+	@Test
+	void failedFlushPutsItsDeltasBackForTheRetry() {
+		ScoreLedger ledger = new ScoreLedger();
+		ledger.add(1L, 100);
+		ledger.add(2L, 30);
+
+		Map<Long, Integer> failed = ledger.drain();
+		// Points earned while the failed flush was running
+		ledger.add(1L, 20);
+		ledger.add(3L, 10);
+		ledger.restore(failed);
+
+		assertThat(ledger.pending(1L)).isEqualTo(120);
+		assertThat(ledger.drain()).containsExactlyInAnyOrderEntriesOf(Map.of(1L, 120, 2L, 30, 3L, 10));
+	}
+
+	@Test
+	void drainedMapIsACopy() {
+		ScoreLedger ledger = new ScoreLedger();
+		ledger.add(1L, 100);
+
+		Map<Long, Integer> deltas = ledger.drain();
+		ledger.add(1L, 5);
+
+		assertThat(deltas).containsExactlyEntriesOf(Map.of(1L, 100));
+	}
+}
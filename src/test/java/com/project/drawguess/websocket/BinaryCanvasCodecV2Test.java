@@ -0,0 +1,184 @@
+package com.project.drawguess.websocket;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+class BinaryCanvasCodecV2Test {
+
+	private static final byte[] NO_SUFFIX = new byte[0];
+
+	@Test
+	void paletteColourRoundTrips() {
+		CanvasStroke stroke = new CanvasStroke(CanvasStroke.TOOL_PEN, 0xFF0000, 4,
+				new short[] { 10, 20, 12, 19, 15, 25 });
+
+		byte[] frame = BinaryCanvasCodecV2.encodeStroke(stroke, NO_SUFFIX);
+
+		assertThat(frame[0]).isEqualTo(BinaryCanvasCodec.MSG_STROKE);
+		assertThat(frame[1] & 0x02).as("palette flag").isNotZero();
+		assertThat(frame).hasSize(1 + BinaryCanvasCodecV2.strokeSize(stroke));
+		assertSameStroke(BinaryCanvasCodecV2.decodeClientStroke(frame, frame.length), stroke);
+	}
+
+	@Test
+	void rawColourAndEraserRoundTrip() {
+		CanvasStroke stroke = new CanvasStroke(CanvasStroke.TOOL_ERASER, 0x123456, 30,
+				new short[] { 1, 2, 3, 4 });
+
+		byte[] frame = BinaryCanvasCodecV2.encodeStroke(stroke, NO_SUFFIX);
+
+		assertThat(frame[1] & 0x02).as("palette flag").isZero();
+		assertThat(frame[1] & 0x01).as("eraser flag").isNotZero();
+		assertSameStroke(BinaryCanvasCodecV2.decodeClientStroke(frame, frame.length), stroke);
+	}
+
+	@Test
+	void zigzagDeltasCoverTheWholeCoordinateRange() {
+		CanvasStroke stroke = new CanvasStroke(CanvasStroke.TOOL_PEN, 0x000000, 1, new short[] {
+				(short) 65535, 0,
+				0, (short) 65535,
+				0, 0,
+				(short) 32768, (short) 32767,
+				(short) 32767, (short) 32768 });
+
+		byte[] frame = BinaryCanvasCodecV2.encodeStroke(stroke, NO_SUFFIX);
+
+		assertSameStroke(BinaryCanvasCodecV2.decodeClientStroke(frame, frame.length), stroke);
+	}
+
+	@Test
+	void emptyStrokeRoundTrips() {
+		CanvasStroke stroke = new CanvasStroke(CanvasStroke.TOOL_PEN, 0xFFFFFF, 2, new short[0]);
+
+		byte[] frame = BinaryCanvasCodecV2.encodeStroke(stroke, NO_SUFFIX);
+
+		assertSameStroke(BinaryCanvasCodecV2.decodeClientStroke(frame, frame.length), stroke);
+	}
+
+	@Test
+	void strokeSizeMatchesWhatIsWritten() {
+		CanvasStroke stroke = new CanvasStroke(CanvasStroke.TOOL_PEN, 0xABCDEF, 3,
+				new short[] { 0, 0, 127, 128, 200, 16384, (short) 60000, 5 });
+		ByteBuffer buf = ByteBuffer.allocate(64);
+
+		BinaryCanvasCodecV2.writeStroke(buf, stroke);
+
+		assertThat(buf.position()).isEqualTo(BinaryCanvasCodecV2.strokeSize(stroke));
+		buf.flip();
+		assertSameStroke(BinaryCanvasCodecV2.readStroke(buf), stroke);
+		assertThat(buf.hasRemaining()).isFalse();
+	}
+
+	@Test
+	void varintsAreUnsignedLeb128() {
+		assertThat(BinaryCanvasCodecV2.varintSize(0)).isEqualTo(1);
+		assertThat(BinaryCanvasCodecV2.varintSize(127)).isEqualTo(1);
+		assertThat(BinaryCanvasCodecV2.varintSize(128)).isEqualTo(2);
+		assertThat(BinaryCanvasCodecV2.varintSize(16383)).isEqualTo(2);
+		assertThat(BinaryCanvasCodecV2.varintSize(16384)).isEqualTo(3);
+		assertThat(BinaryCanvasCodecV2.varintSize(-1)).isEqualTo(5);
+
+		ByteBuffer buf = ByteBuffer.allocate(8);
+		BinaryCanvasCodecV2.putVarint(buf, 300);
+		assertThat(Arrays.copyOf(buf.array(), buf.position())).containsExactly(0xAC, 0x02);
+	}
+
+	@Test
+	void pointsAreUnsignedLeb128Varints() {
+		CanvasStroke stroke = new CanvasStroke(CanvasStroke.TOOL_PEN, 0x000000, 4,
+				new short[] { 300, 127, 301, 0 });
+
+		byte[] frame = BinaryCanvasCodecV2.encodeStroke(stroke, NO_SUFFIX);
+
+		// type, flags, palette index, lineWidth, pointCount, x0 = 300, y0 = 127, dx = +1, dy = -127
+		assertThat(frame).containsExactly(BinaryCanvasCodec.MSG_STROKE, 0x02, 0, 4, 2,
+				0xAC, 0x02, 0x7F, 0x02, 0xFD, 0x01);
+	}
+
+	@Test
+	void peekPointCountReadsTheHeaderOnly() {
+		CanvasStroke stroke = new CanvasStroke(CanvasStroke.TOOL_PEN, 0x123456, 3, new short[400]);
+		byte[] frame = BinaryCanvasCodecV2.encodeStroke(stroke, NO_SUFFIX);
+
+		assertThat(BinaryCanvasCodecV2.peekPointCount(frame, frame.length)).isEqualTo(200);
+		assertThat(BinaryCanvasCodecV2.peekPointCount(frame, 7)).isEqualTo(-1);
+		assertThat(BinaryCanvasCodecV2.peekPointCount(frame, 1)).isEqualTo(-1);
+	}
+
+	@Test
+	void truncatedStrokeIsMalformed() {
+		byte[] frame = BinaryCanvasCodecV2.encodeStroke(new CanvasStroke(CanvasStroke.TOOL_PEN, 0xFF0000, 4,
+				new short[] { 10, 20, 300, 400 }), NO_SUFFIX);
+
+		for (int length = 1; length < frame.length; length++) {
+			int truncated = length;
+			assertThatThrownBy(() -> BinaryCanvasCodecV2.decodeClientStroke(frame, truncated))
+					.isInstanceOf(IllegalArgumentException.class);
+		}
+	}
+
+	@Test
+	void trailingBytesAreMalformed() {
+		byte[] frame = BinaryCanvasCodecV2.encodeStroke(new CanvasStroke(CanvasStroke.TOOL_PEN, 0xFF0000, 4,
+				new short[] { 10, 20 }), new byte[] { 0 });
+
+		assertThatThrownBy(() -> BinaryCanvasCodecV2.decodeClientStroke(frame, frame.length))
+				.isInstanceOf(IllegalArgumentException.class)
+				.hasMessageContaining("Trailing");
+	}
+
+	@Test
+	void unknownPaletteIndexIsMalformed() {
+		byte[] frame = { BinaryCanvasCodec.MSG_STROKE, 0x02, 16, 4, 0 };
+
+		assertThatThrownBy(() -> BinaryCanvasCodecV2.decodeClientStroke(frame, frame.length))
+				.isInstanceOf(IllegalArgumentException.class)
+				.hasMessageContaining("palette");
+	}
+
+	@Test
+	void pointCountAboveUint16IsMalformed() {
+		byte[] frame = { BinaryCanvasCodec.MSG_STROKE, 0x02, 0, 4, (byte) 0x80, (byte) 0x80, 0x04 };
+
+		assertThatThrownBy(() -> BinaryCanvasCodecV2.decodeClientStroke(frame, frame.length))
+				.isInstanceOf(IllegalArgumentException.class)
+				.hasMessageContaining("Too many points");
+	}
+
+	@Test
+	void pointOutsideUint16IsMalformed() {
+		// One point, x = 65536
+		byte[] frame = { BinaryCanvasCodec.MSG_STROKE, 0x02, 0, 4, 1, (byte) 0x80, (byte) 0x80, 0x04, 0 };
+		// Two points, the second at x = -1
+		byte[] negative = { BinaryCanvasCodec.MSG_STROKE, 0x02, 0, 4, 2, 0, 0, 1, 0 };
+
+		assertThatThrownBy(() -> BinaryCanvasCodecV2.decodeClientStroke(frame, frame.length))
+				.isInstanceOf(IllegalArgumentException.class)
+				.hasMessageContaining("out of range");
+		assertThatThrownBy(() -> BinaryCanvasCodecV2.decodeClientStroke(negative, negative.length))
+				.isInstanceOf(IllegalArgumentException.class)
+				.hasMessageContaining("out of range");
+	}
+
+	@Test
+	void overlongVarintIsMalformed() {
+		byte[] frame = { BinaryCanvasCodec.MSG_STROKE, 0x02, 0, 4,
+				(byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x01 };
+
+		assertThatThrownBy(() -> BinaryCanvasCodecV2.decodeClientStroke(frame, frame.length))
+				.isInstanceOf(IllegalArgumentException.class)
+				.hasMessageContaining("Varint too long");
+	}
+
+	static void assertSameStroke(CanvasStroke actual, CanvasStroke expected) {
+		assertThat(actual.toolByte()).isEqualTo(expected.toolByte());
+		assertThat(actual.rgb()).isEqualTo(expected.rgb());
+		assertThat(actual.width()).isEqualTo(expected.width());
+		assertThat(actual.coords()).containsExactly(expected.coords());
+	}
+}
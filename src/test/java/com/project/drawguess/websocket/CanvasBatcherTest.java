@@ -0,0 +1,152 @@
+package com.project.drawguess.websocket;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class CanvasBatcherTest {
+
+	private CanvasBatcher batcher;
+
+	// Batches handed to the sink, with the time each was flushed
+	private final BlockingQueue<Flushed> flushed = new LinkedBlockingQueue<>();
+	private final BiConsumer<String, List<CanvasBatcher.Pending>> sink =
+			(roomCode, items) -> flushed.add(new Flushed(roomCode, items, System.nanoTime()));
+
+	private record Flushed(String roomCode, List<CanvasBatcher.Pending> items, long atNanos) {
+	}
+
+	@AfterEach
+	void tearDown() {
+		if (batcher != null) batcher.stop();
+	}
+
+	@Test
+	void zeroWindowDisablesBatching() {
+		batcher = new CanvasBatcher(new SimpleMeterRegistry(), 0, 16384);
+
+		assertThat(batcher.isEnabled()).isFalse();
+	}
+
+	@Test
+	void framesWaitForTheWindowAndFlushTogetherInOrder() throws InterruptedException {
+		batcher = new CanvasBatcher(new SimpleMeterRegistry(), 50, 16384);
+		CanvasFrame first = frame(1, 10);
+		CanvasFrame second = frame(2, 10);
+
+		long start = System.nanoTime();
+		batcher.enqueue("ROOM", first, "a", sink);
+		batcher.enqueue("ROOM", second, null, sink);
+
+		Flushed batch = flushed.poll(5, TimeUnit.SECONDS);
+		assertThat(batch).isNotNull();
+		assertThat(batch.roomCode()).isEqualTo("ROOM");
+		assertThat(batch.items()).extracting(CanvasBatcher.Pending::frame).containsExactly(first, second);
+		assertThat(batch.items()).extracting(CanvasBatcher.Pending::excludeSessionId).containsExactly("a", null);
+		assertThat(batch.atNanos() - start).isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(45));
+		assertThat(flushed.poll(100, TimeUnit.MILLISECONDS)).isNull();
+	}
+
+	@Test
+	void windowStartsWithTheFirstFrameOfABatch() throws InterruptedException {
+		batcher = new CanvasBatcher(new SimpleMeterRegistry(), 100, 16384);
+
+		long start = System.nanoTime();
+		batcher.enqueue("ROOM", frame(1, 10), null, sink);
+		Thread.sleep(60);
+		batcher.enqueue("ROOM", frame(2, 10), null, sink);
+
+		// The second frame waits out what is left of the first one's window, not a window of its own
+		Flushed batch = flushed.poll(5, TimeUnit.SECONDS);
+		assertThat(batch.items()).hasSize(2);
+		assertThat(batch.atNanos() - start).isLessThan(TimeUnit.MILLISECONDS.toNanos(150));
+	}
+
+	@Test
+	void sizeCapFlushesEarly() throws InterruptedException {
+		batcher = new CanvasBatcher(new SimpleMeterRegistry(), 60_000, 100);
+
+		batcher.enqueue("ROOM", frame(1, 60), null, sink);
+		batcher.enqueue("ROOM", frame(2, 60), null, sink);
+
+		Flushed batch = flushed.poll(5, TimeUnit.SECONDS);
+		assertThat(batch).isNotNull();
+		assertThat(batch.items()).hasSize(2);
+	}
+
+	@Test
+	void roomsAreBatchedSeparately() throws InterruptedException {
+		batcher = new CanvasBatcher(new SimpleMeterRegistry(), 20, 16384);
+
+		batcher.enqueue("ONE", frame(1, 10), null, sink);
+		batcher.enqueue("TWO", frame(2, 10), null, sink);
+
+		Flushed a = flushed.poll(5, TimeUnit.SECONDS);
+		Flushed b = flushed.poll(5, TimeUnit.SECONDS);
+		assertThat(List.of(a.roomCode(), b.roomCode())).containsExactlyInAnyOrder("ONE", "TWO");
+		assertThat(a.items()).hasSize(1);
+		assertThat(b.items()).hasSize(1);
+	}
+
+	@Test
+	void flushNowSendsPendingFramesBeforeTheState() throws InterruptedException {
+		batcher = new CanvasBatcher(new SimpleMeterRegistry(), 200, 16384);
+		batcher.enqueue("ROOM", frame(1, 10), null, sink);
+
+		batcher.flushNow("ROOM", sink);
+
+		// Flushed on the calling thread, so a STATE built after this cannot be overtaken by the batch
+		assertThat(flushed).hasSize(1);
+		assertThat(flushed.poll().items()).hasSize(1);
+		assertThat(flushed.poll(400, TimeUnit.MILLISECONDS)).as("the window's timer finds nothing left").isNull();
+
+		batcher.flushNow("ROOM", sink);
+		batcher.flushNow("OTHER", sink);
+		assertThat(flushed).isEmpty();
+	}
+
+	@Test
+	void flushNowWaitsForAFlushInProgress() throws InterruptedException {
+		batcher = new CanvasBatcher(new SimpleMeterRegistry(), 10, 16384);
+		CountDownLatch inSink = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		BiConsumer<String, List<CanvasBatcher.Pending>> slowSink = (roomCode, items) -> {
+			inSink.countDown();
+			try {
+				release.await(5, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			flushed.add(new Flushed(roomCode, items, System.nanoTime()));
+		};
+		batcher.enqueue("ROOM", frame(1, 10), null, slowSink);
+		assertThat(inSink.await(5, TimeUnit.SECONDS)).isTrue();
+		batcher.enqueue("ROOM", frame(2, 10), null, slowSink);
+
+		Thread requester = new Thread(() -> batcher.flushNow("ROOM", sink));
+		requester.start();
+		Thread.sleep(50);
+		assertThat(flushed).isEmpty();
+		release.countDown();
+		requester.join(5000);
+
+		assertThat(flushed.poll(5, TimeUnit.SECONDS).items().get(0).frame().bytesFor(1)[0]).isEqualTo((byte) 1);
+		assertThat(flushed.poll(5, TimeUnit.SECONDS).items().get(0).frame().bytesFor(1)[0]).isEqualTo((byte) 2);
+	}
+
+	private static CanvasFrame frame(int tag, int length) {
+		byte[] bytes = new byte[length];
+		bytes[0] = (byte) tag;
+		return CanvasFrame.ofFixed(bytes);
+	}
+}
@@ -0,0 +1,133 @@
+package com.project.drawguess.websocket;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+import com.project.drawguess.websocket.CanvasIngestLimiter.Verdict;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class CanvasIngestLimiterTest {
+
+	// Long enough that buckets hold the counts below and refill nothing while a test runs
+	private static final double BURST_SECONDS = 100_000;
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	@Test
+	void frameSizeBound() {
+		CanvasIngestLimiter limiter = limiter(10, 1000, 10, 1000);
+
+		assertThat(limiter.frameSizeAllowed(100, "ROOM", "a")).isTrue();
+		assertThat(limiter.frameSizeAllowed(101, "ROOM", "a")).isFalse();
+		assertThat(rejected(Verdict.FRAME_TOO_LARGE)).isEqualTo(1);
+	}
+
+	@Test
+	void tooManyPointsTakesNoTokens() {
+		CanvasIngestLimiter limiter = limiter(1, 1000, 1, 1000);
+
+		assertThat(limiter.checkStroke("ROOM", "a", 11)).isEqualTo(Verdict.TOO_MANY_POINTS);
+		assertThat(limiter.checkStroke("ROOM", "a", 10)).isEqualTo(Verdict.ACCEPT);
+		assertThat(rejected(Verdict.TOO_MANY_POINTS)).isEqualTo(1);
+	}
+
+	@Test
+	void connectionStrokeRate() {
+		CanvasIngestLimiter limiter = limiter(2, 1000, 10, 1000);
+
+		assertThat(limiter.checkStroke("ROOM", "a", 1)).isEqualTo(Verdict.ACCEPT);
+		assertThat(limiter.checkStroke("ROOM", "a", 1)).isEqualTo(Verdict.ACCEPT);
+		assertThat(limiter.checkStroke("ROOM", "a", 1)).isEqualTo(Verdict.CONNECTION_RATE);
+		assertThat(limiter.checkStroke("ROOM", "b", 1)).isEqualTo(Verdict.ACCEPT);
+		assertThat(rejected(Verdict.CONNECTION_RATE)).isEqualTo(1);
+	}
+
+	@Test
+	void connectionPointRateRefundsTheStroke() {
+		CanvasIngestLimiter limiter = limiter(3, 20, 10, 1000);
+
+		assertThat(limiter.checkStroke("ROOM", "a", 10)).isEqualTo(Verdict.ACCEPT);
+		assertThat(limiter.checkStroke("ROOM", "a", 10)).isEqualTo(Verdict.ACCEPT);
+		assertThat(limiter.checkStroke("ROOM", "a", 10)).isEqualTo(Verdict.CONNECTION_RATE);
+		// The refused stroke's stroke token was put back
+		assertThat(limiter.checkStroke("ROOM", "a", 0)).isEqualTo(Verdict.ACCEPT);
+		assertThat(limiter.checkStroke("ROOM", "a", 0)).isEqualTo(Verdict.CONNECTION_RATE);
+	}
+
+	@Test
+	void roomRateRefundsTheConnection() {
+		CanvasIngestLimiter limiter = limiter(3, 1000, 1, 1000);
+
+		assertThat(limiter.checkStroke("ROOM1", "a", 1)).isEqualTo(Verdict.ACCEPT);
+		assertThat(limiter.checkStroke("ROOM1", "b", 1)).isEqualTo(Verdict.ROOM_RATE);
+		assertThat(limiter.checkStroke("ROOM1", "a", 1)).isEqualTo(Verdict.ROOM_RATE);
+
+		// a still has the two strokes ROOM1 refused
+		assertThat(limiter.checkStroke("ROOM2", "a", 1)).isEqualTo(Verdict.ACCEPT);
+		assertThat(limiter.checkStroke("ROOM3", "a", 1)).isEqualTo(Verdict.ACCEPT);
+		assertThat(limiter.checkStroke("ROOM4", "a", 1)).isEqualTo(Verdict.CONNECTION_RATE);
+		assertThat(rejected(Verdict.ROOM_RATE)).isEqualTo(2);
+	}
+
+	@Test
+	void segmentsOnlyDrawOnPoints() {
+		CanvasIngestLimiter limiter = limiter(1, 20, 1, 1000);
+
+		assertThat(limiter.checkStroke("ROOM", "a", 0)).isEqualTo(Verdict.ACCEPT);
+		assertThat(limiter.checkSegment("ROOM", "a", 5, 5)).isEqualTo(Verdict.ACCEPT);
+		assertThat(limiter.checkSegment("ROOM", "a", 5, 10)).isEqualTo(Verdict.ACCEPT);
+		assertThat(limiter.checkSegment("ROOM", "a", 1, 11)).isEqualTo(Verdict.TOO_MANY_POINTS);
+		assertThat(limiter.checkStroke("ROOM", "a", 0)).isEqualTo(Verdict.CONNECTION_RATE);
+	}
+
+	@Test
+	void segmentPointRates() {
+		CanvasIngestLimiter limiter = limiter(10, 8, 10, 12);
+
+		assertThat(limiter.checkSegment("ROOM", "a", 6, 6)).isEqualTo(Verdict.ACCEPT);
+		assertThat(limiter.checkSegment("ROOM", "a", 6, 6)).isEqualTo(Verdict.CONNECTION_RATE);
+		assertThat(limiter.checkSegment("ROOM", "b", 6, 6)).isEqualTo(Verdict.ACCEPT);
+		assertThat(limiter.checkSegment("ROOM", "c", 1, 1)).isEqualTo(Verdict.ROOM_RATE);
+		// c's points were refunded
+		assertThat(limiter.checkSegment("OTHER", "c", 8, 8)).isEqualTo(Verdict.ACCEPT);
+	}
+
+	@Test
+	void releaseForgetsTheConnection() {
+		CanvasIngestLimiter limiter = limiter(1, 1000, 10, 1000);
+
+		assertThat(limiter.checkStroke("ROOM", "a", 1)).isEqualTo(Verdict.ACCEPT);
+		assertThat(limiter.checkStroke("ROOM", "a", 1)).isEqualTo(Verdict.CONNECTION_RATE);
+		limiter.release("a");
+		assertThat(limiter.checkStroke("ROOM", "a", 1)).isEqualTo(Verdict.ACCEPT);
+	}
+
+	@Test
+	void reportedRejectionsAreCounted() {
+		CanvasIngestLimiter limiter = limiter(1, 1000, 1, 1000);
+
+		limiter.reportRejected(Verdict.MALFORMED, "ROOM", "a", "Truncated v2 stroke");
+		limiter.reportRejected(Verdict.MALFORMED, "ROOM", "a", null);
+		limiter.reportRejected(Verdict.NOT_DRAWER, "ROOM", "a", "someone@example.com");
+
+		assertThat(rejected(Verdict.MALFORMED)).isEqualTo(2);
+		assertThat(rejected(Verdict.NOT_DRAWER)).isEqualTo(1);
+	}
+
+	private CanvasIngestLimiter limiter(double connectionStrokes, double connectionPoints,
+			double roomStrokes, double roomPoints) {
+		return new CanvasIngestLimiter(meterRegistry, 100, 10,
+				connectionStrokes / BURST_SECONDS, connectionPoints / BURST_SECONDS,
+				roomStrokes / BURST_SECONDS, roomPoints / BURST_SECONDS,
+				BURST_SECONDS, 10);
+	}
+
+	private double rejected(Verdict verdict) {
+		return meterRegistry.get("canvas.ingest.rejected")
+				.tag("reason", verdict.name().toLowerCase())
+				.counter()
+				.count();
+	}
+}
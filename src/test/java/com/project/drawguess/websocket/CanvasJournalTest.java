@@ -0,0 +1,166 @@
+package com.project.drawguess.websocket;
+
+import static com.project.drawguess.websocket.BinaryCanvasCodecV2Test.assertSameStroke;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+class CanvasJournalTest {
+
+	private static final CanvasStroke RED = new CanvasStroke(CanvasStroke.TOOL_PEN, 0xFF0000, 5,
+			new short[] { 1, 2, 300, 400, 299, 401 });
+	private static final CanvasStroke ERASER = new CanvasStroke(CanvasStroke.TOOL_ERASER, 0x123456, 9,
+			new short[] { 7, 8 });
+
+	@Test
+	void replaysStrokesAndClearsInOrder() throws Exception {
+		CanvasJournal journal = new CanvasJournal();
+		record(journal, RED);
+		Thread.sleep(20);
+		journal.recordClear();
+		record(journal, ERASER);
+
+		CanvasJournal.Reader reader = new CanvasJournal.Reader(new ByteArrayInputStream(journal.toByteArray()));
+
+		CanvasJournal.Event first = reader.next();
+		assertThat(first.type()).isEqualTo(BinaryCanvasCodec.MSG_STROKE);
+		assertSameStroke(first.stroke(), RED);
+
+		CanvasJournal.Event clear = reader.next();
+		assertThat(clear.type()).isEqualTo(BinaryCanvasCodec.MSG_CLEAR);
+		assertThat(clear.stroke()).isNull();
+		assertThat(clear.timeMillis()).isGreaterThanOrEqualTo(first.timeMillis() + 20);
+
+		CanvasJournal.Event last = reader.next();
+		assertThat(last.type()).isEqualTo(BinaryCanvasCodec.MSG_STROKE);
+		assertSameStroke(last.stroke(), ERASER);
+		assertThat(last.timeMillis()).isGreaterThanOrEqualTo(clear.timeMillis());
+
+		assertThat(reader.next()).isNull();
+		assertThat(reader.next()).isNull();
+	}
+
+	@Test
+	void readsFromAStreamOneByteAtATime() throws Exception {
+		CanvasJournal journal = new CanvasJournal();
+		record(journal, new CanvasStroke(CanvasStroke.TOOL_PEN, 0x00FF00, 3, new short[600]));
+		record(journal, RED);
+
+		InputStream trickle = new FilterInputStream(new ByteArrayInputStream(journal.toByteArray())) {
+			@Override
+			public int read(byte[] b, int off, int len) throws IOException {
+				return super.read(b, off, Math.min(len, 1));
+			}
+		};
+		CanvasJournal.Reader reader = new CanvasJournal.Reader(trickle);
+
+		assertThat(reader.next().stroke().pointCount()).isEqualTo(300);
+		assertSameStroke(reader.next().stroke(), RED);
+		assertThat(reader.next()).isNull();
+	}
+
+	@Test
+	void growsPastItsInitialBuffer() throws Exception {
+		CanvasJournal journal = new CanvasJournal();
+		CanvasStroke big = new CanvasStroke(CanvasStroke.TOOL_PEN, 0x0000FF, 2, new short[2000]);
+		for (int i = 0; i < 10; i++) {
+			record(journal, big);
+		}
+
+		CanvasJournal.Reader reader = new CanvasJournal.Reader(new ByteArrayInputStream(journal.toByteArray()));
+		int strokes = 0;
+		for (CanvasJournal.Event event = reader.next(); event != null; event = reader.next()) {
+			assertThat(event.stroke().pointCount()).isEqualTo(1000);
+			strokes++;
+		}
+		assertThat(strokes).isEqualTo(10);
+	}
+
+	@Test
+	void emptyJournalHasNoEvents() throws Exception {
+		byte[] bytes = new CanvasJournal().toByteArray();
+
+		assertThat(bytes).containsExactly(CanvasJournal.FORMAT_VERSION);
+		assertThat(new CanvasJournal.Reader(new ByteArrayInputStream(bytes)).next()).isNull();
+		assertThat(new CanvasJournal.Reader(new ByteArrayInputStream(new byte[0])).next()).isNull();
+	}
+
+	@Test
+	void readsVersionOneJournalsWithV2Bodies() throws Exception {
+		byte[] body = new byte[BinaryCanvasCodecV2.strokeSize(RED)];
+		BinaryCanvasCodecV2.writeStroke(ByteBuffer.wrap(body), RED);
+		ByteBuffer buf = ByteBuffer.allocate(16 + body.length);
+		buf.put((byte) 1);
+		BinaryCanvasCodecV2.putVarint(buf, 250);
+		buf.put(BinaryCanvasCodec.MSG_STROKE);
+		BinaryCanvasCodecV2.putVarint(buf, body.length);
+		buf.put(body);
+		buf.put((byte) 5);
+		buf.put(BinaryCanvasCodec.MSG_CLEAR);
+
+		CanvasJournal.Reader reader = new CanvasJournal.Reader(
+				new ByteArrayInputStream(Arrays.copyOf(buf.array(), buf.position())));
+
+		CanvasJournal.Event stroke = reader.next();
+		assertThat(stroke.timeMillis()).isEqualTo(250);
+		assertSameStroke(stroke.stroke(), RED);
+		CanvasJournal.Event clear = reader.next();
+		assertThat(clear.timeMillis()).isEqualTo(255);
+		assertThat(clear.type()).isEqualTo(BinaryCanvasCodec.MSG_CLEAR);
+		assertThat(reader.next()).isNull();
+	}
+
+	@Test
+	void rejectsUnknownVersion() {
+		CanvasJournal.Reader reader = new CanvasJournal.Reader(new ByteArrayInputStream(new byte[] { 9, 0, 2 }));
+
+		assertThatThrownBy(reader::next)
+				.isInstanceOf(IOException.class)
+				.hasMessageContaining("version 9");
+	}
+
+	@Test
+	void rejectsUnknownEventType() {
+		CanvasJournal.Reader reader = new CanvasJournal.Reader(
+				new ByteArrayInputStream(new byte[] { CanvasJournal.FORMAT_VERSION, 0, 7 }));
+
+		assertThatThrownBy(reader::next)
+				.isInstanceOf(IOException.class)
+				.hasMessageContaining("event type 7");
+	}
+
+	@Test
+	void truncatedStrokeIsAnError() throws Exception {
+		CanvasJournal journal = new CanvasJournal();
+		record(journal, RED);
+		byte[] bytes = journal.toByteArray();
+
+		CanvasJournal.Reader reader = new CanvasJournal.Reader(
+				new ByteArrayInputStream(Arrays.copyOf(bytes, bytes.length - 1)));
+
+		assertThatThrownBy(reader::next).isInstanceOf(EOFException.class);
+	}
+
+	@Test
+	void truncatedLengthIsAnError() {
+		CanvasJournal.Reader reader = new CanvasJournal.Reader(new ByteArrayInputStream(
+				new byte[] { CanvasJournal.FORMAT_VERSION, 0, BinaryCanvasCodec.MSG_STROKE, (byte) 0x80 }));
+
+		assertThatThrownBy(reader::next).isInstanceOf(EOFException.class);
+	}
+
+	private static void record(CanvasJournal journal, CanvasStroke stroke) {
+		byte[] body = new byte[BinaryCanvasCodec.strokeSize(stroke)];
+		BinaryCanvasCodec.writeStroke(ByteBuffer.wrap(body), stroke);
+		journal.recordEncodedStroke(body, 0, body.length);
+	}
+}
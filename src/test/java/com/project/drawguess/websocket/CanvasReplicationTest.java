@@ -0,0 +1,225 @@
+package com.project.drawguess.websocket;
+
+import static com.project.drawguess.websocket.BinaryCanvasCodecV2Test.assertSameStroke;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+import org.junit.jupiter.api.Test;
+
+import com.project.drawguess.enums.SessionStatus;
+import com.project.drawguess.game.DrawerIndex;
+import com.project.drawguess.game.SpectatorRegistry;
+import com.project.drawguess.model.Room;
+import com.project.drawguess.repository.SessionRepository;
+import com.project.drawguess.service.RoomCacheService;
+import com.project.drawguess.service.impl.CanvasStrokeServiceImpl;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Two nodes on one {@link InProcessCanvasReplicationBus.Network}, each with
+ * its own stroke store, replicator, drawer index and engine, wired together
+ * the way the application context wires one node.
+ */
+class CanvasReplicationTest {
+
+	private static final String ROOM = "ROOM";
+	private static final CanvasStroke RED = new CanvasStroke(CanvasStroke.TOOL_PEN, 0xFF0000, 4,
+			new short[] { 10, 20, 30, 40 });
+
+	private final InProcessCanvasReplicationBus.Network network = new InProcessCanvasReplicationBus.Network();
+
+	@Test
+	void strokeReachesTheOtherNodesStoreAndClients() {
+		Node a = new Node(new InProcessCanvasReplicationBus("a", network));
+		Node b = new Node(new InProcessCanvasReplicationBus("b", network));
+		a.replicator.retain(ROOM, "a1");
+		b.replicator.retain(ROOM, "b1");
+
+		CanvasEngine.Result result = a.engine.submitStroke(ROOM, "alice@example.com", "a1",
+				BinaryCanvasCodec.encodeStroke(RED, new byte[0]), 1,
+				BinaryCanvasCodec.encodeUsernameSuffix("alice"), CanvasReplicationEvent.Transport.BINARY);
+
+		assertThat(result).isEqualTo(CanvasEngine.Result.ACCEPTED);
+		assertThat(b.store.getStrokes(ROOM)).singleElement().satisfies(stroke -> assertSameStroke(stroke, RED));
+		assertThat(b.delivered).singleElement()
+				.satisfies(frame -> assertThat(frame.bytesFor(1)).containsExactly(a.delivered.get(0).bytesFor(1)));
+		assertThat(a.received).isEmpty();
+	}
+
+	@Test
+	void clearReachesTheOtherNode() {
+		Node a = new Node(new InProcessCanvasReplicationBus("a", network));
+		Node b = new Node(new InProcessCanvasReplicationBus("b", network));
+		a.replicator.retain(ROOM, "a1");
+		b.replicator.retain(ROOM, "b1");
+		a.drawerIndex.roundStarted(ROOM, 7L, "alice@example.com");
+		a.engine.submitStroke(ROOM, "alice@example.com", "a1", BinaryCanvasCodec.encodeStroke(RED, new byte[0]), 1,
+				BinaryCanvasCodec.encodeUsernameSuffix("alice"), CanvasReplicationEvent.Transport.BINARY);
+
+		CanvasEngine.Result result = a.engine.submitClear(ROOM, "alice@example.com", "a1",
+				CanvasReplicationEvent.Transport.BINARY);
+
+		assertThat(result).isEqualTo(CanvasEngine.Result.ACCEPTED);
+		assertThat(b.store.getStrokeCount(ROOM)).isZero();
+		assertThat(b.delivered).last()
+				.satisfies(frame -> assertThat(frame.bytesFor(1)).containsExactly(BinaryCanvasCodec.encodeClear()));
+	}
+
+	@Test
+	void drawerChangesReachTheOtherNodesIndex() {
+		Node a = new Node(new InProcessCanvasReplicationBus("a", network));
+		Node b = new Node(new InProcessCanvasReplicationBus("b", network));
+		a.replicator.retain(ROOM, "a1");
+		b.replicator.retain(ROOM, "b1");
+
+		a.drawerIndex.roundStarted(ROOM, 7L, "alice@example.com");
+
+		assertThat(b.drawerIndex.isDrawer(ROOM, "alice@example.com")).isTrue();
+		assertThat(b.drawerIndex.canDraw(ROOM, "bob@example.com")).isFalse();
+		assertThat(b.engine.submitStroke(ROOM, "bob@example.com", "b1", BinaryCanvasCodec.encodeStroke(RED, new byte[0]),
+				1, BinaryCanvasCodec.encodeUsernameSuffix("bob"), CanvasReplicationEvent.Transport.BINARY))
+				.isEqualTo(CanvasEngine.Result.NOT_DRAWER);
+
+		a.drawerIndex.roundEnded(ROOM, 7L);
+		assertThat(b.drawerIndex.isDrawer(ROOM, "alice@example.com")).isFalse();
+		assertThat(b.drawerIndex.entry(ROOM)).isEqualTo(new DrawerIndex.RoomDrawer(7L, null));
+	}
+
+	@Test
+	void nodeNotFollowingTheRoomGetsNothing() {
+		Node a = new Node(new InProcessCanvasReplicationBus("a", network));
+		Node b = new Node(new InProcessCanvasReplicationBus("b", network));
+		a.replicator.retain(ROOM, "a1");
+		b.replicator.retain(ROOM, "b1");
+		b.replicator.release("b1");
+
+		a.engine.submitStroke(ROOM, "alice@example.com", "a1", BinaryCanvasCodec.encodeStroke(RED, new byte[0]), 1,
+				BinaryCanvasCodec.encodeUsernameSuffix("alice"), CanvasReplicationEvent.Transport.BINARY);
+
+		assertThat(b.store.getStrokeCount(ROOM)).isZero();
+		assertThat(b.received).isEmpty();
+	}
+
+	@Test
+	void backlogRebuildsTheCanvasOnJoin() {
+		byte[] body = new byte[BinaryCanvasCodec.strokeSize(RED)];
+		BinaryCanvasCodec.writeStroke(ByteBuffer.wrap(body), RED);
+		List<CanvasReplicationEvent> backlog = List.of(
+				new CanvasReplicationEvent("a", ROOM, CanvasReplicationEvent.Type.STROKE,
+						CanvasReplicationEvent.Transport.BINARY, body, BinaryCanvasCodec.encodeUsernameSuffix("alice"),
+						null, null),
+				new CanvasReplicationEvent("a", ROOM, CanvasReplicationEvent.Type.DRAWER,
+						CanvasReplicationEvent.Transport.NONE, null, null, 7L, "alice@example.com"));
+		Node b = new Node(new BacklogBus(backlog));
+		// Something this node drew before it lost track of the room
+		b.store.addStroke(ROOM, new CanvasStroke(CanvasStroke.TOOL_PEN, 0x00FF00, 2, new short[] { 1, 1 }));
+
+		b.replicator.retain(ROOM, "b1");
+
+		assertThat(b.store.getStrokes(ROOM)).singleElement().satisfies(stroke -> assertSameStroke(stroke, RED));
+		assertThat(b.drawerIndex.isDrawer(ROOM, "alice@example.com")).isTrue();
+		// History is not relayed to clients; they fetch the state when they connect
+		assertThat(b.delivered).isEmpty();
+	}
+
+	/** One node's canvas components. */
+	private static final class Node {
+
+		final CanvasStrokeServiceImpl store;
+		final CanvasReplicator replicator;
+		final DrawerIndex drawerIndex;
+		final CanvasEngine engine;
+		final List<CanvasFrame> delivered = new CopyOnWriteArrayList<>();
+		final List<CanvasReplicationEvent> received = new ArrayList<>();
+
+		Node(CanvasReplicationBus bus) {
+			SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+			store = new CanvasStrokeServiceImpl(new DirectBufferPool(4096, 16), mock(CanvasRasterizer.class),
+					meterRegistry);
+
+			RoomCacheService roomCacheService = mock(RoomCacheService.class);
+			Room room = new Room();
+			when(roomCacheService.findByRoomCode(ROOM)).thenReturn(room);
+			SessionRepository sessionRepository = mock(SessionRepository.class);
+			when(sessionRepository.findByRoomAndStatus(any(), eq(SessionStatus.ACTIVE))).thenReturn(Optional.empty());
+
+			// The application events the context would route to the drawer index and the engine
+			List<Consumer<CanvasReplicationEvent>> listeners = new ArrayList<>();
+			replicator = new CanvasReplicator(bus, store, event -> {
+				CanvasReplicationEvent replicated = (CanvasReplicationEvent) event;
+				received.add(replicated);
+				listeners.forEach(listener -> listener.accept(replicated));
+			});
+			drawerIndex = new DrawerIndex(sessionRepository, roomCacheService, replicator, 5000);
+			engine = new CanvasEngine(store, drawerIndex, new SpectatorRegistry(10),
+					new StrokeSimplifier(meterRegistry, true, 8, 0.25, 0.5),
+					new CanvasIngestLimiter(meterRegistry, 32768, 4096, 100, 10000, 100, 10000, 2, 10),
+					replicator);
+			engine.register(new CanvasTransport() {
+				@Override
+				public CanvasReplicationEvent.Transport kind() {
+					return CanvasReplicationEvent.Transport.BINARY;
+				}
+
+				@Override
+				public void deliver(String roomCode, CanvasFrame frame, String excludeKey) {
+					delivered.add(frame);
+				}
+			});
+			listeners.add(drawerIndex::onReplicatedEvent);
+			listeners.add(engine::onReplicatedEvent);
+		}
+	}
+
+	/** A bus with no peers that hands back a fixed history on join, like a Redis stream would. */
+	private static final class BacklogBus implements CanvasReplicationBus {
+
+		private final List<CanvasReplicationEvent> backlog;
+
+		BacklogBus(List<CanvasReplicationEvent> backlog) {
+			this.backlog = backlog;
+		}
+
+		@Override
+		public String nodeId() {
+			return "b";
+		}
+
+		@Override
+		public void start(Consumer<CanvasReplicationEvent> listener) {
+		}
+
+		@Override
+		public boolean hasPeers() {
+			return false;
+		}
+
+		@Override
+		public void publish(CanvasReplicationEvent event) {
+		}
+
+		@Override
+		public List<CanvasReplicationEvent> join(String roomCode) {
+			return backlog;
+		}
+
+		@Override
+		public void leave(String roomCode) {
+		}
+
+		@Override
+		public void roomClosed(String roomCode) {
+		}
+	}
+}
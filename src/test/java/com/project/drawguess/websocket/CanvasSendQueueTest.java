@@ -0,0 +1,211 @@
+package com.project.drawguess.websocket;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class CanvasSendQueueTest {
+
+	private static final byte[] STATE = { BinaryCanvasCodec.MSG_STATE, 0, 0 };
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private final Counter dropped = meterRegistry.counter("dropped");
+	private final Counter overflows = meterRegistry.counter("overflows");
+
+	// Tasks handed to the executor, run when a test says so
+	private final Queue<Runnable> tasks = new ArrayDeque<>();
+	private final Executor executor = tasks::add;
+
+	private final List<byte[]> sent = new ArrayList<>();
+	private WebSocketSession session;
+
+	@BeforeEach
+	void setUp() throws IOException {
+		session = mock(WebSocketSession.class);
+		when(session.getId()).thenReturn("s1");
+		when(session.isOpen()).thenReturn(true);
+		doAnswer(invocation -> {
+			WebSocketMessage<?> msg = invocation.getArgument(0);
+			sent.add(((BinaryMessage) msg).getPayload().array());
+			return null;
+		}).when(session).sendMessage(any());
+	}
+
+	@Test
+	void sendsInEnqueueOrderFromOneDrainTask() {
+		CanvasSendQueue queue = queue(10, 1024, CanvasSendQueue.OverflowPolicy.DROP_OLDEST, () -> STATE);
+
+		queue.enqueue(message(1));
+		queue.enqueue(message(2));
+		queue.enqueue(message(3));
+
+		assertThat(tasks).hasSize(1);
+		runTasks();
+		assertThat(sent).extracting(bytes -> bytes[0]).containsExactly((byte) 1, (byte) 2, (byte) 3);
+		assertThat(queue.size()).isZero();
+
+		queue.enqueue(message(4));
+		assertThat(tasks).hasSize(1);
+		runTasks();
+		assertThat(sent).hasSize(4);
+	}
+
+	@Test
+	void dropOldestReplacesTheBacklogWithAResync() {
+		CanvasSendQueue queue = queue(2, 1024, CanvasSendQueue.OverflowPolicy.DROP_OLDEST, () -> STATE);
+
+		queue.enqueue(message(1));
+		queue.enqueue(message(2));
+		queue.enqueue(message(3));
+
+		assertThat(queue.size()).isEqualTo(2);
+		assertThat(dropped.count()).isEqualTo(2);
+		assertThat(overflows.count()).isEqualTo(1);
+
+		runTasks();
+		assertThat(sent).hasSize(2);
+		assertThat(sent.get(0)).containsExactly(STATE);
+		assertThat(sent.get(1)[0]).isEqualTo((byte) 3);
+	}
+
+	@Test
+	void repeatedOverflowKeepsOneResyncAndDoesNotCountIt() {
+		CanvasSendQueue queue = queue(2, 1024, CanvasSendQueue.OverflowPolicy.DROP_OLDEST, () -> STATE);
+
+		queue.enqueue(message(1));
+		queue.enqueue(message(2));
+		queue.enqueue(message(3)); // [RESYNC, 3]
+		queue.enqueue(message(4)); // [RESYNC, 4]
+
+		assertThat(dropped.count()).isEqualTo(3);
+		assertThat(overflows.count()).isEqualTo(2);
+		runTasks();
+		assertThat(sent).hasSize(2);
+		assertThat(sent.get(0)).containsExactly(STATE);
+		assertThat(sent.get(1)[0]).isEqualTo((byte) 4);
+	}
+
+	@Test
+	void byteBoundAlsoOverflows() {
+		CanvasSendQueue queue = queue(100, 10, CanvasSendQueue.OverflowPolicy.DROP_OLDEST, () -> STATE);
+
+		queue.enqueue(message(1, 6));
+		queue.enqueue(message(2, 6));
+
+		assertThat(overflows.count()).isEqualTo(1);
+		assertThat(dropped.count()).isEqualTo(1);
+	}
+
+	@Test
+	void resyncOfAnEmptyCanvasIsAClear() {
+		CanvasSendQueue queue = queue(1, 1024, CanvasSendQueue.OverflowPolicy.DROP_OLDEST, () -> null);
+
+		queue.enqueue(message(1));
+		queue.enqueue(message(2));
+		runTasks();
+
+		assertThat(sent.get(0)).containsExactly(BinaryCanvasCodec.encodeClear());
+	}
+
+	@Test
+	void failedResyncClosesTheConnection() throws IOException {
+		CanvasSendQueue queue = queue(1, 1024, CanvasSendQueue.OverflowPolicy.DROP_OLDEST, () -> {
+			throw new IllegalStateException("too many strokes");
+		});
+
+		queue.enqueue(message(1));
+		queue.enqueue(message(2));
+		runTasks();
+
+		assertThat(sent).isEmpty();
+		verify(session).close(CloseStatus.SESSION_NOT_RELIABLE);
+	}
+
+	@Test
+	void disconnectPolicyClosesTheConnectionOnOverflow() throws IOException {
+		CanvasSendQueue queue = queue(2, 1024, CanvasSendQueue.OverflowPolicy.DISCONNECT, () -> STATE);
+
+		queue.enqueue(message(1));
+		queue.enqueue(message(2));
+		queue.enqueue(message(3));
+		queue.enqueue(message(4));
+
+		assertThat(queue.size()).isZero();
+		assertThat(dropped.count()).isEqualTo(2);
+		runTasks();
+		assertThat(sent).isEmpty();
+		verify(session).close(CloseStatus.SESSION_NOT_RELIABLE);
+	}
+
+	@Test
+	void failedSendClosesQueueAndConnection() throws IOException {
+		doThrow(new IOException("broken pipe")).when(session).sendMessage(any());
+		CanvasSendQueue queue = queue(10, 1024, CanvasSendQueue.OverflowPolicy.DROP_OLDEST, () -> STATE);
+
+		queue.enqueue(message(1));
+		queue.enqueue(message(2));
+		runTasks();
+
+		verify(session).close(CloseStatus.SESSION_NOT_RELIABLE);
+		assertThat(queue.size()).isZero();
+		queue.enqueue(message(3));
+		assertThat(tasks).isEmpty();
+	}
+
+	@Test
+	void closedQueueDiscardsEverything() throws IOException {
+		CanvasSendQueue queue = queue(10, 1024, CanvasSendQueue.OverflowPolicy.DROP_OLDEST, () -> STATE);
+
+		queue.enqueue(message(1));
+		queue.close();
+		queue.enqueue(message(2));
+		runTasks();
+
+		assertThat(queue.size()).isZero();
+		verify(session, never()).sendMessage(any());
+	}
+
+	private CanvasSendQueue queue(int maxMessages, long maxBytes, CanvasSendQueue.OverflowPolicy policy,
+			Supplier<byte[]> resyncState) {
+		return new CanvasSendQueue(session, executor, maxMessages, maxBytes, policy, resyncState, dropped, overflows);
+	}
+
+	private void runTasks() {
+		for (Runnable task = tasks.poll(); task != null; task = tasks.poll()) {
+			task.run();
+		}
+	}
+
+	private static BinaryMessage message(int tag) {
+		return message(tag, 1);
+	}
+
+	private static BinaryMessage message(int tag, int length) {
+		byte[] payload = new byte[length];
+		payload[0] = (byte) tag;
+		return new BinaryMessage(payload);
+	}
+}
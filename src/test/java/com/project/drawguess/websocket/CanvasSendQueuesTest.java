@@ -0,0 +1,56 @@
+package com.project.drawguess.websocket;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.web.socket.WebSocketSession;
+
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class CanvasSendQueuesTest {
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private final CanvasSendQueues sendQueues = new CanvasSendQueues(meterRegistry,
+			new VirtualThreadTaskExecutor("test-send-"), 16, 1 << 16, CanvasSendQueue.OverflowPolicy.DROP_OLDEST);
+
+	@Test
+	void metersAreTaggedWithTheRoomIdNotItsCode() {
+		sendQueues.open("123456", 42L, session("s1"), () -> new byte[0]);
+
+		assertThat(meterRegistry.getMeters()).extracting(meter -> meter.getId().getName())
+				.containsExactlyInAnyOrder("canvas.send.dropped", "canvas.send.overflows", "canvas.send.queue.depth");
+		assertThat(meterRegistry.getMeters()).allSatisfy(meter -> {
+			assertThat(meter.getId().getTag("room")).isEqualTo("42");
+			assertThat(meter.getId().getTags()).noneMatch(tag -> tag.getValue().contains("123456"));
+		});
+	}
+
+	@Test
+	void roomsMetersGoWithItsLastConnection() {
+		sendQueues.open("123456", 42L, session("s1"), () -> new byte[0]);
+		sendQueues.open("123456", 42L, session("s2"), () -> new byte[0]);
+		sendQueues.open("654321", 7L, session("s3"), () -> new byte[0]);
+
+		sendQueues.close("123456", "s1");
+		assertThat(roomIds()).containsOnly("42", "7");
+
+		sendQueues.close("123456", "s2");
+		assertThat(roomIds()).containsOnly("7");
+		assertThat(meterRegistry.getMeters()).hasSize(3);
+	}
+
+	private Object[] roomIds() {
+		return meterRegistry.getMeters().stream().map(Meter::getId).map(id -> id.getTag("room")).distinct().toArray();
+	}
+
+	private static WebSocketSession session(String id) {
+		WebSocketSession session = mock(WebSocketSession.class);
+		when(session.getId()).thenReturn(id);
+		when(session.isOpen()).thenReturn(true);
+		return session;
+	}
+}
@@ -0,0 +1,125 @@
+package com.project.drawguess.websocket;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+class CanvasStateTransferTest {
+
+	// Small chunks so a few strokes span several of them
+	private final DirectBufferPool pool = new DirectBufferPool(64, 16);
+
+	@Test
+	void v1StreamIsTheLogBehindAStateHeader() {
+		CanvasStrokeLog log = logWith(20);
+		CanvasStateTransfer transfer = CanvasStateTransfer.open(7, "ROOM", 1, log);
+
+		byte[] stream = reassemble(transfer, 50);
+
+		assertThat(transfer.totalLength()).isEqualTo(5 + log.getSizeBytes());
+		ByteBuffer header = ByteBuffer.wrap(stream, 0, 5);
+		assertThat(header.get()).isEqualTo(BinaryCanvasCodec.MSG_STATE);
+		assertThat(header.getInt()).isEqualTo(20);
+		assertThat(Arrays.copyOfRange(stream, 5, stream.length)).containsExactly(log.toArray(0));
+	}
+
+	@Test
+	void v2StreamIsTheV2StateSnapshot() {
+		CanvasStrokeLog log = logWith(20);
+		CanvasStateTransfer transfer = CanvasStateTransfer.open(7, "ROOM", BinaryCanvasCodecV2.VERSION, log);
+
+		assertThat(reassemble(transfer, 33)).containsExactly(log.stateSnapshotV2());
+	}
+
+	@Test
+	void chunkFramesCarryIdOffsetAndTotal() {
+		CanvasStateTransfer transfer = CanvasStateTransfer.open(42, "ROOM", 1, logWith(3));
+		long total = transfer.totalLength();
+
+		byte[] frame = transfer.chunk(10, 16);
+
+		assertThat(frame).hasSize(BinaryCanvasCodec.STATE_CHUNK_HEADER_BYTES + 16);
+		ByteBuffer header = ByteBuffer.wrap(frame);
+		assertThat(header.get()).isEqualTo(BinaryCanvasCodec.MSG_STATE_CHUNK);
+		assertThat(header.getInt()).isEqualTo(42);
+		assertThat(header.getInt()).isEqualTo(10);
+		assertThat(header.getInt()).isEqualTo((int) total);
+
+		byte[] last = transfer.chunk(total - 4, 16);
+		assertThat(last).hasSize(BinaryCanvasCodec.STATE_CHUNK_HEADER_BYTES + 4);
+	}
+
+	@Test
+	void strokesAppendedLaterAreNotIncluded() {
+		CanvasStrokeLog log = logWith(5);
+		byte[] before = log.toArray(0);
+		CanvasStateTransfer v1 = CanvasStateTransfer.open(1, "ROOM", 1, log);
+		CanvasStateTransfer v2 = CanvasStateTransfer.open(2, "ROOM", BinaryCanvasCodecV2.VERSION, log);
+		byte[] v2Before = log.stateSnapshotV2();
+
+		append(log, 5, 10);
+
+		byte[] stream = reassemble(v1, 40);
+		assertThat(ByteBuffer.wrap(stream, 1, 4).getInt()).isEqualTo(5);
+		assertThat(Arrays.copyOfRange(stream, 5, stream.length)).containsExactly(before);
+		assertThat(reassemble(v2, 40)).containsExactly(v2Before);
+	}
+
+	@Test
+	void goesStaleWhenTheLogIsReleased() {
+		CanvasStrokeLog log = logWith(5);
+		CanvasStateTransfer transfer = CanvasStateTransfer.open(1, "ROOM", 1, log);
+
+		assertThat(transfer.chunk(0, 8)).isNotNull();
+		log.release();
+
+		// The header is held by the transfer; the log's bytes are gone
+		assertThat(transfer.chunk(0, 5)).isNotNull();
+		assertThat(transfer.chunk(0, (int) transfer.totalLength())).isNull();
+		assertThat(CanvasStateTransfer.open(2, "ROOM", 1, log)).isNull();
+	}
+
+	@Test
+	void roomWithoutCanvasGetsAnEmptyState() {
+		CanvasStateTransfer transfer = CanvasStateTransfer.open(1, "ROOM", 1, null);
+
+		byte[] stream = reassemble(transfer, 100);
+
+		assertThat(stream).containsExactly(BinaryCanvasCodec.MSG_STATE, 0, 0, 0, 0);
+	}
+
+	private CanvasStrokeLog logWith(int strokes) {
+		CanvasStrokeLog log = new CanvasStrokeLog(pool);
+		append(log, 0, strokes);
+		return log;
+	}
+
+	private static void append(CanvasStrokeLog log, int from, int to) {
+		for (int i = from; i < to; i++) {
+			short[] xy = new short[2 * (1 + i % 4)];
+			for (int j = 0; j < xy.length; j++) {
+				xy[j] = (short) (100 * i + 7 * j);
+			}
+			CanvasStroke stroke = new CanvasStroke(CanvasStroke.TOOL_PEN, i % 2 == 0 ? 0xFF0000 : 0x123456, 1 + i, xy);
+			byte[] body = new byte[BinaryCanvasCodec.strokeSize(stroke)];
+			BinaryCanvasCodec.writeStroke(ByteBuffer.wrap(body), stroke);
+			log.append(body, 0, body.length);
+		}
+	}
+
+	private static byte[] reassemble(CanvasStateTransfer transfer, int maxPayload) {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		for (long offset = 0; offset < transfer.totalLength(); offset += maxPayload) {
+			byte[] frame = transfer.chunk(offset, maxPayload);
+			assertThat(frame).isNotNull();
+			assertThat(ByteBuffer.wrap(frame, 5, 4).getInt()).isEqualTo((int) offset);
+			out.write(frame, BinaryCanvasCodec.STATE_CHUNK_HEADER_BYTES,
+					frame.length - BinaryCanvasCodec.STATE_CHUNK_HEADER_BYTES);
+		}
+		return out.toByteArray();
+	}
+}
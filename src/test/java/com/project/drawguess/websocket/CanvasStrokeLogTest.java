@@ -0,0 +1,73 @@
+package com.project.drawguess.websocket;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.ByteBuffer;
+
+import org.junit.jupiter.api.Test;
+
+class CanvasStrokeLogTest {
+
+	private static final CanvasStroke RED = new CanvasStroke(CanvasStroke.TOOL_PEN, 0xFF0000, 4,
+			new short[] { 10, 20, 30, 40 });
+
+	// Small chunks so a few strokes span several of them
+	private final DirectBufferPool pool = new DirectBufferPool(16, 16);
+
+	@Test
+	void emptyLogHasNoState() {
+		CanvasStrokeLog log = new CanvasStrokeLog(pool);
+
+		assertThat(log.stateSnapshot()).isNull();
+		assertThat(log.stateSnapshotV2()).isNull();
+	}
+
+	@Test
+	void stateIsTheLogBehindAStateHeader() {
+		CanvasStrokeLog log = new CanvasStrokeLog(pool);
+		append(log, RED);
+		append(log, RED);
+
+		byte[] state = log.stateSnapshot();
+
+		assertThat(state).startsWith(BinaryCanvasCodec.MSG_STATE, 0, 2);
+		assertThat(state).endsWith(log.toArray(0));
+		assertThat(state).hasSize(3 + (int) log.getSizeBytes());
+	}
+
+	@Test
+	void snapshotsAreSharedUntilTheNextAppend() {
+		CanvasStrokeLog log = new CanvasStrokeLog(pool);
+		append(log, RED);
+
+		byte[] v1 = log.stateSnapshot();
+		byte[] v2 = log.stateSnapshotV2();
+		assertThat(log.stateSnapshot()).isSameAs(v1);
+		assertThat(log.stateSnapshotV2()).isSameAs(v2);
+
+		append(log, RED);
+
+		assertThat(log.stateSnapshot()).isNotSameAs(v1).startsWith(BinaryCanvasCodec.MSG_STATE, 0, 2);
+		assertThat(log.stateSnapshotV2()).isNotSameAs(v2).hasSizeGreaterThan(v2.length);
+	}
+
+	@Test
+	void sharedSnapshotsCountAsRetained() {
+		CanvasStrokeLog log = new CanvasStrokeLog(pool);
+		append(log, RED);
+		long chunksOnly = log.retainedBytes();
+
+		byte[] v1 = log.stateSnapshot();
+
+		assertThat(log.retainedBytes()).isEqualTo(chunksOnly + v1.length);
+
+		log.release();
+		assertThat(log.retainedBytes()).isZero();
+	}
+
+	private static void append(CanvasStrokeLog log, CanvasStroke stroke) {
+		byte[] body = new byte[BinaryCanvasCodec.strokeSize(stroke)];
+		BinaryCanvasCodec.writeStroke(ByteBuffer.wrap(body), stroke);
+		log.append(body, 0, body.length);
+	}
+}
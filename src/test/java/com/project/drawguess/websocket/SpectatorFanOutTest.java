@@ -0,0 +1,49 @@
+package com.project.drawguess.websocket;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class SpectatorFanOutTest {
+
+	private final SpectatorFanOut fanOut = new SpectatorFanOut(new SimpleMeterRegistry(),
+			new VirtualThreadTaskExecutor("test-fanout-"), 2);
+
+	@Test
+	void everySpectatorAcrossShardsGetsTheFrame() {
+		CanvasSendQueue[] queues = new CanvasSendQueue[5];
+		for (int i = 0; i < queues.length; i++) {
+			queues[i] = mock(CanvasSendQueue.class);
+			fanOut.add("ROOM", new SpectatorFanOut.Spectator("s" + i, 1, queues[i]));
+		}
+
+		fanOut.broadcast("ROOM", CanvasFrame.ofFixed(BinaryCanvasCodec.encodeClear()), null);
+
+		for (CanvasSendQueue queue : queues) {
+			verify(queue, timeout(1000)).enqueue(any());
+		}
+	}
+
+	@Test
+	void skippedSpectatorGetsNothing() {
+		CanvasSendQueue requester = mock(CanvasSendQueue.class);
+		CanvasSendQueue other = mock(CanvasSendQueue.class);
+		fanOut.add("ROOM", new SpectatorFanOut.Spectator("requester", 1, requester));
+		fanOut.add("ROOM", new SpectatorFanOut.Spectator("other", 1, other));
+
+		fanOut.broadcast("ROOM", CanvasFrame.ofFixed(BinaryCanvasCodec.encodeClear()), "requester");
+		fanOut.broadcast("ROOM", CanvasFrame.ofFixed(BinaryCanvasCodec.encodeClear()), null);
+
+		// One shard delivers in order, so the second frame arriving means the first was handled
+		verify(other, timeout(1000).times(2)).enqueue(any());
+		verify(requester, timeout(1000)).enqueue(any());
+		verify(requester, after(100).times(1)).enqueue(any());
+	}
+}
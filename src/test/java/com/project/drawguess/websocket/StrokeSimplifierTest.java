@@ -0,0 +1,108 @@
+package com.project.drawguess.websocket;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class StrokeSimplifierTest {
+
+	private final StrokeSimplifier simplifier = new StrokeSimplifier(new SimpleMeterRegistry(), true, 8, 0.25, 0.5);
+
+	@Test
+	void collinearPointsCollapseToTheEndpoints() {
+		CanvasStroke stroke = stroke(4, 0, 0, 10, 10, 20, 20, 30, 30, 40, 40, 50, 50, 60, 60, 70, 70, 80, 80);
+
+		CanvasStroke simplified = simplifier.simplify(stroke);
+
+		assertThat(simplified.coords()).containsExactly(points(0, 0, 80, 80));
+	}
+
+	@Test
+	void cornersAreKept() {
+		CanvasStroke stroke = stroke(4, 0, 0, 10, 0, 20, 0, 30, 0, 40, 0, 40, 10, 40, 20, 40, 30, 40, 40);
+
+		CanvasStroke simplified = simplifier.simplify(stroke);
+
+		assertThat(simplified.coords()).containsExactly(points(0, 0, 40, 0, 40, 40));
+	}
+
+	@Test
+	void toleranceScalesWithLineWidth() {
+		// Every other point is 2 off the line: visible at width 4 (tolerance 1), not at width 16 (tolerance 4)
+		int[] jitter = { 0, 0, 10, 2, 20, 0, 30, 2, 40, 0, 50, 2, 60, 0, 70, 2, 80, 0 };
+
+		assertThat(simplifier.simplify(stroke(4, jitter)).pointCount()).isGreaterThan(2);
+		assertThat(simplifier.simplify(stroke(16, jitter)).coords()).containsExactly(points(0, 0, 80, 0));
+	}
+
+	@Test
+	void hairlinesUseTheMinimumTolerance() {
+		// A point 1 off the line: over the 0.5 floor that width 1 (0.25) falls back to, within width 4's 1
+		int[] bump = { 0, 0, 10, 0, 20, 0, 30, 0, 40, 1, 50, 0, 60, 0, 70, 0 };
+
+		assertThat(simplifier.simplify(stroke(1, bump)).coords()).containsSequence(points(40, 1));
+		assertThat(simplifier.simplify(stroke(4, bump)).coords()).containsExactly(points(0, 0, 70, 0));
+	}
+
+	@Test
+	void closedLoopKeepsItsFarthestPoint() {
+		CanvasStroke stroke = stroke(4, 0, 0, 10, 0, 20, 0, 20, 10, 20, 20, 10, 20, 0, 20, 0, 10, 0, 0);
+
+		CanvasStroke simplified = simplifier.simplify(stroke);
+
+		assertThat(simplified.pointCount()).isGreaterThan(2);
+		assertThat(simplified.x(0)).isZero();
+		assertThat(simplified.x(simplified.pointCount() - 1)).isZero();
+	}
+
+	@Test
+	void keepsToolColourAndWidth() {
+		CanvasStroke stroke = new CanvasStroke(CanvasStroke.TOOL_ERASER, 0x123456, 6,
+				points(0, 0, 1, 1, 2, 2, 3, 3, 4, 4, 5, 5, 6, 6, 7, 7));
+
+		CanvasStroke simplified = simplifier.simplify(stroke);
+
+		assertThat(simplified.toolByte()).isEqualTo(CanvasStroke.TOOL_ERASER);
+		assertThat(simplified.rgb()).isEqualTo(0x123456);
+		assertThat(simplified.width()).isEqualTo(6);
+	}
+
+	@Test
+	void returnsTheSameStrokeWhenNothingIsDropped() {
+		CanvasStroke zigzag = stroke(2, 0, 0, 10, 50, 20, 0, 30, 50, 40, 0, 50, 50, 60, 0, 70, 50);
+
+		assertThat(simplifier.simplify(zigzag)).isSameAs(zigzag);
+	}
+
+	@Test
+	void shortStrokesAreLeftAlone() {
+		CanvasStroke stroke = stroke(4, 0, 0, 1, 1, 2, 2, 3, 3, 4, 4, 5, 5, 6, 6);
+
+		assertThat(simplifier.appliesTo(7)).isFalse();
+		assertThat(simplifier.appliesTo(8)).isTrue();
+		assertThat(simplifier.simplify(stroke)).isSameAs(stroke);
+	}
+
+	@Test
+	void disabledSimplifierChangesNothing() {
+		StrokeSimplifier disabled = new StrokeSimplifier(new SimpleMeterRegistry(), false, 8, 0.25, 0.5);
+		CanvasStroke stroke = stroke(4, 0, 0, 10, 10, 20, 20, 30, 30, 40, 40, 50, 50, 60, 60, 70, 70, 80, 80);
+
+		assertThat(disabled.appliesTo(1000)).isFalse();
+		assertThat(disabled.simplify(stroke)).isSameAs(stroke);
+	}
+
+	private static CanvasStroke stroke(int width, int... xy) {
+		return new CanvasStroke(CanvasStroke.TOOL_PEN, 0x000000, width, points(xy));
+	}
+
+	private static short[] points(int... xy) {
+		short[] out = new short[xy.length];
+		for (int i = 0; i < xy.length; i++) {
+			out[i] = (short) xy[i];
+		}
+		return out;
+	}
+}
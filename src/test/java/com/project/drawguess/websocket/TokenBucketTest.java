@@ -0,0 +1,69 @@
+package com.project.drawguess.websocket;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+class TokenBucketTest {
+
+	@Test
+	void startsFullAndRefusesPastCapacity() {
+		TokenBucket bucket = new TokenBucket(0, 3);
+
+		assertThat(bucket.tryConsume(1)).isTrue();
+		assertThat(bucket.tryConsume(1)).isTrue();
+		assertThat(bucket.tryConsume(1)).isTrue();
+		assertThat(bucket.tryConsume(1)).isFalse();
+	}
+
+	@Test
+	void refusedRequestTakesNothing() {
+		TokenBucket bucket = new TokenBucket(0, 5);
+
+		assertThat(bucket.tryConsume(6)).isFalse();
+		assertThat(bucket.tryConsume(5)).isTrue();
+		assertThat(bucket.tryConsume(0.5)).isFalse();
+	}
+
+	@Test
+	void refundIsCappedAtCapacity() {
+		TokenBucket bucket = new TokenBucket(0, 2);
+
+		assertThat(bucket.tryConsume(2)).isTrue();
+		bucket.refund(1);
+		assertThat(bucket.tryConsume(1)).isTrue();
+		assertThat(bucket.tryConsume(1)).isFalse();
+
+		bucket.refund(10);
+		assertThat(bucket.tryConsume(3)).isFalse();
+		assertThat(bucket.tryConsume(2)).isTrue();
+	}
+
+	@Test
+	void refillsOverTime() throws InterruptedException {
+		TokenBucket bucket = new TokenBucket(1000, 1);
+
+		assertThat(bucket.tryConsume(1)).isTrue();
+		Thread.sleep(20);
+		assertThat(bucket.tryConsume(1)).isTrue();
+	}
+
+	@Test
+	void refillNeverExceedsCapacity() throws InterruptedException {
+		TokenBucket bucket = new TokenBucket(1000, 2);
+
+		Thread.sleep(20);
+		assertThat(bucket.tryConsume(3)).isFalse();
+		assertThat(bucket.tryConsume(2)).isTrue();
+	}
+
+	@Test
+	void idleTimeCountsFromTheLastRefill() {
+		TokenBucket bucket = new TokenBucket(1, 1);
+		bucket.tryConsume(1);
+		long now = System.nanoTime();
+
+		assertThat(bucket.idleNanos(now)).isBetween(0L, now);
+		assertThat(bucket.idleNanos(now + 1_000)).isEqualTo(bucket.idleNanos(now) + 1_000);
+	}
+}